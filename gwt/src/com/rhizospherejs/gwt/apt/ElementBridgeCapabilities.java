@@ -0,0 +1,184 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.apt;
+
+import com.rhizospherejs.gwt.rebind.BridgeCapabilities;
+import com.rhizospherejs.gwt.rebind.BridgeType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Annotation processing counterpart of {@link BridgeCapabilities}: analyzes
+ * {@link BridgeCapabilities#JSO_BUILDER_CLASS} through the javac model of
+ * program elements and builds a mapping between Java types and the methods
+ * that can port values of those types onto a Rhizosphere model object.
+ * Lookups follow the same rules as
+ * {@link BridgeCapabilities#getBridgeMethod(com.google.gwt.core.ext.typeinfo.JType)}.
+ */
+class ElementBridgeCapabilities {
+
+  private final Types types;
+  private final Elements elements;
+
+  /**
+   * Enumerates all the bridge methods, keying them by the erased name of the
+   * Java type that they can handle.
+   */
+  private final Map<String, ExecutableElement> bridgeMethods =
+      new HashMap<String, ExecutableElement>();
+
+  private ExecutableElement objectFallbackMethod;
+  private ExecutableElement objectArrayFallbackMethod;
+  private ExecutableElement enumMethod;
+  private ExecutableElement collectionMethod;
+
+  ElementBridgeCapabilities(Types types, Elements elements) {
+    this.types = types;
+    this.elements = elements;
+  }
+
+  /**
+   * Analyzes {@link BridgeCapabilities#JSO_BUILDER_CLASS}.
+   *
+   * @return this object.
+   * @throws IllegalStateException If the builder class or its fallback
+   *     methods cannot be found.
+   */
+  public ElementBridgeCapabilities configure() {
+    TypeElement builderType = elements.getTypeElement(BridgeCapabilities.JSO_BUILDER_CLASS);
+    if (builderType == null) {
+      throw new IllegalStateException("Unable to build the bridge methods map. Is the builder "
+          + "class " + BridgeCapabilities.JSO_BUILDER_CLASS + " missing from the classpath?");
+    }
+    for (ExecutableElement method :
+        ElementFilter.methodsIn(elements.getAllMembers(builderType))) {
+      if (isValidBridgeMethod(method)) {
+        String targetType = getTargetTypeName(method);
+        bridgeMethods.put(targetType, method);
+        if (targetType.equals("java.lang.Object")) {
+          objectFallbackMethod = method;
+        }
+        if (targetType.equals("java.lang.Object[]")) {
+          objectArrayFallbackMethod = method;
+        }
+        if (targetType.equals("java.lang.Enum")) {
+          enumMethod = method;
+        }
+        if (targetType.equals("java.util.Collection")) {
+          collectionMethod = method;
+        }
+      }
+    }
+    if (objectFallbackMethod == null) {
+      throw new IllegalStateException("Unable to find fallback method for Object types");
+    }
+    if (objectArrayFallbackMethod == null) {
+      throw new IllegalStateException("Unable to find fallback method for Object[] types");
+    }
+    return this;
+  }
+
+  private boolean isValidBridgeMethod(ExecutableElement method) {
+    List<? extends VariableElement> parameters = method.getParameters();
+    return method.getAnnotation(BridgeType.class) != null &&
+        method.getModifiers().contains(Modifier.PUBLIC) &&
+        !method.getModifiers().contains(Modifier.STATIC) &&
+        parameters.size() == 2 &&
+        getErasedName(parameters.get(0).asType()).equals("java.lang.String");
+  }
+
+  /**
+   * Returns the erased name of the Java type a bridge method accepts.
+   */
+  public String getTargetTypeName(ExecutableElement bridgeMethod) {
+    return getErasedName(bridgeMethod.getParameters().get(1).asType());
+  }
+
+  /**
+   * Returns whether a bridge method is a plain property assignment. See
+   * {@link BridgeCapabilities.BridgeMethod#isDirect()}.
+   */
+  public boolean isDirect(ExecutableElement bridgeMethod) {
+    return bridgeMethod.getModifiers().contains(Modifier.NATIVE) &&
+        bridgeMethod.getModifiers().contains(Modifier.FINAL);
+  }
+
+  /**
+   * Returns the names of the primitive types that can be ported between POJOs
+   * and Rhizosphere models.
+   */
+  public Set<String> getMappablePrimitiveTypes() {
+    Set<String> mappablePrimitiveTypes = new HashSet<String>();
+    for (ExecutableElement method : bridgeMethods.values()) {
+      TypeMirror targetType = method.getParameters().get(1).asType();
+      if (targetType.getKind().isPrimitive()) {
+        mappablePrimitiveTypes.add(targetType.toString());
+      }
+    }
+    return mappablePrimitiveTypes;
+  }
+
+  /**
+   * Returns the {@link BridgeCapabilities#JSO_BUILDER_CLASS} method capable
+   * of porting the given Java type onto a Rhizosphere model object.
+   *
+   * @param argumentType The Java type to port.
+   * @return The bridge method capable of porting it.
+   */
+  public ExecutableElement getBridgeMethod(TypeMirror argumentType) {
+    ExecutableElement method = bridgeMethods.get(getErasedName(argumentType));
+    if (method != null) {
+      return method;
+    }
+    TypeMirror erasedType = types.erasure(argumentType);
+    if (enumMethod != null && erasedType.getKind() == TypeKind.DECLARED &&
+        types.asElement(erasedType).getKind() == ElementKind.ENUM) {
+      return enumMethod;
+    }
+    if (collectionMethod != null && erasedType.getKind() == TypeKind.DECLARED &&
+        types.isAssignable(erasedType,
+            types.erasure(collectionMethod.getParameters().get(1).asType()))) {
+      return collectionMethod;
+    }
+    return argumentType.getKind() == TypeKind.ARRAY ?
+        objectArrayFallbackMethod : objectFallbackMethod;
+  }
+
+  /**
+   * Returns the qualified source name of the erasure of a type, as
+   * {@link com.google.gwt.core.ext.typeinfo.JType#getQualifiedSourceName()}
+   * does for erased types.
+   */
+  public String getErasedName(TypeMirror type) {
+    return types.erasure(type).toString();
+  }
+}
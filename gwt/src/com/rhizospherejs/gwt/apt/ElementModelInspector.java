@@ -0,0 +1,231 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.apt;
+
+import com.rhizospherejs.gwt.client.RhizosphereModelAttribute;
+import com.rhizospherejs.gwt.rebind.BridgeType;
+import com.rhizospherejs.gwt.rebind.ModelInspector;
+import com.rhizospherejs.gwt.rebind.ModelMapping;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Annotation processing counterpart of {@link ModelInspector}: analyzes a
+ * POJO implementing {@link com.rhizospherejs.gwt.client.RhizosphereModel}
+ * through the javac model of program elements and describes the mapping to
+ * generate for it. Attributes are identified, named and ordered as
+ * {@link ModelInspector} does, so that both describe the same mapping for the
+ * same POJO.
+ */
+class ElementModelInspector {
+
+  /**
+   * Orders methods as {@link com.google.gwt.core.ext.typeinfo.JClassType#getInheritableMethods()}
+   * does for the zero-argument methods attributes are read from, that is by
+   * name.
+   */
+  private static final Comparator<ExecutableElement> METHOD_ORDER =
+      new Comparator<ExecutableElement>() {
+        public int compare(ExecutableElement a, ExecutableElement b) {
+          return a.getSimpleName().toString().compareTo(b.getSimpleName().toString());
+        }
+      };
+
+  private final Types types;
+  private final Elements elements;
+  private final Messager messager;
+  private final ElementBridgeCapabilities bridgeCapabilities;
+
+  ElementModelInspector(Types types,
+                        Elements elements,
+                        Messager messager,
+                        ElementBridgeCapabilities bridgeCapabilities) {
+    this.types = types;
+    this.elements = elements;
+    this.messager = messager;
+    this.bridgeCapabilities = bridgeCapabilities;
+  }
+
+  /**
+   * Describes the mapping to generate for the given POJO.
+   *
+   * @param modelType The POJO to inspect.
+   * @return The mapping description, or {@code null} if the POJO cannot be
+   *     mapped. The reasons are reported as errors to the messager.
+   */
+  public ModelMapping inspect(TypeElement modelType) {
+    TypeElement customAttributesType =
+        elements.getTypeElement(ModelInspector.CUSTOM_ATTRIBUTES_INTERFACE);
+    boolean useCustomAttributes = customAttributesType != null &&
+        types.isAssignable(modelType.asType(), types.erasure(customAttributesType.asType()));
+    ModelMapping mapping = new ModelMapping(
+        elements.getPackageOf(modelType).getQualifiedName().toString(),
+        modelType.getSimpleName().toString(),
+        useCustomAttributes);
+
+    List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+    for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(modelType))) {
+      if (isValidMethodSignature(method)) {
+        methods.add(method);
+      }
+    }
+    Collections.sort(methods, METHOD_ORDER);
+
+    boolean valid = true;
+    for (ExecutableElement method : methods) {
+      if (isValidAttribute(modelType, method)) {
+        mapping.addAttribute(newAttribute(method));
+      } else {
+        valid = false;
+      }
+    }
+
+    if (valid && mapping.getAttributes().isEmpty() && !useCustomAttributes) {
+      messager.printMessage(Diagnostic.Kind.ERROR,
+          "Cannot extract a Rhizosphere model from "
+          + modelType.getQualifiedName()
+          + ". No suitable annotated methods found, and model is not using explicit mapping.",
+          modelType);
+      valid = false;
+    }
+    return valid ? mapping : null;
+  }
+
+  private boolean isValidMethodSignature(ExecutableElement method) {
+    Set<Modifier> modifiers = method.getModifiers();
+    return method.getAnnotation(RhizosphereModelAttribute.class) != null &&
+        modifiers.contains(Modifier.PUBLIC) &&
+        !modifiers.contains(Modifier.STATIC) &&
+        method.getParameters().isEmpty();
+  }
+
+  private boolean isValidAttribute(TypeElement modelType, ExecutableElement method) {
+    TypeMirror returnType = method.getReturnType();
+    if (returnType.getKind() == TypeKind.ARRAY) {
+      returnType = ((ArrayType) returnType).getComponentType();
+    }
+    if (returnType.getKind().isPrimitive() &&
+        !bridgeCapabilities.getMappablePrimitiveTypes().contains(returnType.toString())) {
+      messager.printMessage(Diagnostic.Kind.ERROR,
+          "Method " + modelType.getQualifiedName() + "::" + method.getSimpleName()
+          + " returns an usupported primitive: " + returnType,
+          method);
+      return false;
+    }
+    RhizosphereModelAttribute annotation = method.getAnnotation(RhizosphereModelAttribute.class);
+    if (annotation.lazy() && annotation.modelId()) {
+      messager.printMessage(Diagnostic.Kind.ERROR,
+          "Method " + modelType.getQualifiedName() + "::" + method.getSimpleName()
+          + " identifies the model and cannot be lazy.",
+          method);
+      return false;
+    }
+    return true;
+  }
+
+  private ModelMapping.Attribute newAttribute(ExecutableElement method) {
+    RhizosphereModelAttribute annotation = method.getAnnotation(RhizosphereModelAttribute.class);
+    String methodName = method.getSimpleName().toString();
+    TypeMirror returnType = method.getReturnType();
+    ModelMapping.Attribute attribute = new ModelMapping.Attribute(
+        methodName,
+        returnType.toString(),
+        annotation.name().length() > 0 ?
+            annotation.name() : ModelInspector.getDefaultAttributeName(methodName));
+    attribute.setMetadata(
+        annotation.label().length() > 0 ? annotation.label() : null,
+        getDescriptorClassName(annotation),
+        !annotation.opaque(),
+        annotation.modelId());
+    attribute.setLazy(annotation.lazy());
+
+    ExecutableElement bridgeMethod = bridgeCapabilities.getBridgeMethod(returnType);
+    attribute.setBridgeMethod(
+        bridgeMethod.getSimpleName().toString(),
+        bridgeCapabilities.getTargetTypeName(bridgeMethod),
+        bridgeCapabilities.isDirect(bridgeMethod),
+        bridgeMethod.getAnnotation(BridgeType.class).rhizosphereKind());
+    setValueTraits(attribute, returnType);
+
+    if (returnType.getKind() == TypeKind.DECLARED &&
+        types.asElement(returnType).getKind() == ElementKind.ENUM) {
+      List<String> constants = new ArrayList<String>();
+      for (Element member : types.asElement(returnType).getEnclosedElements()) {
+        if (member.getKind() == ElementKind.ENUM_CONSTANT) {
+          constants.add(member.getSimpleName().toString());
+        }
+      }
+      attribute.setEnumConstants(constants);
+    }
+    return attribute;
+  }
+
+  private void setValueTraits(ModelMapping.Attribute attribute, TypeMirror type) {
+    TypeKind kind = type.getKind();
+    if (kind.isPrimitive()) {
+      boolean numeric = kind != TypeKind.BOOLEAN && kind != TypeKind.CHAR;
+      attribute.setValueTraits(true, numeric, true);
+      return;
+    }
+    if (kind != TypeKind.DECLARED) {
+      attribute.setValueTraits(false, false, false);
+      return;
+    }
+    TypeMirror erasedType = types.erasure(type);
+    attribute.setValueTraits(
+        false,
+        isAssignable(erasedType, Number.class.getName()),
+        isAssignable(erasedType, Comparable.class.getName()));
+  }
+
+  private boolean isAssignable(TypeMirror type, String targetTypeName) {
+    TypeElement targetType = elements.getTypeElement(targetTypeName);
+    return targetType != null && types.isAssignable(type, types.erasure(targetType.asType()));
+  }
+
+  /**
+   * Returns the canonical name of the attribute descriptor class. Class
+   * values of annotations are not available at javac time, and are read
+   * from their type mirror instead.
+   */
+  private String getDescriptorClassName(RhizosphereModelAttribute annotation) {
+    try {
+      return annotation.descriptor().getCanonicalName();
+    } catch (MirroredTypeException e) {
+      return types.erasure(e.getTypeMirror()).toString();
+    }
+  }
+}
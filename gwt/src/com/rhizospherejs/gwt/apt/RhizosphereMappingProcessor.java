@@ -0,0 +1,166 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.apt;
+
+import com.google.gwt.core.ext.TreeLogger;
+
+import com.rhizospherejs.gwt.client.RhizosphereModel;
+import com.rhizospherejs.gwt.client.RhizosphereModelAttribute;
+import com.rhizospherejs.gwt.rebind.MappingWriter;
+import com.rhizospherejs.gwt.rebind.ModelMapping;
+import com.rhizospherejs.gwt.rebind.RhizosphereGenerator;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Javac annotation processor that generates
+ * {@link com.rhizospherejs.gwt.client.RhizosphereMapping} implementations for
+ * POJOs implementing {@link RhizosphereModel}, emitting the same source code
+ * {@link RhizosphereGenerator} would emit during GWT compilation.
+ * <p>
+ * Pre-generated mappings are compiled once by javac, can be exercised by JVM
+ * tests, and are picked up as they are by
+ * {@link com.google.gwt.core.client.GWT#create(Class)}, sparing every GWT
+ * compilation permutation and dev mode session the cost of generating them.
+ * <p>
+ * Mappings are generated for every concrete top level class implementing
+ * {@link RhizosphereModel}, including the ones that only inherit their
+ * {@link RhizosphereModelAttribute} annotations, so the processor looks at
+ * all the compiled classes rather than only at the annotated ones. Nested
+ * model classes are left to {@link RhizosphereGenerator}.
+ * <p>
+ * Single crossing bridges are generated when the
+ * {@code -Arhizosphere.bridge.singleCrossing=true} option is passed to javac.
+ * The option should match the
+ * {@value RhizosphereGenerator#SINGLE_CROSSING_PROPERTY} configuration
+ * property of the GWT module, which has no effect on pre-generated mappings.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(RhizosphereGenerator.SINGLE_CROSSING_PROPERTY)
+public class RhizosphereMappingProcessor extends AbstractProcessor {
+
+  /**
+   * Names of the model classes whose mapping has already been generated.
+   */
+  private final Set<String> processedModels = new HashSet<String>();
+
+  private Types types;
+  private Elements elements;
+  private ElementBridgeCapabilities bridgeCapabilities;
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    types = processingEnv.getTypeUtils();
+    elements = processingEnv.getElementUtils();
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (roundEnv.processingOver()) {
+      return false;
+    }
+    TypeElement modelInterface = elements.getTypeElement(RhizosphereModel.class.getName());
+    if (modelInterface == null) {
+      return false;
+    }
+
+    Set<TypeElement> candidates = new LinkedHashSet<TypeElement>();
+    candidates.addAll(ElementFilter.typesIn(roundEnv.getRootElements()));
+    for (Element method : roundEnv.getElementsAnnotatedWith(RhizosphereModelAttribute.class)) {
+      if (method.getEnclosingElement() instanceof TypeElement) {
+        candidates.add((TypeElement) method.getEnclosingElement());
+      }
+    }
+
+    for (TypeElement candidate : candidates) {
+      if (candidate.getKind() != ElementKind.CLASS ||
+          candidate.getNestingKind() != NestingKind.TOP_LEVEL ||
+          candidate.getModifiers().contains(Modifier.ABSTRACT) ||
+          !types.isAssignable(candidate.asType(), modelInterface.asType()) ||
+          !processedModels.add(candidate.getQualifiedName().toString())) {
+        continue;
+      }
+      generateMapping(candidate);
+    }
+
+    // Other processors are free to process the same annotations.
+    return false;
+  }
+
+  private void generateMapping(TypeElement modelType) {
+    if (bridgeCapabilities == null) {
+      try {
+        bridgeCapabilities = new ElementBridgeCapabilities(types, elements).configure();
+      } catch (IllegalStateException e) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage());
+        return;
+      }
+    }
+    ModelMapping mapping = new ElementModelInspector(
+        types, elements, processingEnv.getMessager(), bridgeCapabilities).inspect(modelType);
+    if (mapping == null) {
+      return;
+    }
+
+    try {
+      JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(
+          mapping.getQualifiedMappingClassName(), modelType);
+      PrintWriter pw = new PrintWriter(sourceFile.openWriter());
+      try {
+        new MappingWriter(TreeLogger.NULL, pw, mapping, isSingleCrossing()).write();
+      } finally {
+        pw.close();
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Unable to write " + mapping.getQualifiedMappingClassName() + ": " + e.getMessage(),
+          modelType);
+    }
+  }
+
+  private boolean isSingleCrossing() {
+    return Boolean.parseBoolean(
+        processingEnv.getOptions().get(RhizosphereGenerator.SINGLE_CROSSING_PROPERTY));
+  }
+}
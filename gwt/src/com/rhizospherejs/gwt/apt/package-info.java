@@ -0,0 +1,29 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+/**
+ * Javac annotation processing support. Generates
+ * {@link com.rhizospherejs.gwt.client.RhizosphereMapping} implementations at
+ * javac time, rather than during GWT compilation.
+ * <p>
+ * Run javac with
+ * {@code -processor com.rhizospherejs.gwt.apt.RhizosphereMappingProcessor}
+ * and the Rhizosphere, GWT user and GWT dev jars on the processor path, and
+ * make the generated sources directory part of the GWT source path. The
+ * {@link com.rhizospherejs.gwt.rebind.RhizosphereGenerator} then picks up the
+ * pre-generated mappings instead of generating them again.
+ */
+package com.rhizospherejs.gwt.apt;
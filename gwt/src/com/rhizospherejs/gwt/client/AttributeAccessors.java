@@ -0,0 +1,252 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Typed access to the attributes of {@link RhizosphereModel} POJOs, for
+ * data operations (sorting, grouping, filtering) performed in Java on the
+ * original POJOs, without crossing into the JavaScriptObjects they are
+ * bridged into.
+ * <p>
+ * Instances are generated along with {@link RhizosphereMapping}s (see
+ * {@link RhizosphereMapping#newAttributeAccessors()}) and cover all the
+ * attributes defined by {@link RhizosphereModelAttribute} annotations,
+ * opaque ones included, ordered by the name of their getter methods.
+ * Attributes are addressed by index, which is the fastest option, or by
+ * name. Custom attributes set via
+ * {@link CustomRhizosphereModel} are not covered.
+ * <p>
+ * Example:
+ * <pre><code>
+ * RhizosphereMapping&lt;Person&gt; mapping = GWT.create(Person.class);
+ * AttributeAccessors&lt;Person&gt; accessors = mapping.newAttributeAccessors();
+ * int age = accessors.indexOf("age");
+ * Collections.sort(people, accessors.getComparator(age));
+ * double totalAge = 0;
+ * for (Person person : people) {
+ *   totalAge += accessors.getDouble(person, age);
+ * }
+ * </code></pre>
+ *
+ * @param <T> The POJO type.
+ */
+public abstract class AttributeAccessors<T> {
+
+  private final String[] names;
+  private final boolean[] numeric;
+  private final boolean[] sortable;
+  private final List<Comparator<T>> comparators;
+
+  /**
+   * Creates a new set of accessors.
+   *
+   * @param names The attribute names, indexed by attribute.
+   * @param numeric Whether each attribute has a numeric Java type.
+   * @param sortable Whether each attribute has a primitive or comparable
+   *     Java type.
+   */
+  protected AttributeAccessors(String[] names, boolean[] numeric, boolean[] sortable) {
+    this.names = names;
+    this.numeric = numeric;
+    this.sortable = sortable;
+    comparators = new ArrayList<Comparator<T>>(names.length);
+    for (int i = 0; i < names.length; i++) {
+      comparators.add(null);
+    }
+  }
+
+  /**
+   * Returns the number of attributes.
+   */
+  public int getAttributeCount() {
+    return names.length;
+  }
+
+  /**
+   * Returns the name of the attribute at the given index, as it appears on
+   * Rhizosphere models.
+   */
+  public String getAttributeName(int index) {
+    checkIndex(index);
+    return names[index];
+  }
+
+  /**
+   * Returns the index of the attribute with the given name, or -1 if no
+   * such attribute exists.
+   */
+  public int indexOf(String attributeName) {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equals(attributeName)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns whether the attribute at the given index has a numeric Java type
+   * (a numeric primitive or a {@link Number}), and can therefore be
+   * projected onto a double via {@link #getDouble(Object, int)}.
+   */
+  public boolean isNumeric(int index) {
+    checkIndex(index);
+    return numeric[index];
+  }
+
+  /**
+   * Returns whether the attribute at the given index has a primitive or
+   * {@link Comparable} Java type, and can therefore be sorted via
+   * {@link #getComparator(int)}.
+   */
+  public boolean isSortable(int index) {
+    checkIndex(index);
+    return sortable[index];
+  }
+
+  /**
+   * Returns the value of an attribute of a POJO. Primitive values are boxed.
+   *
+   * @param model The POJO.
+   * @param index The attribute index.
+   * @return The attribute value, cast to the type expected by the caller.
+   */
+  @SuppressWarnings("unchecked")
+  public <V> V get(T model, int index) {
+    checkIndex(index);
+    return (V) getAttribute(model, index);
+  }
+
+  /**
+   * As {@link #get(Object, int)}, for the attribute with the given name.
+   */
+  public <V> V get(T model, String attributeName) {
+    return this.<V>get(model, resolve(attributeName));
+  }
+
+  /**
+   * Returns the value of a numeric attribute of a POJO, as a double. Missing
+   * values are returned as {@code NaN}.
+   *
+   * @param model The POJO.
+   * @param index The attribute index.
+   * @return The attribute value.
+   * @throws RhizosphereException If the attribute is not numeric.
+   */
+  public double getDouble(T model, int index) {
+    if (!isNumeric(index)) {
+      throw new RhizosphereException("Attribute " + names[index] + " is not numeric.");
+    }
+    return getDoubleAttribute(model, index);
+  }
+
+  /**
+   * As {@link #getDouble(Object, int)}, for the attribute with the given name.
+   */
+  public double getDouble(T model, String attributeName) {
+    return getDouble(model, resolve(attributeName));
+  }
+
+  /**
+   * Returns a comparator that orders POJOs by the value of an attribute,
+   * with missing values first.
+   *
+   * @param index The attribute index.
+   * @return The comparator.
+   * @throws RhizosphereException If the attribute is not sortable.
+   */
+  public Comparator<T> getComparator(int index) {
+    if (!isSortable(index)) {
+      throw new RhizosphereException("Attribute " + names[index] + " is not sortable.");
+    }
+    Comparator<T> comparator = comparators.get(index);
+    if (comparator == null) {
+      comparator = newComparator(index);
+      comparators.set(index, comparator);
+    }
+    return comparator;
+  }
+
+  /**
+   * As {@link #getComparator(int)}, for the attribute with the given name.
+   */
+  public Comparator<T> getComparator(String attributeName) {
+    return getComparator(resolve(attributeName));
+  }
+
+  /**
+   * Returns the value of the attribute at the given, valid, index.
+   */
+  protected abstract Object getAttribute(T model, int index);
+
+  /**
+   * Returns the value of the numeric attribute at the given, valid, index.
+   */
+  protected abstract double getDoubleAttribute(T model, int index);
+
+  /**
+   * Creates a comparator for the sortable attribute at the given, valid,
+   * index.
+   */
+  protected abstract Comparator<T> newComparator(int index);
+
+  protected static double toDouble(Number value) {
+    return value == null ? Double.NaN : value.doubleValue();
+  }
+
+  protected static int compare(int a, int b) {
+    return a < b ? -1 : (a == b ? 0 : 1);
+  }
+
+  protected static int compare(long a, long b) {
+    return a < b ? -1 : (a == b ? 0 : 1);
+  }
+
+  protected static int compare(double a, double b) {
+    return Double.compare(a, b);
+  }
+
+  protected static int compare(boolean a, boolean b) {
+    return a == b ? 0 : (a ? 1 : -1);
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  protected static int compareValues(Comparable a, Object b) {
+    if (a == null) {
+      return b == null ? 0 : -1;
+    }
+    return b == null ? 1 : a.compareTo(b);
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= names.length) {
+      throw new IndexOutOfBoundsException("Invalid attribute index: " + index);
+    }
+  }
+
+  private int resolve(String attributeName) {
+    int index = indexOf(attributeName);
+    if (index < 0) {
+      throw new RhizosphereException("Unknown attribute: " + attributeName);
+    }
+    return index;
+  }
+}
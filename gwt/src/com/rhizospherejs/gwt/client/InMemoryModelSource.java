@@ -0,0 +1,59 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link RhizosphereModelSource} that serves pages from an in-memory list of
+ * models. Pages are delivered asynchronously, as a remote source would do,
+ * which makes this class a convenient stand-in for real backends during
+ * development and testing.
+ *
+ * @param <T> The type that describes the datapoints of your dataset.
+ */
+public class InMemoryModelSource<T> implements RhizosphereModelSource<T> {
+
+  private final List<T> models;
+
+  /**
+   * Creates a new instance.
+   * @param models The models this source will serve. The list is not copied.
+   */
+  public InMemoryModelSource(List<T> models) {
+    this.models = models;
+  }
+
+  @Override
+  public void fetchPage(final int offset,
+                        final int limit,
+                        final AsyncCallback<List<T>> callback) {
+    Scheduler.get().scheduleDeferred(new ScheduledCommand() {
+      @Override
+      public void execute() {
+        int from = Math.min(offset, models.size());
+        int to = Math.min(offset + limit, models.size());
+        callback.onSuccess(new ArrayList<T>(models.subList(from, to)));
+      }
+    });
+  }
+}
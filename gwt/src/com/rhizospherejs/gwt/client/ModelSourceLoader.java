@@ -0,0 +1,174 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import com.rhizospherejs.gwt.client.handlers.ProgressEvent;
+
+import java.util.List;
+
+/**
+ * Feeds a Rhizosphere visualization with the models fetched from a
+ * {@link RhizosphereModelSource}, one page at a time.
+ * <p>
+ * Each page is bridged and appended to the visualization as soon as it
+ * arrives. The next page is requested only after the browser had a chance to
+ * render the previous one, only once the visualization deployment has
+ * started and, if the visualization is being deployed incrementally, only
+ * once the deployment backlog has dropped below a page worth of models. This
+ * way neither a detached visualization nor a slow rendering cause fetched
+ * pages to pile up.
+ *
+ * @param <T> The type that describes the datapoints of your dataset.
+ */
+class ModelSourceLoader<T> implements AsyncCallback<List<T>>, ProgressEvent.Handler {
+
+  private final Rhizosphere<T> visualization;
+  private final RhizosphereModelSource<T> source;
+  private final int pageSize;
+  private final RhizosphereCallback callback;
+
+  private HandlerRegistration progressRegistration;
+  private int offset = 0;
+  private boolean waitingForDeploy = false;
+  private boolean done = false;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param visualization The visualization to feed.
+   * @param source The source to fetch models from.
+   * @param pageSize The number of models to fetch per page.
+   * @param callback An optional callback invoked once the source is exhausted
+   *     or a failure occurs.
+   */
+  ModelSourceLoader(Rhizosphere<T> visualization,
+                    RhizosphereModelSource<T> source,
+                    int pageSize,
+                    RhizosphereCallback callback) {
+    this.visualization = visualization;
+    this.source = source;
+    this.pageSize = pageSize;
+    this.callback = callback;
+  }
+
+  /**
+   * Starts fetching pages from the source.
+   */
+  void start() {
+    progressRegistration = visualization.addProgressHandler(this);
+    fetchNextPage();
+  }
+
+  /**
+   * Stops fetching pages from the source. Pages already requested are
+   * discarded when they arrive.
+   */
+  void cancel() {
+    finish(false, "Loading cancelled");
+  }
+
+  /**
+   * Returns whether the loader has stopped fetching pages, either because the
+   * source was exhausted, because of an error or because it was cancelled.
+   */
+  boolean isDone() {
+    return done;
+  }
+
+  @Override
+  public void onSuccess(List<T> page) {
+    if (done) {
+      return;
+    }
+    offset += page.size();
+    try {
+      if (!page.isEmpty()) {
+        visualization.appendModels(page);
+      }
+    } catch (RhizosphereException e) {
+      finish(false, e.getMessage());
+      return;
+    }
+
+    if (page.size() < pageSize) {
+      finish(true, null);
+    } else if (!isDeployReady()) {
+      waitingForDeploy = true;
+    } else {
+      Scheduler.get().scheduleDeferred(new ScheduledCommand() {
+        @Override
+        public void execute() {
+          fetchNextPage();
+        }
+      });
+    }
+  }
+
+  @Override
+  public void onFailure(Throwable caught) {
+    finish(false, caught.getMessage());
+  }
+
+  @Override
+  public void onProgress(ProgressEvent event) {
+    onDeployStateChanged();
+  }
+
+  /**
+   * Resumes fetching pages, if the loader was waiting for the visualization
+   * deployment to start or to catch up. Invoked by the visualization when its
+   * deployment starts, and after each deployed batch.
+   */
+  void onDeployStateChanged() {
+    if (waitingForDeploy && isDeployReady()) {
+      waitingForDeploy = false;
+      fetchNextPage();
+    }
+  }
+
+  /**
+   * Returns whether the visualization is ready to receive another page: its
+   * deployment has started, and the models still waiting to be deployed
+   * are fewer than a page.
+   */
+  private boolean isDeployReady() {
+    return visualization.isDeployStarted() &&
+        visualization.getDeployBacklog() <= pageSize;
+  }
+
+  private void fetchNextPage() {
+    if (!done) {
+      source.fetchPage(offset, pageSize, this);
+    }
+  }
+
+  private void finish(boolean status, String details) {
+    if (done) {
+      return;
+    }
+    done = true;
+    progressRegistration.removeHandler();
+    if (callback != null) {
+      callback.run(status, details);
+    }
+  }
+}
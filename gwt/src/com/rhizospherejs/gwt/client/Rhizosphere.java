@@ -17,6 +17,7 @@
 package com.rhizospherejs.gwt.client;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Style.Position;
 import com.google.gwt.event.shared.HandlerRegistration;
@@ -29,17 +30,25 @@ import com.google.gwt.user.client.ui.Widget;
 import com.google.gwt.user.client.ui.WidgetCollection;
 
 import com.rhizospherejs.gwt.client.bootstrap.Bootstrap;
+import com.rhizospherejs.gwt.client.bootstrap.IncrementalDeployer;
+import com.rhizospherejs.gwt.client.bridge.BinaryModelDecoder;
+import com.rhizospherejs.gwt.client.bridge.ColumnStore;
 import com.rhizospherejs.gwt.client.bridge.JSONObjectModelBridge;
 import com.rhizospherejs.gwt.client.bridge.JSONStringModelBridge;
 import com.rhizospherejs.gwt.client.bridge.JavaScriptObjectModelBridge;
 import com.rhizospherejs.gwt.client.bridge.JsoBuilder;
 import com.rhizospherejs.gwt.client.bridge.ModelBridge;
+import com.rhizospherejs.gwt.client.bridge.ModelStore;
+import com.rhizospherejs.gwt.client.bridge.ModelUpdate;
+import com.rhizospherejs.gwt.client.bridge.ParsedPayload;
 import com.rhizospherejs.gwt.client.handlers.FilterEvent;
 import com.rhizospherejs.gwt.client.handlers.HasFilterHandlers;
 import com.rhizospherejs.gwt.client.handlers.HasLayoutHandlers;
+import com.rhizospherejs.gwt.client.handlers.HasProgressHandlers;
 import com.rhizospherejs.gwt.client.handlers.HasReadyHandlers;
 import com.rhizospherejs.gwt.client.handlers.HasSelectionHandlers;
 import com.rhizospherejs.gwt.client.handlers.LayoutEvent;
+import com.rhizospherejs.gwt.client.handlers.ProgressEvent;
 import com.rhizospherejs.gwt.client.handlers.ReadyEvent;
 import com.rhizospherejs.gwt.client.handlers.SelectionEvent;
 import com.rhizospherejs.gwt.client.meta.AttributeBuilder;
@@ -48,9 +57,11 @@ import com.rhizospherejs.gwt.client.renderer.WidgetBridge;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Widget wrapping a Rhizosphere visualization. This is the main entry point
@@ -139,7 +150,8 @@ import java.util.Map;
  * @author dinoderek@google.com (Dino Derek Hughes)
  */
 public class Rhizosphere<T> extends Composite
-    implements HasReadyHandlers, HasFilterHandlers, HasLayoutHandlers, HasSelectionHandlers {
+    implements HasReadyHandlers, HasProgressHandlers, HasFilterHandlers, HasLayoutHandlers,
+    HasSelectionHandlers {
 
   /**
    * Manages the lifecycle of Rhizosphere renderings. Each datapoint of the
@@ -215,7 +227,7 @@ public class Rhizosphere<T> extends Composite
    * datapoint into a JavaScriptObject (suitable to be passed to underlying
    * Rhizosphere js library).
    */
-  private Collection<JavaScriptObject> models;
+  private ModelStore models;
 
   /**
    * The bridge to convert models from the format externally provided (POJOs,
@@ -241,16 +253,54 @@ public class Rhizosphere<T> extends Composite
    */
   private boolean configuredCustomMetaModel = false;
 
+  /**
+   * Whether the attribute projection (if requested) has already been applied
+   * to the model bridge or not.
+   */
+  private boolean configuredProjection = false;
+
   /**
    * The visualization renderer.
    */
   private RhizosphereRenderer<T> renderer;
 
+  /**
+   * The native renderer wrapping the visualization renderer, available once
+   * the visualization has been deployed.
+   */
+  private NativeRenderer<T> nativeRenderer;
+
   /**
    * The visualization bootstrapper.
    */
   private Bootstrap bootstrap;
   
+  /**
+   * The incremental deployer, if the visualization is being deployed
+   * incrementally.
+   */
+  private IncrementalDeployer deployer;
+
+  /**
+   * Whether the deployment of the visualization has been started.
+   */
+  private boolean deployStarted = false;
+
+  /**
+   * Whether the visualization has been disposed.
+   */
+  private boolean disposed = false;
+
+  /**
+   * The loader feeding the visualization from a paged model source, if any.
+   */
+  private ModelSourceLoader<T> sourceLoader;
+
+  /**
+   * The loader parsing a JSON payload off the UI thread, if any.
+   */
+  private WorkerModelLoader<T> workerLoader;
+
   /**
    * The visualization user agent.
    */
@@ -271,7 +321,7 @@ public class Rhizosphere<T> extends Composite
    */
   public Rhizosphere(final RhizosphereOptions<T> options) {
     this.options = options;
-    models = new ArrayList<JavaScriptObject>();
+    models = ModelStore.create();
 
     RhizoPanel p = new RhizoPanel();
     initWidget(p);
@@ -292,7 +342,9 @@ public class Rhizosphere<T> extends Composite
    *
    * After calling this method, an automatically built
    * {@link RhizosphereMetaModel} will be available for customization via
-   * {@link Rhizosphere#getMetaModel()}.
+   * {@link Rhizosphere#getMetaModel()}. If attribute projection is enabled
+   * (see {@link RhizosphereOptions#setAttributeProjection(boolean)}), the
+   * attributes left out of the final metamodel will not be converted.
    *
    * @param mapping A class capable of converting custom POJOs to objects that
    *     Rhizosphere knows how to manage. You can create mapping instances by
@@ -337,7 +389,11 @@ public class Rhizosphere<T> extends Composite
                          final JsoBuilder jsoBuilder,
                          final AttributeBuilder attributeBuilder) {
     modelBridge = mapping.newModelBridge(jsoBuilder);
+    configureColumnStore();
     metaModel = mapping.newMetaModelFactory(attributeBuilder).newMetaModel();
+    if (modelBridge.getColumnStore() != null) {
+      modelBridge.getColumnStore().seed(metaModel);
+    }
   }
 
   /**
@@ -385,10 +441,17 @@ public class Rhizosphere<T> extends Composite
    * If custom POJOs are used, Rhizosphere must first be prepared to handle
    * them via {@link #prepareFor(RhizosphereMapping)}.
    *
+   * Adding a model is idempotent: if a model with the same id (see
+   * {@link RhizosphereModelAttribute#modelId()}, or the {@code id} property
+   * of JavaScriptObject and JSON models) was already added, that model is
+   * updated in place instead, as {@link #updateModel(Object)} would do.
+   * There is no need to deduplicate models before adding them.
+   *
    * @param model The model, i.e. a datapoint of the dataset you want to
    *     visualize, to add.
-   * @return An opaque reference to the model just added, that can be later
-   *     used for programmatic actions that address specific models.
+   * @return An opaque reference to the model just added (or updated), that
+   *     can be later used for programmatic actions that address specific
+   *     models.
    * @throws com.google.gwt.json.client.JSONException If the model type is a
    *     String and it cannot be successfully converted into a JSON object.
    * @throws RhizosphereException If {@code prepareFor} was not called with the
@@ -397,15 +460,558 @@ public class Rhizosphere<T> extends Composite
   public RhizosphereModelRef addModel(final T model) {
     ModelBridge<T> factory = getModelBridge(model);
     assert factory != null;
+    configureCustomMetaModel(model);
+    configureProjection();
+
+    ModelUpdate update = factory.bridgeInto(model, models);
+    if (update == null) {
+      return RhizosphereModelRef.asModelRef(models.get(models.size() - 1));
+    }
+    JsArray<ModelUpdate> updates = JavaScriptObject.createArray().cast();
+    updates.push(update);
+    publishUpdates(updates);
+    return RhizosphereModelRef.asModelRef(update.getModel());
+  }
+
+  /**
+   * Adds all the specified models to the visualization. Equivalent to calling
+   * {@link #addModel(Object)} for each model, but without collecting model
+   * references. Use {@link #addModel(Object)} if you need to address specific
+   * models later on. Models whose id was already added are updated in place.
+   *
+   * @param models The models to add.
+   * @throws com.google.gwt.json.client.JSONException If the model type is a
+   *     String and it cannot be successfully converted into a JSON object.
+   * @throws RhizosphereException If {@code prepareFor} was not called with the
+   *     correct class before passing custom POJOs to this method.
+   */
+  public void addModels(final Iterable<T> models) {
+    bridgeModels(models);
+  }
+
+  /**
+   * Adds all the models contained in a javascript array to the visualization.
+   * Only applicable when models are defined as JavaScriptObjects.
+   * <p>
+   * Models are bridged and stored in a single native pass, which makes this
+   * the fastest way to feed large datasets to Rhizosphere. Models whose id was
+   * already added are updated in place.
+   *
+   * @param models The models to add.
+   */
+  public void addModels(final JsArray<? extends JavaScriptObject> models) {
+    bridgeModels(models);
+  }
+
+  /**
+   * Adds all the models contained in a JSON array payload to the
+   * visualization. Only applicable when models are defined as Strings
+   * representing JSON-encoded objects.
+   * <p>
+   * The whole payload is parsed at once, using the browser native JSON
+   * parser when available, and the parsed objects are stored in a single
+   * native pass. This is much faster than splitting the payload into one
+   * string per model and passing them to {@link #addModels(Iterable)}. Models
+   * whose id was already added are updated in place.
+   *
+   * @param payload A JSON array of JSON objects.
+   * @throws com.google.gwt.json.client.JSONException If the payload is not a
+   *     JSON array, or any of its elements is not a JSON object.
+   * @throws RhizosphereException If the visualization models are not defined
+   *     as JSON strings.
+   */
+  public void addModelsFromJson(final String payload) {
+    bridgePayload(payload);
+  }
+
+  /**
+   * Adds the specified models to the visualization. Differently from
+   * {@link #addModels(Iterable)}, this method can also be used after the
+   * visualization has been deployed: only the renderings for the new models
+   * are created, the currently applied filters are evaluated against them and
+   * the current layout is refreshed to make room for them. Models appended
+   * while the visualization is being deployed incrementally join the ongoing
+   * deployment. Models whose id is already part of the visualization are
+   * updated in place rather than added again.
+   *
+   * @param models The models to add.
+   * @throws com.google.gwt.json.client.JSONException If the model type is a
+   *     String and it cannot be successfully converted into a JSON object.
+   * @throws RhizosphereException If {@code prepareFor} was not called with the
+   *     correct class before passing custom POJOs to this method, or the
+   *     models could not be added to the visualization (for example because
+   *     some of them lack an id, or their renderings could not be created).
+   */
+  public void appendModels(final Iterable<T> models) {
+    if (!bootstrap.isDeployed() || isDeploying()) {
+      addModels(models);
+      deployIfAttached();
+      return;
+    }
+    int from = this.models.size();
+    bridgeModels(models);
+    appendToDeployed(this.models.tail(from));
+  }
+
+  /**
+   * As {@link #appendModels(Iterable)}, for models contained in a javascript
+   * array. Only applicable when models are defined as JavaScriptObjects.
+   *
+   * @param models The models to add.
+   * @throws RhizosphereException If the models could not be added to the
+   *     visualization (for example because some of them lack an id, or their
+   *     renderings could not be created).
+   */
+  public void appendModels(final JsArray<? extends JavaScriptObject> models) {
+    if (!bootstrap.isDeployed() || isDeploying()) {
+      addModels(models);
+      deployIfAttached();
+      return;
+    }
+    int from = this.models.size();
+    bridgeModels(models);
+    appendToDeployed(this.models.tail(from));
+  }
+
+  /**
+   * As {@link #appendModels(Iterable)}, for models contained in a JSON array
+   * payload (see {@link #addModelsFromJson(String)}).
+   *
+   * @param payload A JSON array of JSON objects.
+   * @throws com.google.gwt.json.client.JSONException If the payload is not a
+   *     JSON array, or any of its elements is not a JSON object.
+   * @throws RhizosphereException If the visualization models are not defined
+   *     as JSON strings, or the models could not be added to the
+   *     visualization (for example because some of them lack an id, or their
+   *     renderings could not be created).
+   */
+  public void appendModelsFromJson(final String payload) {
+    if (!bootstrap.isDeployed() || isDeploying()) {
+      addModelsFromJson(payload);
+      deployIfAttached();
+      return;
+    }
+    int from = this.models.size();
+    bridgePayload(payload);
+    appendToDeployed(this.models.tail(from));
+  }
+
+  /**
+   * Loads the models to visualize from a paged source. Pages are fetched one
+   * at a time, and each page is bridged and added to the visualization as
+   * soon as it arrives (see {@link #appendModels(Iterable)}). The next page is
+   * requested only once the visualization has caught up with the previous
+   * one, so that a slow rendering does not cause fetched pages to pile up.
+   * <p>
+   * Starting a new load cancels any load already in progress.
+   *
+   * @param source The source to fetch models from.
+   * @param pageSize The number of models to fetch per page.
+   * @param cb An optional callback invoked once the source is exhausted, or
+   *     with the details of the failure if loading fails.
+   */
+  public void loadFrom(final RhizosphereModelSource<T> source,
+                       final int pageSize,
+                       final RhizosphereCallback cb) {
+    if (pageSize <= 0) {
+      throw new RhizosphereException("Page size must be positive.");
+    }
+    if (sourceLoader != null) {
+      sourceLoader.cancel();
+    }
+    sourceLoader = new ModelSourceLoader<T>(this, source, pageSize, cb);
+    sourceLoader.start();
+  }
+
+  /**
+   * Loads the models to visualize from a JSON array payload, parsing it off the
+   * UI thread. Only applicable when models are defined as Strings
+   * representing JSON-encoded objects.
+   * <p>
+   * The payload is parsed in a Web Worker, which also validates the models
+   * against the visualization metamodel (see
+   * {@link #setMetaModel(RhizosphereMetaModel)}) and prepares their numeric,
+   * boolean and string attributes as typed array columns. When columnar mode
+   * is enabled (see {@link RhizosphereOptions#setColumnarModels(boolean)}),
+   * the columns are adopted as they are by the model store. Range attributes
+   * without an explicit range and category attributes without explicit
+   * categories receive them from the parsed values. The parsed models are
+   * then added to the visualization as {@link #appendModelsFromJson(String)}
+   * would do. On browsers that do not support Web Workers, the payload is
+   * parsed on the UI thread instead.
+   * <p>
+   * Starting a new load cancels any load already in progress.
+   *
+   * @param payload A JSON array of JSON objects.
+   * @param cb An optional callback invoked once the models have been added
+   *     to the visualization, or with the details of the failure if parsing
+   *     or validation fails.
+   */
+  public void loadFromJson(final String payload, final RhizosphereCallback cb) {
+    startWorkerLoader(cb).start(payload, metaModel);
+  }
+
+  /**
+   * As {@link #loadFromJson(String, RhizosphereCallback)}, for a JSON array
+   * payload to fetch from the given URL. When Web Workers are supported, the
+   * payload is fetched by the worker itself and never transits through the UI
+   * thread. The URL is subject to the same origin policy.
+   *
+   * @param url The URL of a JSON array of JSON objects.
+   * @param cb An optional callback invoked once the models have been added
+   *     to the visualization, or with the details of the failure if fetching,
+   *     parsing or validation fails.
+   */
+  public void loadFromJsonUrl(final String url, final RhizosphereCallback cb) {
+    startWorkerLoader(cb).startFromUrl(url, metaModel);
+  }
+
+  private WorkerModelLoader<T> startWorkerLoader(final RhizosphereCallback cb) {
+    getJSONStringModelBridge();
+    if (workerLoader != null) {
+      workerLoader.cancel();
+    }
+    workerLoader = new WorkerModelLoader<T>(this, cb);
+    return workerLoader;
+  }
+
+  /**
+   * As {@link #appendModelsFromJson(String)}, for models encoded in the
+   * compact columnar binary format produced by
+   * {@link com.rhizospherejs.gwt.server.BinaryModelEncoder}. Only applicable
+   * when models are defined as Strings representing JSON-encoded objects.
+   * <p>
+   * Decoding maps the payload columns in place, without parsing them. When
+   * columnar mode is enabled (see
+   * {@link RhizosphereOptions#setColumnarModels(boolean)}), the columns are
+   * adopted as they are by the model store. If no metamodel has been set yet,
+   * the one described by the payload header is used.
+   *
+   * @param buffer An {@code ArrayBuffer} holding the payload, for example
+   *     the response of an {@code XMLHttpRequest} whose response type is
+   *     'arraybuffer'. It should not be modified afterwards.
+   * @throws RhizosphereException If the buffer does not contain a valid
+   *     payload, the visualization models are not defined as JSON strings,
+   *     or the models could not be added to the visualization (for example
+   *     because some of them lack an id, or their renderings could not be
+   *     created).
+   */
+  public void appendModelsFromBinary(final JavaScriptObject buffer) {
+    getJSONStringModelBridge();
+    if (!BinaryModelDecoder.isSupported()) {
+      throw new RhizosphereException(
+          "Binary payloads are not supported by this browser.");
+    }
+    ParsedPayload parsed = BinaryModelDecoder.decode(buffer);
+    if (metaModel == null) {
+      metaModel = parsed.getMetaModel();
+    }
+    appendParsedModels(parsed);
+  }
+
+  /**
+   * Adds the models of a payload parsed off the UI thread to the
+   * visualization, as {@link #appendModelsFromJson(String)} does.
+   */
+  void appendParsedModels(final ParsedPayload parsed) {
+    JSONStringModelBridge bridge = getJSONStringModelBridge();
+    if (metaModel != null) {
+      parsed.describe(metaModel);
+    }
+    boolean deployed = bootstrap.isDeployed() && !isDeploying();
+    int from = this.models.size();
+    JsArray<ModelUpdate> updates = JavaScriptObject.createArray().cast();
+    bridge.bridgeParsed(parsed, this.models, updates);
+    publishUpdates(updates);
+    if (deployed) {
+      appendToDeployed(this.models.tail(from));
+    } else {
+      deployIfAttached();
+    }
+  }
+
+  /**
+   * Removes the specified models from the visualization. If the visualization
+   * has already been deployed, only the renderings of the removed models are
+   * destroyed and the current layout is refreshed to reclaim the space they
+   * occupied.
+   *
+   * @param modelRefs References to the models to remove, as returned by
+   *     {@link #addModel(Object)} or delivered by visualization events.
+   * @return The number of models that were removed.
+   */
+  public int removeModels(final Collection<RhizosphereModelRef> modelRefs) {
+    if (modelRefs == null || modelRefs.isEmpty()) {
+      return 0;
+    }
+    if (isDeploying()) {
+      throw new RhizosphereException(
+          "Cannot remove models while the visualization is being deployed.");
+    }
+    JsArray<RhizosphereModelRef> refs = JavaScriptObject.createArray().cast();
+    JsArray<RhizosphereModelRef> stored = JavaScriptObject.createArray().cast();
+    // The same reference can be listed more than once, but must be released
+    // only once.
+    Set<RhizosphereModelRef> seen = new HashSet<RhizosphereModelRef>();
+    for (RhizosphereModelRef modelRef : modelRefs) {
+      if (!seen.add(modelRef)) {
+        continue;
+      }
+      refs.push(modelRef);
+      if (models.findById(modelRef) == modelRef) {
+        stored.push(modelRef);
+      }
+    }
+    int numRemoved = models.removeAll(refs);
+    releaseModels(stored);
+    if (bootstrap.isDeployed()) {
+      userAgent.removeModels(refs);
+      for (int i = 0; i < refs.length(); i++) {
+        nativeRenderer.releaseRendering(refs.get(i));
+      }
+    }
+    return numRemoved;
+  }
+
+  /**
+   * Pushes the changes that occurred to a model into the visualization. The
+   * model is converted again and compared, attribute by attribute, with the
+   * representation Rhizosphere already holds for it. If the visualization has
+   * already been deployed, only the rendering of the model is refreshed, and
+   * only if some attribute actually changed. Filters and layout are
+   * re-evaluated only if they depend on one of the changed attributes.
+   * <p>
+   * The model is matched against the ones previously added to the
+   * visualization via its id, if it defines one (see
+   * {@link RhizosphereModelAttribute#modelId()}), or by identity otherwise.
+   *
+   * @param model The model that changed.
+   * @return Whether any attribute of the model changed.
+   * @throws RhizosphereException If the model was never added to the
+   *     visualization.
+   */
+  public boolean updateModel(final T model) {
+    ModelUpdate update = getModelBridge(model).rebridge(model, models);
+    if (update == null) {
+      throw new RhizosphereException(
+          "Cannot update a model that is not part of the visualization.");
+    }
+    if (!update.hasChanges()) {
+      return false;
+    }
+    if (bootstrap.isDeployed()) {
+      userAgent.updateModel(update);
+    }
+    return true;
+  }
+
+  /**
+   * Bridges all the given models into the model store. Models whose id is
+   * already in the store are merged into their existing counterpart.
+   */
+  private void bridgeModels(final Iterable<T> models) {
+    Iterator<T> it = models.iterator();
+    if (!it.hasNext()) {
+      return;
+    }
+    T first = it.next();
+    ModelBridge<T> factory = getModelBridge(first);
+    configureCustomMetaModel(first);
+    configureProjection();
+    JsArray<ModelUpdate> updates = JavaScriptObject.createArray().cast();
+    // Iterate only once, since the iterable may not support being traversed
+    // again (or may yield different models when it is).
+    T model = first;
+    while (true) {
+      ModelUpdate update = factory.bridgeInto(model, this.models);
+      if (update != null) {
+        updates.push(update);
+      }
+      if (!it.hasNext()) {
+        break;
+      }
+      model = it.next();
+    }
+    publishUpdates(updates);
+  }
+
+  /**
+   * Bridges all the models contained in a javascript array into the model
+   * store. Models whose id is already in the store are merged into their
+   * existing counterpart.
+   */
+  @SuppressWarnings("unchecked")
+  private void bridgeModels(final JsArray<? extends JavaScriptObject> models) {
+    if (models.length() == 0) {
+      return;
+    }
+    T model = (T) (Object) models.get(0);
+    JsArray<ModelUpdate> updates = JavaScriptObject.createArray().cast();
+    getModelBridge(model).bridgeAll(models, this.models, updates);
+    publishUpdates(updates);
+  }
+
+  /**
+   * Parses a JSON array payload and bridges all the objects it contains into
+   * the model store.
+   */
+  private void bridgePayload(final String payload) {
+    JsArray<ModelUpdate> updates = JavaScriptObject.createArray().cast();
+    getJSONStringModelBridge().bridgePayload(payload, this.models, updates);
+    publishUpdates(updates);
+  }
+
+  /**
+   * Returns the model bridge for JSON string models, creating it if needed.
+   *
+   * @throws RhizosphereException If the visualization models are not defined
+   *     as JSON strings.
+   */
+  @SuppressWarnings("unchecked")
+  private JSONStringModelBridge getJSONStringModelBridge() {
+    ModelBridge<T> factory = getModelBridge((T) (Object) "");
+    if (!(factory instanceof JSONStringModelBridge)) {
+      throw new RhizosphereException(
+          "JSON payloads can only be added to visualizations of JSON string models.");
+    }
+    return (JSONStringModelBridge) factory;
+  }
+
+  /**
+   * Pushes the changes of models that were added again with an already known
+   * id to the visualization, if it has been deployed.
+   */
+  private void publishUpdates(final JsArray<ModelUpdate> updates) {
+    if (updates.length() == 0 || !bootstrap.isDeployed()) {
+      return;
+    }
+    JsArray<ModelUpdate> changed = JavaScriptObject.createArray().cast();
+    for (int i = 0; i < updates.length(); i++) {
+      if (updates.get(i).hasChanges()) {
+        changed.push(updates.get(i));
+      }
+    }
+    if (changed.length() > 0) {
+      userAgent.updateModels(changed);
+    }
+  }
+
+  /**
+   * Pushes a set of freshly bridged models, already part of the model store,
+   * to the deployed visualization.
+   */
+  private void appendToDeployed(final ModelStore appended) {
+    if (appended.isEmpty()) {
+      return;
+    }
+    describeColumns();
+    if (!userAgent.addModels(appended)) {
+      models.removeAll(appended.asJsArray());
+      releaseModels(appended.asJsArray());
+      throw new RhizosphereException(
+          "Unable to add models to the visualization. Verify your models ids.");
+    }
+  }
+
+  /**
+   * Deploys the visualization, if the widget is already attached to the DOM
+   * and models are available. Otherwise deployment is deferred to
+   * {@link #onLoad()}.
+   */
+  private void deployIfAttached() {
+    if (isDeploying()) {
+      // The new models join the ongoing deployment.
+      describeColumns();
+      return;
+    }
+    if (isAttached() && !disposed && !bootstrap.isDeployed()
+        && !models.isEmpty()) {
+      describeColumns();
+      nativeRenderer = createNativeRenderer();
+      deployStarted = true;
+      int firstPaintSize = options != null ? options.getFirstPaintBatchSize() : 0;
+      if (firstPaintSize > 0 && firstPaintSize < models.size()) {
+        deployer = new IncrementalDeployer(
+            bootstrap, models, this, options.getDeployTimeSlice(), firstPaintSize);
+        deployer.start(metaModel, nativeRenderer);
+      } else if (options != null && options.isIncrementalDeploy()) {
+        deployer = new IncrementalDeployer(
+            bootstrap, models, this, options.getDeployTimeSlice(), 0);
+        deployer.start(metaModel, nativeRenderer);
+      } else {
+        bootstrap.deployExplicit(models, metaModel, nativeRenderer);
+      }
+      if (sourceLoader != null) {
+        sourceLoader.onDeployStateChanged();
+      }
+    }
+  }
+
+  /**
+   * Exposes the dictionaries of the encoded model attributes, and the
+   * categories derived from them, to the metamodel (see
+   * {@link ColumnStore#describe(RhizosphereMetaModel)}). Called whenever
+   * models are deployed, so that columns created by the latest models are
+   * described as well.
+   */
+  private void describeColumns() {
+    if (metaModel != null && modelBridge != null
+        && modelBridge.getColumnStore() != null) {
+      modelBridge.getColumnStore().describe(metaModel);
+    }
+  }
+
+  /**
+   * Returns whether the visualization deployment has started, regardless of
+   * whether it is complete, in progress or failed.
+   */
+  boolean isDeployStarted() {
+    return deployStarted || bootstrap.isDeployed();
+  }
+
+  /**
+   * Returns the number of models waiting to be deployed by an incremental
+   * deployment in progress.
+   */
+  int getDeployBacklog() {
+    return isDeploying() ? models.size() - deployer.getNumDeployed() : 0;
+  }
+
+  /**
+   * Returns whether an incremental deployment is in progress.
+   */
+  private boolean isDeploying() {
+    return deployer != null && !deployer.isDone();
+  }
+
+  /**
+   * Merges custom metamodel attributes defined by the model (if any) into the
+   * visualization metamodel. Only the first model is inspected.
+   */
+  private void configureCustomMetaModel(final T model) {
     if ((model instanceof CustomRhizosphereMetaModel) && !configuredCustomMetaModel) {
       assert metaModel != null;
       ((CustomRhizosphereMetaModel) model).setCustomRhizosphereMetaModelAttributes(metaModel);
       configuredCustomMetaModel = true;
     }
+  }
 
-    JavaScriptObject jso = factory.bridge(model);
-    models.add(jso);
-    return RhizosphereModelRef.asModelRef(jso);
+  /**
+   * Restricts the attributes the model bridge converts to the ones used by the
+   * visualization metamodel, if requested via
+   * {@link RhizosphereOptions#setAttributeProjection(boolean)} and supported
+   * by the bridge. The projection is computed once, when the first model is
+   * added, since the metamodel is complete by then.
+   */
+  private void configureProjection() {
+    if (configuredProjection) {
+      return;
+    }
+    configuredProjection = true;
+    if (options != null && options.isAttributeProjection()
+        && modelBridge.supportsProjection()) {
+      modelBridge.setProjection(options.getProjectedAttributes(metaModel));
+    }
   }
 
   /**
@@ -419,10 +1025,23 @@ public class Rhizosphere<T> extends Composite
         throw new RhizosphereException("No Rhizosphere mapping registered for "
             + model.getClass());
       }
+      configureColumnStore();
     }
     return modelBridge;
   }
 
+  /**
+   * Enables columnar mode on the model bridge, if requested via
+   * {@link RhizosphereOptions#setColumnarModels(boolean)} and supported by
+   * both the bridge and the browser.
+   */
+  private void configureColumnStore() {
+    if (options != null && options.isColumnarModels()
+        && modelBridge.supportsColumnStore() && ColumnStore.isSupported()) {
+      modelBridge.setColumnStore(ColumnStore.create());
+    }
+  }
+
   /**
    * Instantiate a built-in model bridge for basic model types
    * (JavaScriptObject, JSONObject, String).
@@ -490,6 +1109,16 @@ public class Rhizosphere<T> extends Composite
     return addHandler(handler, ReadyEvent.getType());
   }
 
+  /**
+   * Register a handler to be notified about the progress of the visualization
+   * deployment, when models are deployed incrementally.
+   * @param handler The handler to notify.
+   */
+  @Override
+  public HandlerRegistration addProgressHandler(ProgressEvent.Handler handler) {
+    return addHandler(handler, ProgressEvent.getType());
+  }
+
   /**
    * Register a handler to be notified whenever the visualization filtering
    * criteria change.
@@ -728,15 +1357,170 @@ public class Rhizosphere<T> extends Composite
     return modelBridge.extractModel(modelRef);
   }
 
+  /**
+   * Disposes the visualization, deterministically releasing all the resources
+   * it holds: the native Rhizosphere project and all its renderings, the
+   * widgets produced by the visualization renderer, the native listeners
+   * bound to this widget and the bridged models. Any deployment or model
+   * loading in progress is stopped.
+   * <p>
+   * The visualization cannot be used anymore after this call. Disposal can
+   * also be triggered automatically when the widget is detached from the
+   * document (see {@link RhizosphereOptions#setDisposeOnUnload(boolean)}).
+   *
+   * @return The number of objects released, including models, renderings,
+   *     widgets and native listeners. Subsequent calls return 0.
+   */
+  public int dispose() {
+    if (disposed) {
+      return 0;
+    }
+    disposed = true;
+    if (sourceLoader != null) {
+      sourceLoader.cancel();
+      sourceLoader = null;
+    }
+    if (workerLoader != null) {
+      workerLoader.cancel();
+      workerLoader = null;
+    }
+    if (deployer != null) {
+      deployer.cancel();
+      deployer = null;
+    }
+
+    int released = userAgent.dispose();
+    released += bootstrap.destroy();
+    if (nativeRenderer != null) {
+      released += nativeRenderer.dispose();
+      nativeRenderer = null;
+    }
+
+    // Renderings detach their widgets when destroyed. Clear whatever is left.
+    RhizoPanel panel = (RhizoPanel) widgetBridge;
+    for (Iterator<Widget> it = panel.iterator(); it.hasNext();) {
+      it.next();
+      it.remove();
+      released++;
+    }
+
+    released += models.size();
+    JsArray<JavaScriptObject> disposedModels = models.asJsArray();
+    models = ModelStore.create();
+    releaseModels(disposedModels);
+    if (modelBridge != null) {
+      modelBridge.setColumnStore(null);
+    }
+    return released;
+  }
+
+  /**
+   * Releases the bridge resources associated to models that have been
+   * removed from the model store. Once the store is empty, the bridge
+   * registry is cleared, so that it does not keep growing with the ids of
+   * models long gone.
+   */
+  private void releaseModels(JsArray<? extends JavaScriptObject> removed) {
+    if (modelBridge == null) {
+      return;
+    }
+    modelBridge.releaseAll(removed);
+    if (models.isEmpty()) {
+      modelBridge.getRegistry().clear();
+    }
+  }
+
+  /**
+   * Returns whether the visualization has been disposed.
+   */
+  public boolean isDisposed() {
+    return disposed;
+  }
+
+  /**
+   * Returns whether the visualization is still in the state it was created
+   * in: not deployed, and with no models, mapping, metamodel or renderer
+   * defined on it.
+   */
+  boolean isPristine() {
+    return !disposed && !bootstrap.isDeployed() && !isDeploying()
+        && sourceLoader == null && workerLoader == null && models.isEmpty()
+        && modelBridge == null && metaModel == null && renderer == null;
+  }
+
+  /**
+   * Hibernates the visualization, for example while it sits in a hidden tab.
+   * The position, visibility and expansion status of every rendering is
+   * recorded, then all renderings and the widgets produced by the
+   * visualization renderer are released, and animations are suspended.
+   * Models, filters, the selection and the current layout are preserved.
+   * <p>
+   * Hibernation can also be triggered automatically when the widget is
+   * detached from the document (see
+   * {@link RhizosphereOptions#setHibernateOnUnload(boolean)}). It has no
+   * effect on visualizations that are not fully deployed yet.
+   *
+   * @return The number of renderings released.
+   */
+  public int hibernate() {
+    if (disposed || isDeploying()
+        || (sourceLoader != null && !sourceLoader.isDone())
+        || (workerLoader != null && !workerLoader.isDone())) {
+      return 0;
+    }
+    int released = bootstrap.hibernate();
+    if (released > 0 && nativeRenderer != null) {
+      nativeRenderer.releaseAllRenderings();
+    }
+    return released;
+  }
+
+  /**
+   * Restores a visualization previously hibernated via {@link #hibernate()}.
+   * Only the renderings that were visible are rebuilt, in the position they
+   * had, without bridging the models again. The renderings of filtered
+   * models are rebuilt only if and when they become visible.
+   *
+   * @return The number of renderings rebuilt.
+   */
+  public int restore() {
+    if (disposed) {
+      return 0;
+    }
+    return bootstrap.restore();
+  }
+
+  /**
+   * Returns whether the visualization is currently hibernated.
+   */
+  public boolean isHibernated() {
+    return !disposed && bootstrap.isHibernated();
+  }
+
+  @Override
+  protected void onUnload() {
+    super.onUnload();
+    if (options == null) {
+      return;
+    }
+    if (options.isDisposeOnUnload()) {
+      dispose();
+    } else if (options.isHibernateOnUnload()) {
+      hibernate();
+    }
+  }
+
   @Override
   protected void onLoad() {
     if (bootstrap.isDeployed()) {
       // Explicit positioning may get lost on reparenting, e.g. if the
       // widget was located inside an AbsolutePanel.
       getElement().getStyle().setPosition(Position.RELATIVE);
-    } else if (!models.isEmpty()) {
-      NativeRenderer<T> nativeRenderer = createNativeRenderer();
-      bootstrap.deployExplicit(models, metaModel, nativeRenderer);      
+      if (bootstrap.isHibernated()) {
+        restore();
+      }
+    } else {
+      deployIfAttached();
     }
     super.onLoad();
   }
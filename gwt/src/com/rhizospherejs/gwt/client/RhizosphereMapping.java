@@ -28,7 +28,8 @@ import com.rhizospherejs.gwt.client.meta.MetaModelFactory;
  * Exposes factory method to create both model and metamodel builders. Model
  * builders convert between {@link RhizosphereModel} instances and suitably
  * configured JavaScriptObjects. Metamodel builders assemble metamodels from
- * {@link RhizosphereModelAttribute} annotations.
+ * {@link RhizosphereModelAttribute} annotations. Attribute accessors give
+ * typed access to the POJO attributes from Java code.
  * 
  * Instances of this class are generated via the
  * {@link com.rhizospherejs.gwt.rebind.MappingWriter} code generator.
@@ -40,4 +41,10 @@ public interface RhizosphereMapping<T> {
   ModelBridge<T> newModelBridge(JsoBuilder jsoBuilder);
   
   MetaModelFactory newMetaModelFactory(AttributeBuilder attributeBuilder);
+
+  /**
+   * Creates typed accessors to the attributes of the mapped POJOs, for data
+   * operations performed in Java on the POJOs themselves.
+   */
+  AttributeAccessors<T> newAttributeAccessors();
 }
@@ -255,6 +255,36 @@ public final class RhizosphereMetaModel extends JavaScriptObject {
       this['isHierarchy'] = hierarchy;
     }-*/;
 
+    /**
+     * Declares that the attribute values are the names of the constants of a
+     * Java enum, and sets them as the attribute categories. The constants must
+     * be given in ordinal order. When models are stored in columnar form (see
+     * {@link RhizosphereOptions#setColumnarModels(boolean)}), each value is
+     * encoded with the ordinal of its constant.
+     * <p>
+     * Invoked by the generated metamodel factories for enum-typed attributes,
+     * before any attribute descriptor is applied, so descriptors can still
+     * override the categories shown to the user.
+     *
+     * @param constants The names of the enum constants, in ordinal order.
+     * @return the Attribute itself, for chaining.
+     */
+    public Attribute setEnumConstants(final String[] constants) {
+      JsArrayString jsArray = JavaScriptObject.createArray().cast();
+      for (String constant : constants) {
+        jsArray.push(constant);
+      }
+      nativeSetEnumConstants(jsArray);
+      return this;
+    }
+
+    private native void nativeSetEnumConstants(JsArrayString constants) /*-{
+      this['enumConstants'] = constants;
+      this['categories'] = constants.slice();
+      this['multiple'] = false;
+      this['isHierarchy'] = false;
+    }-*/;
+
     /**
      * Marks this attribute as establishing a link between visualization models.
      * If set, the value this attribute will have must be the unique ID of the
@@ -377,4 +407,17 @@ public final class RhizosphereMetaModel extends JavaScriptObject {
   private final native void nativeSetAttribute(String name, Attribute attr) /*-{
     this[name] = attr;
   }-*/;
+
+  /**
+   * Returns the names of the attributes defined on the metamodel.
+   */
+  public final native JsArrayString getAttributeNames() /*-{
+    var names = [];
+    for (var name in this) {
+      if (this.hasOwnProperty(name) && name != '__gwt_ObjectId') {
+        names.push(name);
+      }
+    }
+    return names;
+  }-*/;
 }
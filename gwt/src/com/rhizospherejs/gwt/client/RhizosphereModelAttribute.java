@@ -189,4 +189,20 @@ public @interface RhizosphereModelAttribute {
    * time.
    */
   boolean modelId() default false;
+
+  /**
+   * Defines whether this attribute should be computed lazily. The getter of a
+   * lazy attribute is not invoked when the POJO is converted into a
+   * Rhizosphere model, but only the first time the Rhizosphere library reads
+   * the attribute (for example, when a filter on it is first used). The value
+   * is then retained on the Rhizosphere model, so the getter is invoked at
+   * most once per conversion.
+   * <p>
+   * Use lazy attributes for getters that are expensive to compute and not
+   * always needed by the visualization. Lazy attributes rely on ES5 property
+   * accessors: on browsers that do not support them, they are computed
+   * eagerly as any other attribute. The attribute identifying the model (see
+   * {@link #modelId()}) cannot be lazy.
+   */
+  boolean lazy() default false;
 }
@@ -0,0 +1,45 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import java.util.List;
+
+/**
+ * A paged source of Rhizosphere models, such as a backend service accessed via
+ * GWT-RPC or {@code RequestBuilder}. Rhizosphere can consume model sources
+ * directly (see
+ * {@link Rhizosphere#loadFrom(RhizosphereModelSource, int, RhizosphereCallback)}),
+ * bridging and deploying each page as soon as it arrives.
+ *
+ * @param <T> The type that describes the datapoints of your dataset.
+ */
+public interface RhizosphereModelSource<T> {
+
+  /**
+   * Asynchronously fetches a page of models. Rhizosphere never has more than
+   * one page request outstanding on a given source.
+   *
+   * @param offset The position of the first model to fetch.
+   * @param limit The maximum number of models to fetch.
+   * @param callback The callback to notify with the fetched models. A page
+   *     containing less than {@code limit} models signals the end of the
+   *     source.
+   */
+  void fetchPage(int offset, int limit, AsyncCallback<List<T>> callback);
+}
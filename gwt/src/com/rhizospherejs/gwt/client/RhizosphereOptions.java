@@ -17,6 +17,7 @@
 package com.rhizospherejs.gwt.client;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
 
 import com.rhizospherejs.gwt.client.renderer.NativeRenderer;
 
@@ -89,6 +90,87 @@ public class RhizosphereOptions<T> extends JavaScriptObject {
     return JavaScriptObject.createObject().cast();
   }
 
+  /**
+   * Creates a copy of these options, that can be given to a different
+   * visualization. If a renderer was set via
+   * {@link #setRenderer(RhizosphereRenderer)}, the copy is bound to a new
+   * native renderer wrapping the same {@link RhizosphereRenderer}.
+   * <p>
+   * Metamodels set via {@link #setMetaModel(RhizosphereMetaModel)} and
+   * {@link #setMetaModelFragment(RhizosphereMetaModel)} are deep copied,
+   * attribute by attribute, since deploying a visualization merges the
+   * fragment into the metamodel and replaces attribute kinds in place.
+   *
+   * @return The options copy.
+   */
+  public final RhizosphereOptions<T> copy() {
+    NativeRenderer<T> nr = getNativeRenderer();
+    RhizosphereOptions<T> copy = nativeCopy(nr != null);
+    if (nr != null) {
+      copy.setRenderer(nr.getRenderer());
+    }
+    return copy;
+  }
+
+  private native RhizosphereOptions<T> nativeCopy(boolean skipRenderer) /*-{
+    var copy = {};
+    for (var key in this) {
+      if (!this.hasOwnProperty(key) || key == '__gwt_ObjectId' ||
+          key == '__rhizosphere_nativeRenderer' ||
+          (skipRenderer && key == 'renderer')) {
+        continue;
+      }
+      copy[key] = this[key];
+    }
+    // Plain objects and arrays are copied recursively. Anything else (kind
+    // factories, for instance) is shared. Objects may come from a different
+    // frame, hence no constructor comparisons.
+    var toString = Object.prototype.toString;
+    var isPlainObject = function(value) {
+      if (!value || toString.call(value) != '[object Object]') {
+        return false;
+      }
+      if (typeof(Object.getPrototypeOf) != 'function') {
+        return value.constructor === Object;
+      }
+      var proto = Object.getPrototypeOf(value);
+      return proto === null || Object.getPrototypeOf(proto) === null;
+    };
+    var deepCopy = function(value) {
+      var valueCopy;
+      if (toString.call(value) == '[object Array]') {
+        valueCopy = [];
+        for (var i = 0; i < value.length; i++) {
+          valueCopy.push(deepCopy(value[i]));
+        }
+        return valueCopy;
+      }
+      if (isPlainObject(value)) {
+        valueCopy = {};
+        for (var property in value) {
+          if (value.hasOwnProperty(property) && property != '__gwt_ObjectId') {
+            valueCopy[property] = deepCopy(value[property]);
+          }
+        }
+        return valueCopy;
+      }
+      return value;
+    };
+    if (this['metamodel']) {
+      copy['metamodel'] = deepCopy(this['metamodel']);
+    }
+    if (this['metamodelFragment']) {
+      copy['metamodelFragment'] = deepCopy(this['metamodelFragment']);
+    }
+    if (this['layoutConstraints']) {
+      copy['layoutConstraints'] = {};
+      for (key in this['layoutConstraints']) {
+        copy['layoutConstraints'][key] = this['layoutConstraints'][key];
+      }
+    }
+    return copy;
+  }-*/;
+
   /**
    * Allow the visualization to extract parameters from the current document
    * location URL.
@@ -123,6 +205,190 @@ public class RhizosphereOptions<T> extends JavaScriptObject {
     this['cacheDimensions'] = cacheDimensions;
   }-*/;
 
+  /**
+   * Whether Rhizosphere should deploy models incrementally, creating their
+   * renderings in multiple time-sliced batches so that the browser stays
+   * responsive while large datasets are deployed. Deployment progress is
+   * notified via {@link com.rhizospherejs.gwt.client.handlers.ProgressEvent}
+   * events.
+   */
+  public final native void setIncrementalDeploy(boolean incrementalDeploy) /*-{
+    this['incrementalDeploy'] = incrementalDeploy;
+  }-*/;
+
+  /**
+   * Returns whether Rhizosphere should deploy models incrementally.
+   */
+  public final native boolean isIncrementalDeploy() /*-{
+    return !!this['incrementalDeploy'];
+  }-*/;
+
+  /**
+   * The time, in milliseconds, that each batch of an incremental deployment
+   * should fit into. Only relevant when incremental deployment is enabled.
+   */
+  public final native void setDeployTimeSlice(int deployTimeSlice) /*-{
+    this['deployTimeSlice'] = deployTimeSlice;
+  }-*/;
+
+  /**
+   * Returns the time slice for incremental deployment batches, or 0 if the
+   * default should be used.
+   */
+  public final native int getDeployTimeSlice() /*-{
+    return this['deployTimeSlice'] || 0;
+  }-*/;
+
+  /**
+   * The number of models Rhizosphere should deploy and lay out right away,
+   * for large datasets to show up quickly. The remaining models are streamed
+   * into the visualization in background batches (sized according to
+   * {@link #setDeployTimeSlice(int)}), with the layout being refreshed after
+   * each batch. The visualization is ready for user interaction as soon as
+   * the first batch is displayed, while streaming progress is notified via
+   * {@link com.rhizospherejs.gwt.client.handlers.ProgressEvent} events.
+   * <p>
+   * Takes precedence over {@link #setIncrementalDeploy(boolean)}.
+   */
+  public final native void setFirstPaintBatchSize(int firstPaintBatchSize) /*-{
+    this['firstPaintBatchSize'] = firstPaintBatchSize;
+  }-*/;
+
+  /**
+   * Returns the number of models to deploy right away, or 0 if all models
+   * should be deployed before the visualization is first displayed.
+   */
+  public final native int getFirstPaintBatchSize() /*-{
+    return this['firstPaintBatchSize'] || 0;
+  }-*/;
+
+  /**
+   * Whether the visualization should be disposed (see
+   * {@link Rhizosphere#dispose()}) as soon as its widget is detached from
+   * the document.
+   */
+  public final native void setDisposeOnUnload(boolean disposeOnUnload) /*-{
+    this['disposeOnUnload'] = disposeOnUnload;
+  }-*/;
+
+  /**
+   * Returns whether the visualization should be disposed when its widget is
+   * detached from the document.
+   */
+  public final native boolean isDisposeOnUnload() /*-{
+    return !!this['disposeOnUnload'];
+  }-*/;
+
+  /**
+   * Whether the visualization should be hibernated (see
+   * {@link Rhizosphere#hibernate()}) when its widget is detached from the
+   * document, and restored when attached again. Ignored if the visualization
+   * is disposed on unload.
+   */
+  public final native void setHibernateOnUnload(boolean hibernateOnUnload) /*-{
+    this['hibernateOnUnload'] = hibernateOnUnload;
+  }-*/;
+
+  /**
+   * Returns whether the visualization should be hibernated when its widget is
+   * detached from the document.
+   */
+  public final native boolean isHibernateOnUnload() /*-{
+    return !!this['hibernateOnUnload'];
+  }-*/;
+
+  /**
+   * Whether the numeric, boolean and date attributes of models converted from
+   * POJOs or JSON should be stored in typed arrays shared by all models,
+   * rather than on each model object. This greatly reduces memory usage for
+   * large datasets. Ignored for JavaScriptObject models and on browsers that
+   * do not support typed arrays (see
+   * {@link com.rhizospherejs.gwt.client.bridge.ColumnStore}).
+   */
+  public final native void setColumnarModels(boolean columnarModels) /*-{
+    this['columnarModels'] = columnarModels;
+  }-*/;
+
+  /**
+   * Returns whether model attributes should be stored in typed arrays.
+   */
+  public final native boolean isColumnarModels() /*-{
+    return !!this['columnarModels'];
+  }-*/;
+
+  /**
+   * Whether models converted from POJOs should only carry the attributes the
+   * visualization metamodel uses, rather than all the annotated ones. The
+   * active attributes are the ones of the metamodel set via
+   * {@link #setMetaModel(RhizosphereMetaModel)} or, if none is, the ones of
+   * the {@link Rhizosphere} metamodel plus the ones of the fragment set via
+   * {@link #setMetaModelFragment(RhizosphereMetaModel)}. The getters of the
+   * other attributes are not invoked at all, which saves conversion time and
+   * memory for POJOs with many attributes.
+   * <p>
+   * Opaque attributes are not part of any metamodel: list the ones renderers
+   * still need via {@link #setRetainedAttributes(String...)}. The active
+   * attributes are fixed when the first model is added to the visualization.
+   * Ignored for JavaScriptObject, JSONObject and JSON models.
+   */
+  public final native void setAttributeProjection(boolean attributeProjection) /*-{
+    this['attributeProjection'] = attributeProjection;
+  }-*/;
+
+  /**
+   * Returns whether models converted from POJOs only carry the attributes the
+   * visualization metamodel uses.
+   */
+  public final native boolean isAttributeProjection() /*-{
+    return !!this['attributeProjection'];
+  }-*/;
+
+  /**
+   * Sets the attributes models must carry when attribute projection is
+   * enabled (see {@link #setAttributeProjection(boolean)}), even if they are
+   * not part of the visualization metamodel. Typically, the opaque
+   * attributes renderers use.
+   */
+  public final void setRetainedAttributes(String... attributes) {
+    JsArrayString retainedAttributes = JavaScriptObject.createArray().cast();
+    for (String attribute : attributes) {
+      retainedAttributes.push(attribute);
+    }
+    nativeSetRetainedAttributes(retainedAttributes);
+  }
+
+  private native void nativeSetRetainedAttributes(JsArrayString attributes) /*-{
+    this['retainedAttributes'] = attributes;
+  }-*/;
+
+  /**
+   * Returns the names of the attributes models converted from POJOs must
+   * carry when attribute projection is enabled.
+   *
+   * @param metaModel The metamodel of the visualization these options are
+   *     bound to, if any.
+   */
+  final native JsArrayString getProjectedAttributes(RhizosphereMetaModel metaModel) /*-{
+    var attributes = [];
+    var add = function(names) {
+      for (var i = 0; i < names.length; i++) {
+        attributes.push(names[i]);
+      }
+    };
+    if (this['metamodel']) {
+      add(this['metamodel'].@com.rhizospherejs.gwt.client.RhizosphereMetaModel::getAttributeNames()());
+    } else {
+      if (metaModel) {
+        add(metaModel.@com.rhizospherejs.gwt.client.RhizosphereMetaModel::getAttributeNames()());
+      }
+      if (this['metamodelFragment']) {
+        add(this['metamodelFragment'].@com.rhizospherejs.gwt.client.RhizosphereMetaModel::getAttributeNames()());
+      }
+    }
+    add(this['retainedAttributes'] || []);
+    return attributes;
+  }-*/;
+
   /**
    * Forces Rhizosphere UI to adapt itself to the specified target platform.
    */
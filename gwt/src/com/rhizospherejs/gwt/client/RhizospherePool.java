@@ -0,0 +1,192 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+
+import java.util.LinkedList;
+
+/**
+ * A pool of warm {@link Rhizosphere} instances, all configured after the same
+ * {@link RhizosphereOptions} template.
+ * <p>
+ * Creating a visualization builds its chrome, GUI components and user agent,
+ * which can take a noticeable amount of time. The pool creates instances
+ * ahead of time, when the browser is idle, so that applications switching
+ * between different datasets can obtain a ready-to-use visualization
+ * immediately via {@link #acquire()}.
+ * <p>
+ * Visualizations are handed back to the pool via {@link #release(Rhizosphere)}.
+ * Instances that were never deployed nor configured are recycled as they are.
+ * The others are not reset to an empty state and reused: they are disposed,
+ * since the chrome of a deployed visualization is bound to its metamodel and
+ * cannot be rebuilt in place, and a fresh replacement is created in the
+ * background. Each pooled instance receives its own copy of the template
+ * options, metamodels included (see {@link RhizosphereOptions#copy()}), so
+ * deploying one instance never alters the configuration of the others.
+ * <p>
+ * Example usage:
+ * <pre><code>
+ * RhizosphereOptions&lt;Book&gt; template = RhizosphereOptions.create();
+ * template.setEnableHTML5History(false);
+ * RhizospherePool&lt;Book&gt; pool = new RhizospherePool&lt;Book&gt;(template, 2);
+ * pool.prefill();
+ * ...
+ * Rhizosphere&lt;Book&gt; r = pool.acquire();
+ * r.prepareFor(GWT.create(Book.class));
+ * r.addModels(books);
+ * container.add(r);
+ * ...
+ * pool.release(r);
+ * </code></pre>
+ *
+ * @param <T> The type that describes the datapoints of the pooled
+ *     visualizations.
+ */
+public class RhizospherePool<T> {
+
+  /**
+   * The options every pooled instance is configured with. Each instance
+   * receives its own copy.
+   */
+  private final RhizosphereOptions<T> template;
+
+  /**
+   * The number of idle instances the pool tries to keep ready.
+   */
+  private final int size;
+
+  /**
+   * Idle instances, ready to be acquired.
+   */
+  private final LinkedList<Rhizosphere<T>> idle = new LinkedList<Rhizosphere<T>>();
+
+  /**
+   * Whether a background refill of the pool is scheduled.
+   */
+  private boolean refilling = false;
+
+  /**
+   * Whether the pool has been cleared. Cleared pools no longer refill.
+   */
+  private boolean cleared = false;
+
+  /**
+   * Creates a new pool. The pool is initially empty: instances are created
+   * either in the background after the first {@link #acquire()} or
+   * {@link #release(Rhizosphere)} calls, or explicitly via {@link #prefill()}.
+   *
+   * @param template The options every pooled instance will be configured
+   *     with. Can be {@code null} to use default options. The template is
+   *     copied for each instance, so it can be reused.
+   * @param size The number of idle instances the pool should keep ready.
+   */
+  public RhizospherePool(RhizosphereOptions<T> template, int size) {
+    if (size < 0) {
+      throw new RhizosphereException("Invalid pool size: " + size);
+    }
+    this.template = template;
+    this.size = size;
+  }
+
+  /**
+   * Schedules the creation of idle instances, until the pool is full. Instances
+   * are created one at a time in the background, so that the browser stays
+   * responsive.
+   */
+  public void prefill() {
+    if (cleared || refilling || idle.size() >= size) {
+      return;
+    }
+    refilling = true;
+    Scheduler.get().scheduleIncremental(new RepeatingCommand() {
+      @Override
+      public boolean execute() {
+        if (cleared || idle.size() >= size) {
+          refilling = false;
+          return false;
+        }
+        idle.add(newInstance());
+        return true;
+      }
+    });
+  }
+
+  /**
+   * Returns a ready-to-use visualization, configured after the pool template.
+   * If no idle instance is available, a new one is created synchronously. In
+   * either case, the pool is refilled in the background.
+   *
+   * @return A visualization that has not been deployed nor configured yet.
+   */
+  public Rhizosphere<T> acquire() {
+    Rhizosphere<T> instance = idle.isEmpty() ? newInstance() : idle.removeFirst();
+    prefill();
+    return instance;
+  }
+
+  /**
+   * Hands a visualization back to the pool. The visualization is detached
+   * from its parent, if any. The caller must not use it anymore afterward,
+   * and should have removed any handler it registered on it.
+   *
+   * @param instance A visualization previously obtained from
+   *     {@link #acquire()}.
+   * @return Whether the visualization was recycled as it is, or otherwise
+   *     disposed and scheduled for replacement.
+   */
+  public boolean release(Rhizosphere<T> instance) {
+    instance.removeFromParent();
+    boolean recycled = false;
+    if (!cleared && idle.size() < size && instance.isPristine()) {
+      idle.add(instance);
+      recycled = true;
+    } else {
+      instance.dispose();
+    }
+    prefill();
+    return recycled;
+  }
+
+  /**
+   * Returns the number of idle instances currently available.
+   */
+  public int getNumAvailable() {
+    return idle.size();
+  }
+
+  /**
+   * Disposes all the idle instances and stops refilling the pool. Instances
+   * can still be acquired afterward, but they are always created on demand.
+   *
+   * @return The number of objects released by the disposed instances (see
+   *     {@link Rhizosphere#dispose()}).
+   */
+  public int clear() {
+    cleared = true;
+    int released = 0;
+    while (!idle.isEmpty()) {
+      released += idle.removeFirst().dispose();
+    }
+    return released;
+  }
+
+  private Rhizosphere<T> newInstance() {
+    return new Rhizosphere<T>(template != null ? template.copy() : null);
+  }
+}
@@ -22,6 +22,8 @@ import com.google.gwt.json.client.JSONNull;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONValue;
 
+import com.rhizospherejs.gwt.client.bridge.ModelStore;
+import com.rhizospherejs.gwt.client.bridge.ModelUpdate;
 import com.rhizospherejs.gwt.client.handlers.FilterEvent;
 import com.rhizospherejs.gwt.client.handlers.LayoutEvent;
 import com.rhizospherejs.gwt.client.handlers.SelectionEvent;
@@ -62,6 +64,22 @@ private JavaScriptObject nativeUserAgent;
     this.nativeWireListeners(nativeUserAgent);
   }
 
+  /**
+   * Unregisters all the native listeners this user agent wired on the
+   * underlying visualization, so that they no longer keep this object (and
+   * the visualization it is bound to) reachable.
+   *
+   * @return The number of listeners removed.
+   */
+  int dispose() {
+    if (ownerVisualization == null) {
+      return 0;
+    }
+    int removed = nativeUnwireListeners(nativeUserAgent);
+    ownerVisualization = null;
+    return removed;
+  }
+
   /**
    * Performs a programmatic selection of visualization models.
    * Different types of operations can be performed. See
@@ -129,6 +147,67 @@ private JavaScriptObject nativeUserAgent;
     });
   }-*/;
 
+  /**
+   * Adds a set of models to the deployed visualization.
+   * @param models The models to add, already bridged into their Rhizosphere
+   *     representation.
+   * @return Whether the models were successfully added.
+   */
+  boolean addModels(ModelStore models) {
+    return nativeAddModels(nativeUserAgent, models.asJsArray());
+  }
+
+  private final native boolean nativeAddModels(JavaScriptObject nativeUserAgent,
+                                               JsArray<JavaScriptObject> models) /*-{
+    return nativeUserAgent.getProject().addModels(models);
+  }-*/;
+
+  /**
+   * Removes a set of models from the deployed visualization.
+   * @param models The models to remove.
+   * @return The number of models that were removed.
+   */
+  int removeModels(JsArray<RhizosphereModelRef> models) {
+    return nativeRemoveModels(nativeUserAgent, models);
+  }
+
+  private final native int nativeRemoveModels(JavaScriptObject nativeUserAgent,
+                                              JsArray<RhizosphereModelRef> modelRefs) /*-{
+    var modelIds = [];
+    for (var i = 0; i < modelRefs.length; i++) {
+      modelIds.push(modelRefs[i].id);
+    }
+    return nativeUserAgent.getProject().removeModels(modelIds);
+  }-*/;
+
+  /**
+   * Notifies the deployed visualization that a model changed.
+   * @param update The outcome of bridging the changed model again.
+   */
+  void updateModel(ModelUpdate update) {
+    JsArray<ModelUpdate> updates = JavaScriptObject.createArray().cast();
+    updates.push(update);
+    updateModels(updates);
+  }
+
+  /**
+   * Notifies the deployed visualization that a set of models changed, in a
+   * single pass.
+   * @param updates The outcome of bridging the changed models again.
+   */
+  void updateModels(JsArray<ModelUpdate> updates) {
+    nativeUpdateModels(nativeUserAgent, updates);
+  }
+
+  private final native void nativeUpdateModels(JavaScriptObject nativeUserAgent,
+                                               JsArray<ModelUpdate> updates) /*-{
+    var changes = {};
+    for (var i = 0; i < updates.length; i++) {
+      changes[updates[i].model.id] = updates[i].changedAttributes;
+    }
+    nativeUserAgent.getProject().updateModels(changes);
+  }-*/;
+
   /**
    * Programmatically applies a faceted filter on visualization models on the
    * given model attribute.
@@ -293,6 +372,18 @@ private JavaScriptObject nativeUserAgent;
     }, this);        
   }-*/;
 
+  /**
+   * Removes all the native listeners registered by
+   * {@link #nativeWireListeners(JavaScriptObject)}.
+   *
+   * @return The number of listeners removed.
+   */
+  private native int nativeUnwireListeners(JavaScriptObject nativeUserAgent) /*-{
+    return (nativeUserAgent.removeFilterListener(this) || 0) +
+        (nativeUserAgent.removeSelectionListener(this) || 0) +
+        (nativeUserAgent.removeLayoutListener(this) || 0);
+  }-*/;
+
   /**
    * Callback invoked when the visualization filtering criteria change.
    * @param jso The filtering criteria that changed.
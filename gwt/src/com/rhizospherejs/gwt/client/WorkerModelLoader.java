@@ -0,0 +1,241 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.json.client.JSONException;
+
+import com.rhizospherejs.gwt.client.bridge.ParsedPayload;
+
+/**
+ * Feeds a Rhizosphere visualization with the models contained in a JSON array,
+ * parsing it off the UI thread.
+ * <p>
+ * Parsing happens in a Web Worker, which also validates the models against
+ * the visualization metamodel, computes some statistics about their attributes
+ * and lays out their numeric, boolean and string attributes in typed array
+ * columns. The columns are transferred back to the UI thread, where a column
+ * store can adopt them as they are (see
+ * {@link RhizosphereOptions#setColumnarModels(boolean)}). On browsers that do
+ * not support Web Workers, the payload is parsed on the UI thread instead.
+ *
+ * @param <T> The type that describes the datapoints of your dataset.
+ */
+class WorkerModelLoader<T> {
+
+  /**
+   * The worker script, relative to the module base URL.
+   */
+  private static final String WORKER_SCRIPT = "modelworker.js";
+
+  private final Rhizosphere<T> visualization;
+  private final RhizosphereCallback callback;
+
+  private JavaScriptObject worker;
+  private Request pendingRequest;
+  private boolean done = false;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param visualization The visualization to feed.
+   * @param callback An optional callback invoked once the models have been
+   *     added to the visualization, or a failure occurs.
+   */
+  WorkerModelLoader(Rhizosphere<T> visualization, RhizosphereCallback callback) {
+    this.visualization = visualization;
+    this.callback = callback;
+  }
+
+  /**
+   * Returns whether the current browser supports Web Workers.
+   */
+  static native boolean isSupported() /*-{
+    return typeof($wnd.Worker) != 'undefined';
+  }-*/;
+
+  /**
+   * Starts parsing a JSON array.
+   *
+   * @param payload The JSON array to parse.
+   * @param metaModel The visualization metamodel, if already defined.
+   */
+  void start(final String payload, RhizosphereMetaModel metaModel) {
+    if (isSupported()) {
+      worker = startWorker(GWT.getModuleBaseURL() + WORKER_SCRIPT,
+          ParsedPayload.newRequest(payload, null, metaModel));
+      return;
+    }
+    Scheduler.get().scheduleDeferred(new ScheduledCommand() {
+      @Override
+      public void execute() {
+        onPayload(payload);
+      }
+    });
+  }
+
+  /**
+   * Starts fetching and parsing a JSON array. When Web Workers are
+   * supported, the worker fetches the payload by itself, so that it never
+   * transits through the UI thread.
+   *
+   * @param url The URL of the JSON array to parse.
+   * @param metaModel The visualization metamodel, if already defined.
+   */
+  void startFromUrl(final String url, RhizosphereMetaModel metaModel) {
+    if (isSupported()) {
+      // Relative urls would otherwise be resolved by the worker against the
+      // location of its script, rather than the host page.
+      worker = startWorker(GWT.getModuleBaseURL() + WORKER_SCRIPT,
+          ParsedPayload.newRequest(null, toAbsoluteUrl(url), metaModel));
+      return;
+    }
+    RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, url);
+    try {
+      pendingRequest = builder.sendRequest(null, new RequestCallback() {
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+          if (response.getStatusCode() != Response.SC_OK) {
+            WorkerModelLoader.this.onError(
+                "Unable to fetch " + url + " (HTTP " + response.getStatusCode() + ")");
+          } else {
+            onPayload(response.getText());
+          }
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+          WorkerModelLoader.this.onError(exception.getMessage());
+        }
+      });
+    } catch (RequestException e) {
+      onError(e.getMessage());
+    }
+  }
+
+  /**
+   * Resolves a url against the host page document, as {@link RequestBuilder}
+   * does.
+   */
+  private static native String toAbsoluteUrl(String url) /*-{
+    var anchor = $doc.createElement('a');
+    anchor.href = url;
+    return anchor.href;
+  }-*/;
+
+  /**
+   * Stops parsing. Results that arrive afterwards are discarded.
+   */
+  void cancel() {
+    finish(false, "Loading cancelled");
+  }
+
+  /**
+   * Returns whether the loader has stopped, either because the models were
+   * added to the visualization, because of an error or because it was
+   * cancelled.
+   */
+  boolean isDone() {
+    return done;
+  }
+
+  private void onParsed(ParsedPayload parsed) {
+    if (done) {
+      return;
+    }
+    try {
+      visualization.appendParsedModels(parsed);
+    } catch (RhizosphereException e) {
+      finish(false, e.getMessage());
+      return;
+    }
+    finish(true, null);
+  }
+
+  /**
+   * Fallback for browsers that do not support Web Workers.
+   */
+  private void onPayload(String payload) {
+    if (done) {
+      return;
+    }
+    try {
+      visualization.appendModelsFromJson(payload);
+    } catch (JSONException e) {
+      finish(false, e.getMessage());
+      return;
+    } catch (RhizosphereException e) {
+      finish(false, e.getMessage());
+      return;
+    }
+    finish(true, null);
+  }
+
+  private void onError(String details) {
+    finish(false, details);
+  }
+
+  private void finish(boolean status, String details) {
+    if (done) {
+      return;
+    }
+    done = true;
+    if (worker != null) {
+      terminateWorker(worker);
+      worker = null;
+    }
+    if (pendingRequest != null) {
+      pendingRequest.cancel();
+      pendingRequest = null;
+    }
+    if (callback != null) {
+      callback.run(status, details);
+    }
+  }
+
+  private native JavaScriptObject startWorker(String script, JavaScriptObject message) /*-{
+    var loader = this;
+    var worker = new $wnd.Worker(script);
+    worker.onmessage = $entry(function(event) {
+      if (event.data.error) {
+        loader.@com.rhizospherejs.gwt.client.WorkerModelLoader::onError(Ljava/lang/String;)(
+            event.data.error);
+      } else {
+        loader.@com.rhizospherejs.gwt.client.WorkerModelLoader::onParsed(Lcom/rhizospherejs/gwt/client/bridge/ParsedPayload;)(
+            event.data);
+      }
+    });
+    worker.onerror = $entry(function(event) {
+      loader.@com.rhizospherejs.gwt.client.WorkerModelLoader::onError(Ljava/lang/String;)(
+          event.message || 'Unable to parse models in the background');
+    });
+    worker.postMessage(message);
+    return worker;
+  }-*/;
+
+  private static native void terminateWorker(JavaScriptObject worker) /*-{
+    worker.terminate();
+  }-*/;
+}
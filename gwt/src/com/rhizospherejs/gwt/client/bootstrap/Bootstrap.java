@@ -23,11 +23,10 @@ import com.google.gwt.dom.client.Element;
 import com.rhizospherejs.gwt.client.RhizosphereMetaModel;
 import com.rhizospherejs.gwt.client.RhizosphereOptions;
 import com.rhizospherejs.gwt.client.RhizosphereUserAgent;
+import com.rhizospherejs.gwt.client.bridge.ModelStore;
 import com.rhizospherejs.gwt.client.handlers.HasReadyHandlers;
 import com.rhizospherejs.gwt.client.renderer.NativeRenderer;
 
-import java.util.Collection;
-
 /**
  * Bootstrap is responsible for initialization and deployment of a Rhizosphere
  * visualization. It wraps the native {@code rhizo.bootstrap.Bootstrap}
@@ -89,21 +88,20 @@ public class Bootstrap extends JavaScriptObject {
 
   /**
    * Deploys a Rhizosphere visualization. 
-   * @param models The set of models that the visualization will display.
+   * @param models The set of models that the visualization will display. The
+   *     store contents are handed over to the visualization as they are,
+   *     without copying them.
    * @param metamodel The visualization metamodel.
    * @param renderer The visualization renderer.
    */
-  public final void deployExplicit(Collection<JavaScriptObject> models,
+  public final void deployExplicit(ModelStore models,
                                    RhizosphereMetaModel metamodel,
                                    NativeRenderer<?> renderer) {
-    JsArray<JavaScriptObject> jsModels = JavaScriptObject.createArray().cast();
-    if (models != null) {
-      for (JavaScriptObject m : models) {
-        jsModels.push(m);
-      }
+    if (models == null) {
+      models = ModelStore.create();
     }
     this.nativeDeploy(
-        jsModels, metamodel, renderer != null ? renderer.toJavaScriptObject() : null);
+        models.asJsArray(), metamodel, renderer != null ? renderer.toJavaScriptObject() : null);
   }
 
   private native void nativeDeploy(JsArray<JavaScriptObject> models, 
@@ -112,6 +110,101 @@ public class Bootstrap extends JavaScriptObject {
     this.deployExplicit(models, metamodel, renderer);
   }-*/;
 
+  /**
+   * Starts an incremental deployment of a Rhizosphere visualization. Models
+   * are then fed to the visualization in batches via
+   * {@link #deployBatch(ModelStore, int, int)} and the deployment is finalized
+   * by {@link #completeDeploy()}.
+   *
+   * @param metamodel The visualization metamodel.
+   * @param renderer The visualization renderer.
+   * @return Whether the visualization is ready to receive models.
+   */
+  public final boolean beginDeploy(RhizosphereMetaModel metamodel,
+                                   NativeRenderer<?> renderer) {
+    return this.nativeBeginDeploy(
+        metamodel, renderer != null ? renderer.toJavaScriptObject() : null);
+  }
+
+  private native boolean nativeBeginDeploy(RhizosphereMetaModel metamodel,
+                                           JavaScriptObject renderer) /*-{
+    return this.beginDeploy(metamodel, renderer);
+  }-*/;
+
+  /**
+   * Feeds a batch of models to an incremental deployment. Renderings for the
+   * models are created immediately, but they remain hidden until the
+   * deployment is completed.
+   *
+   * @param models The store containing the models to deploy.
+   * @param from The index of the first model of the batch (inclusive).
+   * @param to The index of the last model of the batch (exclusive).
+   * @return Whether the batch was successfully deployed.
+   */
+  public final native boolean deployBatch(ModelStore models, int from, int to) /*-{
+    return this.deployBatch(models.slice(from, to));
+  }-*/;
+
+  /**
+   * Adds a batch of models to an already deployed visualization. Renderings
+   * are created only for the new models, and the current layout is refreshed
+   * to make room for them.
+   *
+   * @param models The store containing the models to add.
+   * @param from The index of the first model of the batch (inclusive).
+   * @param to The index of the last model of the batch (exclusive).
+   * @return Whether the batch was successfully added.
+   */
+  public final native boolean appendBatch(ModelStore models, int from, int to) /*-{
+    return this.appendBatch(models.slice(from, to));
+  }-*/;
+
+  /**
+   * Completes an incremental deployment, laying out all the models received
+   * so far and notifying the visualization ready handler.
+   */
+  public final native void completeDeploy() /*-{
+    this.completeDeploy();
+  }-*/;
+
+  /**
+   * Hibernates the deployed visualization, releasing all its renderings while
+   * preserving models, layout, filters and selection.
+   *
+   * @return The number of renderings released.
+   */
+  public final native int hibernate() /*-{
+    return this.hibernate();
+  }-*/;
+
+  /**
+   * Restores a visualization previously hibernated via {@link #hibernate()},
+   * rebuilding only the renderings that were visible.
+   *
+   * @return The number of renderings rebuilt.
+   */
+  public final native int restore() /*-{
+    return this.restore();
+  }-*/;
+
+  /**
+   * Returns whether the visualization is currently hibernated.
+   */
+  public final native boolean isHibernated() /*-{
+    return this.isHibernated();
+  }-*/;
+
+  /**
+   * Destroys the visualization managed by this bootstrapper, removing all its
+   * renderings and UI elements from the container and releasing the native
+   * project. The bootstrapper cannot be used anymore afterward.
+   *
+   * @return The number of models the visualization contained.
+   */
+  public final native int destroy() /*-{
+    return this.destroy();
+  }-*/;
+
   /**
    * Returns whether the Rhizosphere visualization managed by this bootstrapper
    * has been deployed yet (models are visible to users) or it has only been
@@ -0,0 +1,239 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client.bootstrap;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+
+import com.rhizospherejs.gwt.client.RhizosphereMetaModel;
+import com.rhizospherejs.gwt.client.bridge.ModelStore;
+import com.rhizospherejs.gwt.client.handlers.HasProgressHandlers;
+import com.rhizospherejs.gwt.client.handlers.ProgressEvent;
+import com.rhizospherejs.gwt.client.renderer.NativeRenderer;
+
+/**
+ * Deploys a Rhizosphere visualization incrementally, splitting the creation
+ * of models' renderings in multiple batches, so that the browser stays
+ * responsive while large datasets are deployed. Each batch is scheduled
+ * separately via {@link Scheduler#scheduleFixedDelay(RepeatingCommand, int)},
+ * so that the browser gets a chance to handle events and repaint after
+ * every batch.
+ * <p>
+ * Each batch is sized to fit within a configurable time slice, adapting to
+ * the time that previous batches took to render. A {@link ProgressEvent} is
+ * fired after each batch, and a last one if the deployment is given up
+ * because of a failure. Models are laid out, and the visualization is
+ * declared ready, only once the last batch has been deployed.
+ * <p>
+ * Alternatively, a <em>first paint</em> size can be configured. In such case
+ * the first batch of models is deployed and laid out synchronously, and the
+ * visualization is declared ready right away. The remaining models are then
+ * streamed in background batches through the same path used to append
+ * models to a live visualization, with the current layout engine
+ * repositioning models after each batch. Since each batch triggers a layout,
+ * streamed batches are never smaller than the first paint one.
+ * <p>
+ * Models added to the store while the deployment is in progress are
+ * deployed as well.
+ * <p>
+ * This class is for internal use. External users of the Rhizosphere
+ * visualization should rely on {@link com.rhizospherejs.gwt.client.Rhizosphere}
+ * which hides all these details.
+ */
+public class IncrementalDeployer implements RepeatingCommand {
+
+  /**
+   * The default time slice, in milliseconds, each batch should fit into.
+   */
+  public static final int DEFAULT_TIME_SLICE = 50;
+
+  /**
+   * The size of the first batch, before any timing information is available.
+   */
+  private static final int INITIAL_BATCH_SIZE = 50;
+
+  /**
+   * The delay, in milliseconds, before each batch is deployed.
+   */
+  private static final int BATCH_DELAY = 1;
+
+  private final Bootstrap bootstrap;
+  private final ModelStore models;
+  private final HasProgressHandlers progressHandlers;
+  private final int timeSlice;
+
+  private final int firstPaintSize;
+
+  private int batchSize = INITIAL_BATCH_SIZE;
+  private int minBatchSize = 1;
+  private int numDeployed = 0;
+  private boolean streaming = false;
+  private boolean done = false;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param bootstrap The bootstrapper of the visualization to deploy.
+   * @param models The models to deploy.
+   * @param progressHandlers The source to fire progress events on.
+   * @param timeSlice The time, in milliseconds, each batch should fit into.
+   *     Non-positive values select {@link #DEFAULT_TIME_SLICE}.
+   * @param firstPaintSize The number of models to deploy and lay out right
+   *     away, before streaming the remaining ones. Non-positive values
+   *     disable the first paint, and all models are laid out at the end.
+   */
+  public IncrementalDeployer(Bootstrap bootstrap,
+                             ModelStore models,
+                             HasProgressHandlers progressHandlers,
+                             int timeSlice,
+                             int firstPaintSize) {
+    this.bootstrap = bootstrap;
+    this.models = models;
+    this.progressHandlers = progressHandlers;
+    this.timeSlice = timeSlice > 0 ? timeSlice : DEFAULT_TIME_SLICE;
+    this.firstPaintSize = firstPaintSize;
+  }
+
+  /**
+   * Starts the deployment. Returns immediately, the deployment proceeds in
+   * the background.
+   *
+   * @param metamodel The visualization metamodel.
+   * @param renderer The visualization renderer.
+   */
+  public void start(RhizosphereMetaModel metamodel, NativeRenderer<?> renderer) {
+    if (!bootstrap.beginDeploy(metamodel, renderer)) {
+      abort();
+      return;
+    }
+    if (firstPaintSize > 0) {
+      int end = Math.min(firstPaintSize, models.size());
+      if (!bootstrap.deployBatch(models, 0, end)) {
+        abort();
+        return;
+      }
+      // Lay out the first batch and declare the visualization ready. The
+      // remaining models will be appended to the live visualization.
+      bootstrap.completeDeploy();
+      streaming = true;
+      numDeployed = end;
+      ProgressEvent.fire(progressHandlers, numDeployed, models.size());
+      if (numDeployed >= models.size()) {
+        done = true;
+        return;
+      }
+      batchSize = minBatchSize = firstPaintSize;
+    }
+    scheduleNextBatch();
+  }
+
+  /**
+   * Returns whether the deployment is complete.
+   */
+  public boolean isDone() {
+    return done;
+  }
+
+  /**
+   * Returns the number of models deployed so far.
+   */
+  public int getNumDeployed() {
+    return numDeployed;
+  }
+
+  /**
+   * Stops the deployment. Models not yet deployed are discarded.
+   */
+  public void cancel() {
+    done = true;
+  }
+
+  @Override
+  public boolean execute() {
+    if (done) {
+      return false;
+    }
+    int end = Math.min(numDeployed + batchSize, models.size());
+    Duration duration = new Duration();
+    boolean success = streaming ?
+        bootstrap.appendBatch(models, numDeployed, end) :
+        bootstrap.deployBatch(models, numDeployed, end);
+    if (!success) {
+      // The visualization logs the error. Lay out what has been deployed so
+      // far and give up.
+      abort();
+      return false;
+    }
+    adaptBatchSize(end - numDeployed, duration.elapsedMillis());
+    numDeployed = end;
+    ProgressEvent.fire(progressHandlers, numDeployed, models.size());
+
+    if (numDeployed < models.size()) {
+      scheduleNextBatch();
+    } else {
+      complete();
+    }
+    return false;
+  }
+
+  /**
+   * Schedules the deployment of the next batch. Batches are scheduled one at
+   * a time, rather than repeatedly within the same scheduler slot, so that
+   * control returns to the browser after each one.
+   */
+  private void scheduleNextBatch() {
+    Scheduler.get().scheduleFixedDelay(this, BATCH_DELAY);
+  }
+
+  /**
+   * Resizes the next batch so that it fits within the time slice, based on
+   * the time the last batch took. Batches are allowed to grow at most twice
+   * as big as the previous one, to smooth out timing noise, and never shrink
+   * below the minimum batch size.
+   */
+  private void adaptBatchSize(int lastBatchSize, int elapsedMillis) {
+    if (elapsedMillis <= 0) {
+      batchSize = lastBatchSize * 2;
+    } else {
+      batchSize = Math.min(lastBatchSize * 2,
+                           lastBatchSize * timeSlice / elapsedMillis);
+    }
+    batchSize = Math.max(batchSize, minBatchSize);
+  }
+
+  /**
+   * Gives up the deployment after a failure. A last progress event is fired,
+   * so that listeners waiting for the deployment to catch up learn that no
+   * further batch will follow.
+   */
+  private void abort() {
+    complete();
+    ProgressEvent.fire(progressHandlers, numDeployed, models.size());
+  }
+
+  /**
+   * Marks the deployment as complete. Unless models were being streamed into
+   * an already deployed visualization, finalizes the deployment.
+   */
+  private void complete() {
+    done = true;
+    if (!streaming) {
+      bootstrap.completeDeploy();
+    }
+  }
+}
@@ -0,0 +1,259 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client.bridge;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+import com.rhizospherejs.gwt.client.RhizosphereException;
+
+/**
+ * Decodes datasets encoded in the compact columnar binary format produced by
+ * {@link com.rhizospherejs.gwt.server.BinaryModelEncoder}, which describes
+ * the format in detail.
+ * <p>
+ * Decoding is cheap: numeric, boolean, date and dictionary encoded columns
+ * are mapped as typed arrays over the received buffer, without copying them,
+ * and only the header, the dictionaries and the plain string columns (such as
+ * model ids) are actually parsed. The decoded payload can be adopted as it is
+ * by a {@link ColumnStore}.
+ * <p>
+ * Decoding requires typed arrays and {@code DataView} support.
+ * <p>
+ * This class is for internal use. Users of the Rhizosphere library should not
+ * bother with this one.
+ */
+public final class BinaryModelDecoder {
+
+  /**
+   * Format version this decoder understands.
+   */
+  public static final int VERSION = 1;
+
+  private BinaryModelDecoder() {}
+
+  /**
+   * Returns whether the current browser can decode binary payloads.
+   */
+  public static native boolean isSupported() /*-{
+    return typeof(ArrayBuffer) != 'undefined' &&
+        typeof(DataView) != 'undefined' &&
+        typeof(Int32Array) != 'undefined' &&
+        typeof(Float64Array) != 'undefined' &&
+        typeof(Uint8Array) != 'undefined';
+  }-*/;
+
+  /**
+   * Decodes a binary payload.
+   *
+   * @param buffer An {@code ArrayBuffer} holding the payload. Its data
+   *     columns are used in place, so it should not be modified afterwards.
+   * @return The decoded payload. Its metamodel (see
+   *     {@link ParsedPayload#getMetaModel()}) describes all the attributes
+   *     but the model ids.
+   * @throws RhizosphereException If the buffer does not contain a valid
+   *     payload.
+   */
+  public static ParsedPayload decode(JavaScriptObject buffer) {
+    JavaScriptObject decoded = nativeDecode(buffer, VERSION);
+    String error = getError(decoded);
+    if (error != null) {
+      throw new RhizosphereException("Invalid binary payload: " + error);
+    }
+    return decoded.cast();
+  }
+
+  private static native String getError(JavaScriptObject decoded) /*-{
+    return decoded.error || null;
+  }-*/;
+
+  private static native JavaScriptObject nativeDecode(JavaScriptObject buffer,
+                                                      int version) /*-{
+    var FLOAT64 = 1, INT32 = 2, BOOL = 3, CODE = 4, DATE = 5, STRING = 6;
+    var view;
+    var bytes;
+    var offset = 0;
+
+    var readInt = function() {
+      var value = view.getInt32(offset, true);
+      offset += 4;
+      return value;
+    };
+    var readDouble = function() {
+      var value = view.getFloat64(offset, true);
+      offset += 8;
+      return value;
+    };
+    var readString = function() {
+      var length = view.getUint32(offset, true);
+      offset += 4;
+      if (length == 0xFFFFFFFF) {
+        return undefined;
+      }
+      var end = offset + length;
+      if (end > bytes.length) {
+        throw new RangeError('truncated string');
+      }
+      var chars = [];
+      var value = '';
+      while (offset < end) {
+        var b = bytes[offset++];
+        var codePoint;
+        if (b < 0x80) {
+          codePoint = b;
+        } else if (b < 0xE0) {
+          codePoint = ((b & 0x1F) << 6) | (bytes[offset++] & 0x3F);
+        } else if (b < 0xF0) {
+          codePoint = ((b & 0x0F) << 12) | ((bytes[offset++] & 0x3F) << 6) |
+              (bytes[offset++] & 0x3F);
+        } else {
+          codePoint = ((b & 0x07) << 18) | ((bytes[offset++] & 0x3F) << 12) |
+              ((bytes[offset++] & 0x3F) << 6) | (bytes[offset++] & 0x3F);
+          codePoint -= 0x10000;
+          chars.push(0xD800 + (codePoint >> 10));
+          codePoint = 0xDC00 + (codePoint & 0x3FF);
+        }
+        chars.push(codePoint);
+        if (chars.length >= 4096) {
+          value += String.fromCharCode.apply(null, chars);
+          chars = [];
+        }
+      }
+      return value + String.fromCharCode.apply(null, chars);
+    };
+
+    try {
+      view = new DataView(buffer);
+      bytes = new Uint8Array(buffer);
+      if (bytes.length < 16 || bytes[0] != 0x52 || bytes[1] != 0x48 ||
+          bytes[2] != 0x5A || bytes[3] != 0x42) {
+        return {error: 'missing RHZB preamble'};
+      }
+      if (bytes[4] != version) {
+        return {error: 'unsupported version ' + bytes[4]};
+      }
+      offset = 8;
+      var numModels = readInt();
+      var numAttributes = readInt();
+
+      var attributes = [];
+      for (var i = 0; i < numAttributes; i++) {
+        var attribute = {
+          name: readString(),
+          label: readString(),
+          kind: readString(),
+          type: bytes[offset++],
+          stats: {count: readInt()}
+        };
+        if (attribute.type == FLOAT64 || attribute.type == INT32 ||
+            attribute.type == DATE) {
+          var min = readDouble();
+          var max = readDouble();
+          attribute.stats.sum = readDouble();
+          if (attribute.stats.count > 0) {
+            attribute.stats.min = min;
+            attribute.stats.max = max;
+          }
+        }
+        if (attribute.type == CODE) {
+          var values = new Array(readInt());
+          for (var v = 0; v < values.length; v++) {
+            values[v] = readString();
+          }
+          attribute.values = values;
+          attribute.stats.distinct = values.length;
+        }
+        attributes.push(attribute);
+      }
+
+      var rest = new Array(numModels);
+      for (var row = 0; row < numModels; row++) {
+        rest[row] = {};
+      }
+      var columns = {};
+      var stats = {};
+      var metaModel = {};
+      for (var i = 0; i < numAttributes; i++) {
+        var attribute = attributes[i];
+        offset = (offset + 7) & ~7;
+        var column;
+        switch (attribute.type) {
+          case FLOAT64:
+          case DATE:
+            column = {kind: attribute.type == DATE ? 'date' : 'float',
+                      data: new Float64Array(buffer, offset, numModels)};
+            offset += numModels * 8;
+            break;
+          case INT32:
+            column = {kind: 'int', data: new Int32Array(buffer, offset, numModels)};
+            offset += numModels * 4;
+            break;
+          case CODE:
+            column = {kind: 'code', data: new Int32Array(buffer, offset, numModels),
+                      values: attribute.values};
+            offset += numModels * 4;
+            break;
+          case BOOL:
+            column = {kind: 'bool', data: new Uint8Array(buffer, offset, numModels)};
+            offset += numModels;
+            break;
+          case STRING:
+            var strings = new Array(numModels);
+            for (var row = 0; row < numModels; row++) {
+              strings[row] = readString();
+            }
+            column = {kind: 'string', data: strings};
+            break;
+          default:
+            return {error: 'unknown column type ' + attribute.type};
+        }
+
+        if (attribute.kind === '') {
+          // Not part of the metamodel (for example, the model ids): stored as
+          // a regular property of each model.
+          for (var row = 0; row < numModels; row++) {
+            var value = column.data[row];
+            if (column.kind == 'code') {
+              value = value < 0 ? undefined : column.values[value];
+            }
+            if (value !== undefined) {
+              rest[row][attribute.name] = value;
+            }
+          }
+          continue;
+        }
+        columns[attribute.name] = column;
+        stats[attribute.name] = attribute.stats;
+        metaModel[attribute.name] = {kind: attribute.kind};
+        if (attribute.label) {
+          metaModel[attribute.name].label = attribute.label;
+        }
+      }
+      if (offset > bytes.length) {
+        return {error: 'truncated payload'};
+      }
+      return {
+        numModels: numModels,
+        columns: columns,
+        rest: rest,
+        stats: stats,
+        metaModel: metaModel
+      };
+    } catch (e) {
+      return {error: e.message || String(e)};
+    }
+  }-*/;
+}
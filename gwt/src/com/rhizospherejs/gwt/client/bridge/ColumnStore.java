@@ -0,0 +1,610 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client.bridge;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+import com.rhizospherejs.gwt.client.RhizosphereMetaModel;
+
+/**
+ * Columnar storage for the numeric, boolean, date and string attributes of
+ * the JavaScriptObjects generated by a {@link ModelBridge}.
+ * <p>
+ * Each such attribute is stored in a typed array ({@code Int32Array} for
+ * integers, {@code Float64Array} for decimals and dates, {@code Uint8Array}
+ * for booleans), indexed by a dense row number assigned to each model. The
+ * model objects become thin views over the columns: they all share a
+ * prototype that exposes one accessor property per column, so the
+ * Rhizosphere javascript library can keep reading and writing attributes as
+ * plain properties. All other attributes (arrays, objects, the model id)
+ * remain regular properties of each model.
+ * <p>
+ * String attributes are dictionary encoded: each column keeps the list of
+ * distinct values it received, and stores for each model the integer code of
+ * its value in an {@code Int32Array}. Views expose the codes to the
+ * Rhizosphere javascript library via a {@code __rhizosphere_code(key)}
+ * method, which returns -1 for attributes that are not encoded. Since
+ * encoding only pays off for attributes with few distinct values, a column
+ * whose dictionary grows past the thresholds of {@link DictionaryEncoding}
+ * falls back to storing
+ * plain strings. The dictionaries of enum-typed attributes can be created in
+ * advance via {@link #seed(RhizosphereMetaModel)}, so that each value is
+ * encoded with the ordinal of its enum constant.
+ * <p>
+ * Columns are created lazily, the first time an attribute is stored, and
+ * their type is inferred from the stored value. An integer column is promoted
+ * to a decimal one as soon as it receives a non-integer number. Values that
+ * do not fit an existing column (such as {@code null}, or a string assigned
+ * to a numeric attribute) are stored as regular properties of the affected
+ * model only.
+ * <p>
+ * Date attributes are stored as milliseconds since the epoch, and a new Date
+ * instance is returned every time they are read. Models that never received
+ * a value for a column read it as {@code undefined}, except for integer
+ * columns, which read 0. Since columnar attributes are not own properties of
+ * the views, they are skipped by {@code Object.keys()} and {@code JSON}
+ * serialization, but not by {@code for..in} loops.
+ * <p>
+ * Payloads parsed off the UI thread (see {@link ParsedPayload}) deliver their
+ * attributes in the same layout, and can be adopted as they are via
+ * {@link #importColumns(ParsedPayload)}.
+ * <p>
+ * Column stores require typed arrays and ES5 property accessors. Use
+ * {@link #isSupported()} to verify whether the current browser supports them.
+ * <p>
+ * This class is for internal use. Users of the Rhizosphere library should not
+ * bother with this one.
+ */
+public final class ColumnStore extends JavaScriptObject {
+  protected ColumnStore() {}
+
+  /**
+   * Returns whether the current browser supports column stores.
+   */
+  public static native boolean isSupported() /*-{
+    if (typeof(Int32Array) == 'undefined' ||
+        typeof(Float64Array) == 'undefined' ||
+        typeof(Uint8Array) == 'undefined' ||
+        typeof(Object.create) != 'function' ||
+        typeof(Object.defineProperty) != 'function' ||
+        typeof(Object.getOwnPropertyDescriptor) != 'function') {
+      return false;
+    }
+    try {
+      // Some browsers only support property accessors on DOM objects.
+      Object.defineProperty({}, 'probe', {get: function() { return 1; }});
+      return true;
+    } catch (e) {
+      return false;
+    }
+  }-*/;
+
+  /**
+   * Creates a new, empty, column store.
+   */
+  public static native ColumnStore create() /*-{
+    var columns = {};
+    var proto = {};
+    Object.defineProperty(proto, '__rhizosphere_code', {
+      value: function(key) {
+        if (columns.hasOwnProperty(key) && columns[key].kind == 'code' &&
+            !this.hasOwnProperty(key)) {
+          return columns[key].data[this.__rhizosphere_row];
+        }
+        return -1;
+      }
+    });
+    return {
+      proto: proto,
+      columns: columns,
+      numRows: 0,
+      capacity: 0,
+      freeRows: []
+    };
+  }-*/;
+
+  /**
+   * Returns a view over a newly allocated row, carrying the same attributes as
+   * the given model. Numeric, boolean and date attributes are moved into
+   * columns, the remaining ones are copied as they are. Lazy attributes (see
+   * {@link ModelBridge#defineLazyAttribute}) are not converted: they are
+   * copied as they are and never moved into columns.
+   *
+   * @param model A JavaScriptObject generated by a {@link ModelBridge}.
+   * @return The view that replaces the model.
+   */
+  public native JavaScriptObject adopt(JavaScriptObject model) /*-{
+    var view = this.@com.rhizospherejs.gwt.client.bridge.ColumnStore::newRow()();
+    for (var key in model) {
+      if (!model.hasOwnProperty(key)) {
+        continue;
+      }
+      var descriptor = Object.getOwnPropertyDescriptor(model, key);
+      if (descriptor.get) {
+        Object.defineProperty(view, key, descriptor);
+        continue;
+      }
+      var value = model[key];
+      if (!this.columns.hasOwnProperty(key) && key != 'id' &&
+          key.indexOf('__') != 0) {
+        this.@com.rhizospherejs.gwt.client.bridge.ColumnStore::addColumn(Ljava/lang/String;Ljava/lang/Object;)(key, value);
+      }
+      view[key] = value;
+    }
+    return view;
+  }-*/;
+
+  /**
+   * Releases the rows backing the given views, so that they can be reused by
+   * other models. Released views are marked as such, so that releasing them
+   * again is harmless. Objects that are not views of this store are ignored.
+   *
+   * @param views The views to release.
+   */
+  public native void releaseAll(JsArray<? extends JavaScriptObject> views) /*-{
+    for (var i = 0; i < views.length; i++) {
+      var view = views[i];
+      if (!view || Object.getPrototypeOf(view) !== this.proto) {
+        continue;
+      }
+      var row = view.__rhizosphere_row;
+      if (row < 0) {
+        // Already released.
+        continue;
+      }
+      for (var key in this.columns) {
+        var column = this.columns[key];
+        column.data[row] = column.empty;
+      }
+      this.freeRows.push(row);
+      view.__rhizosphere_row = -1;
+    }
+  }-*/;
+
+  /**
+   * Clears an attribute of the given view, storing the column's empty marker
+   * in the view's row. Values that could not be stored in the column, and
+   * were therefore kept on the view itself, are removed as well. Does nothing
+   * if the object is not a view of this store, its row was released or the
+   * attribute is not stored in a column.
+   *
+   * @param view The view to clear the attribute of.
+   * @param attribute The attribute to clear.
+   * @return Whether the attribute had a value before being cleared.
+   */
+  public native boolean clearValue(JavaScriptObject view, String attribute) /*-{
+    var row = this.@com.rhizospherejs.gwt.client.bridge.ColumnStore::getRow(Lcom/google/gwt/core/client/JavaScriptObject;)(view);
+    if (row < 0 || !this.columns.hasOwnProperty(attribute)) {
+      return false;
+    }
+    var hadValue = view[attribute] !== undefined;
+    delete view[attribute];
+    var column = this.columns[attribute];
+    column.data[row] = column.empty;
+    return hadValue;
+  }-*/;
+
+  /**
+   * Returns the typed array storing the given attribute, or {@code null} if
+   * the attribute is not stored in a column. The array is indexed by row
+   * number (see {@link #getRow(JavaScriptObject)}) and may be larger than
+   * {@link #getNumRows()}. The returned array is replaced whenever the store
+   * grows, so callers should not hold on to it across model additions.
+   */
+  public native JavaScriptObject getColumn(String attribute) /*-{
+    return this.columns.hasOwnProperty(attribute) ?
+        this.columns[attribute].data : null;
+  }-*/;
+
+  /**
+   * Returns the distinct values of a dictionary encoded attribute, indexed by
+   * their code, or {@code null} if the attribute is not dictionary encoded.
+   * The returned array is live: it grows as new values are stored.
+   */
+  public native JsArrayString getDictionary(String attribute) /*-{
+    return this.columns.hasOwnProperty(attribute) &&
+        this.columns[attribute].kind == 'code' ?
+        this.columns[attribute].values : null;
+  }-*/;
+
+  /**
+   * Exposes the dictionaries of the encoded attributes to the Rhizosphere
+   * javascript library, by attaching them to the matching metamodel
+   * attributes. Attributes of {@link com.rhizospherejs.gwt.client.RhizosphereKind#CATEGORY}
+   * kind that do not define their categories receive the dictionary values
+   * as categories.
+   * <p>
+   * Both dictionaries and derived categories are live: they keep growing as
+   * models with new values are stored, also after the column abandons
+   * dictionary encoding, in which case the dictionary is withdrawn from the
+   * metamodel. The method can be called again whenever models are added, to
+   * describe the columns created since the last call.
+   *
+   * @param metaModel The visualization metamodel.
+   */
+  public native void describe(RhizosphereMetaModel metaModel) /*-{
+    for (var key in this.columns) {
+      var column = this.columns[key];
+      var attribute = metaModel[key];
+      if (!attribute) {
+        continue;
+      }
+      if (column.kind != 'code') {
+        delete attribute['dictionary'];
+        continue;
+      }
+      attribute['dictionary'] = column.values;
+      column.attribute = attribute;
+
+      // The library replaces kind names with kind instances upon deployment.
+      var kind = attribute['kind'];
+      var isCategory = kind == 'category' || ($wnd.rhizo && $wnd.rhizo.meta &&
+          kind instanceof $wnd.rhizo.meta.CategoryKind);
+      if (isCategory && !column.categories &&
+          (!attribute['categories'] || attribute['categories'].length == 0)) {
+        column.categories = column.values.slice();
+        attribute['categories'] = column.categories;
+        attribute['multiple'] = false;
+        attribute['isHierarchy'] = false;
+      }
+    }
+  }-*/;
+
+  /**
+   * Creates the dictionaries of the enum-typed attributes of the metamodel
+   * (see {@link RhizosphereMetaModel.Attribute#setEnumConstants(String[])})
+   * ahead of time, so that their values are encoded with the ordinal of the
+   * matching enum constant. Must be called before any model is adopted.
+   *
+   * @param metaModel The visualization metamodel.
+   */
+  public native void seed(RhizosphereMetaModel metaModel) /*-{
+    for (var key in metaModel) {
+      var constants = metaModel[key] && metaModel[key]['enumConstants'];
+      if (!constants || constants.length == 0 || this.columns.hasOwnProperty(key)) {
+        continue;
+      }
+      this.@com.rhizospherejs.gwt.client.bridge.ColumnStore::addColumn(Ljava/lang/String;Ljava/lang/Object;)(key, constants[0]);
+      var column = this.columns[key];
+      for (var i = 0; i < constants.length; i++) {
+        column.values.push(constants[i]);
+        column.codes[constants[i]] = i;
+      }
+    }
+  }-*/;
+
+  /**
+   * Adopts the columns of a payload parsed off the UI thread as they are,
+   * without copying them, and returns one view per parsed model. This is only
+   * possible while the store has no rows yet, and as long as the parsed
+   * dictionaries are compatible with the ones already created via
+   * {@link #seed(RhizosphereMetaModel)}.
+   *
+   * @param parsed The parsed payload.
+   * @return The views over the parsed models, or {@code null} if the columns
+   *     could not be adopted.
+   */
+  public native JsArray<JavaScriptObject> importColumns(ParsedPayload parsed) /*-{
+    if (this.numRows > 0 || this.freeRows.length > 0) {
+      return null;
+    }
+    var incoming = parsed.columns;
+    var key;
+    for (key in incoming) {
+      var existing = this.columns[key];
+      if (!this.columns.hasOwnProperty(key)) {
+        continue;
+      }
+      if (existing.kind != 'code' || incoming[key].kind != 'code' ||
+          existing.values.length > incoming[key].values.length) {
+        return null;
+      }
+      for (var i = 0; i < existing.values.length; i++) {
+        if (existing.values[i] !== incoming[key].values[i]) {
+          return null;
+        }
+      }
+    }
+
+    var numModels = parsed.numModels;
+    this.@com.rhizospherejs.gwt.client.bridge.ColumnStore::grow(I)(numModels);
+    this.numRows = numModels;
+    for (key in incoming) {
+      var column = incoming[key];
+      if (this.columns.hasOwnProperty(key)) {
+        // A seeded dictionary: the accessors are already in place.
+        this.columns[key].data = column.data;
+        this.columns[key].values = column.values;
+        for (var i = this.columns[key].values.length - 1; i >= 0; i--) {
+          this.columns[key].codes[column.values[i]] = i;
+        }
+        continue;
+      }
+      switch (column.kind) {
+        case 'int':
+          column.arrayType = Int32Array;
+          column.empty = 0;
+          break;
+        case 'float':
+        case 'date':
+          column.arrayType = Float64Array;
+          column.empty = NaN;
+          break;
+        case 'bool':
+          column.arrayType = Uint8Array;
+          column.empty = 2;
+          break;
+        case 'code':
+          column.arrayType = Int32Array;
+          column.empty = -1;
+          column.codes = Object.create(null);
+          for (var i = 0; i < column.values.length; i++) {
+            column.codes[column.values[i]] = i;
+          }
+          break;
+        default:
+          column.arrayType = Array;
+          column.empty = undefined;
+      }
+      this.@com.rhizospherejs.gwt.client.bridge.ColumnStore::defineColumn(Ljava/lang/String;Lcom/google/gwt/core/client/JavaScriptObject;)(key, column);
+    }
+
+    var views = new Array(numModels);
+    for (var row = 0; row < numModels; row++) {
+      var view = Object.create(this.proto);
+      Object.defineProperty(view, '__rhizosphere_row', {value: row, writable: true});
+      var rest = parsed.rest[row];
+      for (key in rest) {
+        view[key] = rest[key];
+      }
+      views[row] = view;
+    }
+    return views;
+  }-*/;
+
+  /**
+   * Returns the row number backing the given view, or -1 if the object is not
+   * a view of this store or its row was released.
+   */
+  public native int getRow(JavaScriptObject view) /*-{
+    return Object.getPrototypeOf(view) === this.proto ?
+        view.__rhizosphere_row : -1;
+  }-*/;
+
+  /**
+   * Returns the number of rows allocated so far, including released ones.
+   */
+  public native int getNumRows() /*-{
+    return this.numRows;
+  }-*/;
+
+  /**
+   * Allocates a row, reusing a released one if available, and returns a new
+   * view over it.
+   */
+  private native JavaScriptObject newRow() /*-{
+    var row;
+    if (this.freeRows.length > 0) {
+      row = this.freeRows.pop();
+    } else {
+      row = this.numRows++;
+      if (row >= this.capacity) {
+        this.@com.rhizospherejs.gwt.client.bridge.ColumnStore::grow(I)(
+            Math.max(64, this.capacity * 2));
+      }
+    }
+    var view = Object.create(this.proto);
+    Object.defineProperty(view, '__rhizosphere_row', {value: row, writable: true});
+    return view;
+  }-*/;
+
+  /**
+   * Reallocates all the columns with the given capacity.
+   */
+  private native void grow(int capacity) /*-{
+    for (var key in this.columns) {
+      var column = this.columns[key];
+      column.data = @com.rhizospherejs.gwt.client.bridge.ColumnStore::resize(Lcom/google/gwt/core/client/JavaScriptObject;Lcom/google/gwt/core/client/JavaScriptObject;I)(column, column.data, capacity);
+    }
+    this.capacity = capacity;
+  }-*/;
+
+  /**
+   * Returns a copy of a column's data with the given capacity. Unused slots
+   * are filled with the column's empty marker.
+   */
+  private static native JavaScriptObject resize(JavaScriptObject column,
+                                                JavaScriptObject data,
+                                                int capacity) /*-{
+    if (column.arrayType === Array) {
+      // Plain arrays grow in place. Unused slots read as undefined.
+      data = data || [];
+      data.length = capacity;
+      return data;
+    }
+    var resized = new column.arrayType(capacity);
+    if (data) {
+      resized.set(data.subarray(0, Math.min(data.length, capacity)));
+    }
+    for (var i = data ? data.length : 0; i < capacity; i++) {
+      resized[i] = column.empty;
+    }
+    return resized;
+  }-*/;
+
+  /**
+   * Creates a column for the given attribute, if the value can be stored in
+   * one, and exposes it as an accessor property on the views' prototype.
+   */
+  private native void addColumn(String attribute, Object value) /*-{
+    var column;
+    if (typeof(value) == 'number') {
+      column = (value | 0) === value ?
+          {arrayType: Int32Array, empty: 0, kind: 'int'} :
+          {arrayType: Float64Array, empty: NaN, kind: 'float'};
+    } else if (typeof(value) == 'boolean') {
+      column = {arrayType: Uint8Array, empty: 2, kind: 'bool'};
+    } else if (value && typeof(value) == 'object' &&
+               typeof(value.getTime) == 'function') {
+      column = {arrayType: Float64Array, empty: NaN, kind: 'date'};
+    } else if (typeof(value) == 'string') {
+      column = {arrayType: Int32Array, empty: -1, kind: 'code',
+                values: [], codes: Object.create(null)};
+    } else {
+      return;
+    }
+    column.data = @com.rhizospherejs.gwt.client.bridge.ColumnStore::resize(Lcom/google/gwt/core/client/JavaScriptObject;Lcom/google/gwt/core/client/JavaScriptObject;I)(column, null, this.capacity);
+    this.@com.rhizospherejs.gwt.client.bridge.ColumnStore::defineColumn(Ljava/lang/String;Lcom/google/gwt/core/client/JavaScriptObject;)(attribute, column);
+  }-*/;
+
+  /**
+   * Registers a column, whose data is already allocated, and exposes it as an
+   * accessor property on the views' prototype.
+   */
+  private native void defineColumn(String attribute, JavaScriptObject column) /*-{
+    this.columns[attribute] = column;
+
+    var store = this;
+    var shadow = function(view, value) {
+      Object.defineProperty(view, attribute, {
+        value: value, writable: true, enumerable: true, configurable: true
+      });
+    };
+    Object.defineProperty(this.proto, attribute, {
+      enumerable: true,
+      configurable: true,
+      get: function() {
+        var value = column.data[this.__rhizosphere_row];
+        switch (column.kind) {
+          case 'bool':
+            return value == 2 ? undefined : value == 1;
+          case 'date':
+            return value === value ? new Date(value) : undefined;
+          case 'float':
+            return value === value ? value : undefined;
+          case 'code':
+            return value < 0 ? undefined : column.values[value];
+          default:
+            return value;
+        }
+      },
+      set: function(value) {
+        var row = this.__rhizosphere_row;
+        switch (column.kind) {
+          case 'int':
+            if (typeof(value) != 'number') {
+              shadow(this, value);
+            } else if ((value | 0) !== value) {
+              column.kind = 'float';
+              column.arrayType = Float64Array;
+              column.empty = NaN;
+              column.data = @com.rhizospherejs.gwt.client.bridge.ColumnStore::resize(Lcom/google/gwt/core/client/JavaScriptObject;Lcom/google/gwt/core/client/JavaScriptObject;I)(column, column.data, column.data.length);
+              column.data[row] = value;
+            } else {
+              column.data[row] = value;
+            }
+            break;
+          case 'float':
+            if (typeof(value) == 'number') {
+              column.data[row] = value;
+            } else {
+              shadow(this, value);
+            }
+            break;
+          case 'bool':
+            if (typeof(value) == 'boolean') {
+              column.data[row] = value ? 1 : 0;
+            } else {
+              shadow(this, value);
+            }
+            break;
+          case 'date':
+            if (value && typeof(value) == 'object' &&
+                typeof(value.getTime) == 'function') {
+              column.data[row] = value.getTime();
+            } else {
+              shadow(this, value);
+            }
+            break;
+          case 'code':
+            if (typeof(value) != 'string') {
+              shadow(this, value);
+              break;
+            }
+            var code = column.codes[value];
+            if (code === undefined) {
+              if (column.values.length >= Math.max(
+                  @com.rhizospherejs.gwt.client.bridge.DictionaryEncoding::MIN_DICTIONARY_SIZE,
+                  store.numRows * @com.rhizospherejs.gwt.client.bridge.DictionaryEncoding::MAX_DICTIONARY_RATIO)) {
+                @com.rhizospherejs.gwt.client.bridge.ColumnStore::decode(Lcom/google/gwt/core/client/JavaScriptObject;)(column);
+                column.data[row] = value;
+                break;
+              }
+              code = column.values.length;
+              column.values.push(value);
+              column.codes[value] = code;
+              if (column.categories) {
+                column.categories.push(value);
+              }
+            }
+            column.data[row] = code;
+            break;
+          case 'string':
+            if (typeof(value) == 'string') {
+              column.data[row] = value;
+              if (column.categories && column.codes[value] === undefined) {
+                column.codes[value] = column.categories.length;
+                column.categories.push(value);
+              }
+            } else {
+              shadow(this, value);
+            }
+            break;
+        }
+      }
+    });
+  }-*/;
+
+  /**
+   * Abandons dictionary encoding for a column, replacing its codes with the
+   * values they stand for. The dictionary is withdrawn from the metamodel
+   * attribute it was exposed to, if any. If categories were derived from the
+   * dictionary, the distinct values seen so far are retained, so that
+   * categories keep growing with the new values.
+   */
+  private static native void decode(JavaScriptObject column) /*-{
+    var decoded = new Array(column.data.length);
+    for (var i = 0; i < column.data.length; i++) {
+      var code = column.data[i];
+      decoded[i] = code < 0 ? undefined : column.values[code];
+    }
+    column.kind = 'string';
+    column.arrayType = Array;
+    column.empty = undefined;
+    column.data = decoded;
+    delete column.values;
+    if (!column.categories) {
+      delete column.codes;
+    }
+    if (column.attribute) {
+      delete column.attribute['dictionary'];
+      delete column.attribute;
+    }
+  }-*/;
+}
@@ -0,0 +1,52 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client.bridge;
+
+/**
+ * Thresholds past which string attributes are no longer dictionary encoded,
+ * shared by {@link ColumnStore}, the parsing worker (via
+ * {@link ParsedPayload#newRequest}) and the server-side
+ * {@link com.rhizospherejs.gwt.server.BinaryModelEncoder}.
+ * <p>
+ * This class has no GWT dependency, so that server code can use it without
+ * the client classes on its classpath.
+ */
+public final class DictionaryEncoding {
+  private DictionaryEncoding() {}
+
+  /**
+   * Number of distinct values a dictionary can always hold, regardless of the
+   * number of models.
+   */
+  public static final int MIN_DICTIONARY_SIZE = 256;
+
+  /**
+   * Maximum ratio between the distinct values of a dictionary and the number
+   * of models, past which dictionary encoding is abandoned.
+   */
+  public static final double MAX_DICTIONARY_RATIO = 0.25;
+
+  /**
+   * Returns the number of distinct values a dictionary can hold before
+   * encoding is abandoned.
+   *
+   * @param numModels The number of models the dictionary encodes values of.
+   */
+  public static double getMaxDictionarySize(int numModels) {
+    return Math.max(MIN_DICTIONARY_SIZE, numModels * MAX_DICTIONARY_RATIO);
+  }
+}
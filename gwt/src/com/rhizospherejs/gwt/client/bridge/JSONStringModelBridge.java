@@ -17,6 +17,8 @@
 package com.rhizospherejs.gwt.client.bridge;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.json.client.JSONArray;
 import com.google.gwt.json.client.JSONException;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONParser;
@@ -25,6 +27,10 @@ import com.google.gwt.json.client.JSONParser;
  * A stock {@link ModelBridge} to convert model objects which are defined as
  * JSON Strings. When strictly parsed, the Strings must convert to valid
  * JSON Objects or JSONExceptions will be thrown.
+ * <p>
+ * Large datasets can also be delivered as a single JSON array payload (see
+ * {@link #bridgePayload(String, ModelStore, JsArray)}), which is parsed in
+ * one go and whose objects are handed over to Rhizosphere as they are.
  * @author battlehorse@google.com (Riccardo Govoni)
  */
 public class JSONStringModelBridge extends ModelBridge<String> {
@@ -43,6 +49,158 @@ public class JSONStringModelBridge extends ModelBridge<String> {
     return jsonModel.getJavaScriptObject();
   }
 
+  /**
+   * Parses a JSON array payload and appends all the objects it contains to
+   * the given store, in a single native pass. Models whose id is already in
+   * the store are merged into their existing counterpart, as
+   * {@link #bridgeInto(String, ModelStore)} does.
+   * <p>
+   * Models added this way are never split into individual JSON strings: the
+   * string returned by {@link #extractModel(JavaScriptObject)} for them is
+   * serialized on demand.
+   *
+   * @param payload A JSON array of JSON objects.
+   * @param store The store that will receive the parsed models.
+   * @param updates Receives the outcome of each merge.
+   * @throws JSONException If the payload is not a JSON array, or any of its
+   *     elements is not a JSON object.
+   */
+  public void bridgePayload(String payload,
+                            ModelStore store,
+                            JsArray<ModelUpdate> updates) {
+    JsArray<JavaScriptObject> duplicates = bindAll(parseArray(payload), store, false);
+    for (int i = 0; i < duplicates.length(); i++) {
+      JavaScriptObject model = duplicates.get(i);
+      updates.push(merge(model, store.findById(model), null));
+    }
+  }
+
+  /**
+   * Appends all the models of a payload parsed off the UI thread to the given
+   * store. If columnar mode is enabled, the parsed columns are adopted by the
+   * column store without any copy, when possible. Models whose id is already
+   * in the store are merged into their existing counterpart.
+   *
+   * @param parsed The parsed payload.
+   * @param store The store that will receive the parsed models.
+   * @param updates Receives the outcome of each merge.
+   */
+  public void bridgeParsed(ParsedPayload parsed,
+                           ModelStore store,
+                           JsArray<ModelUpdate> updates) {
+    JsArray<JavaScriptObject> jsModels = null;
+    if (getColumnStore() != null) {
+      jsModels = getColumnStore().importColumns(parsed);
+    }
+    if (jsModels == null) {
+      jsModels = parsed.materialize();
+    }
+    JsArray<JavaScriptObject> duplicates = bindAll(jsModels, store, false);
+    for (int i = 0; i < duplicates.length(); i++) {
+      JavaScriptObject model = duplicates.get(i);
+      updates.push(merge(model, store.findById(model), null));
+    }
+    if (getColumnStore() != null) {
+      // Rows allocated to duplicate models are no longer needed.
+      getColumnStore().releaseAll(duplicates);
+    }
+  }
+
+  /**
+   * Parses a JSON array payload, using the browser native JSON parser when
+   * available, and verifies that all its elements are JSON objects.
+   *
+   * @param payload A JSON array of JSON objects.
+   * @return The parsed objects.
+   * @throws JSONException If the payload is not a JSON array, or any of its
+   *     elements is not a JSON object.
+   */
+  public static JsArray<JavaScriptObject> parseArray(String payload) {
+    JsArray<JavaScriptObject> models;
+    if (hasNativeJSON()) {
+      models = nativeParseArray(payload);
+      if (models == null) {
+        throw new JSONException("Received payload is not a JSON Array");
+      }
+    } else {
+      JSONArray jsonModels = JSONParser.parseStrict(payload).isArray();
+      if (jsonModels == null) {
+        throw new JSONException("Received payload is not a JSON Array");
+      }
+      models = jsonModels.getJavaScriptObject().cast();
+    }
+    int invalid = findInvalidModel(models);
+    if (invalid >= 0) {
+      throw new JSONException(
+          "Element " + invalid + " of the received payload is not a JSON Object");
+    }
+    return models;
+  }
+
+  /**
+   * Returns the model the given JavaScriptObject was generated from. Models
+   * that were added in bulk, via
+   * {@link #bridgePayload(String, ModelStore, JsArray)} or
+   * {@link #bridgeParsed(ParsedPayload, ModelStore, JsArray)}, are serialized
+   * back into a JSON string.
+   */
+  @Override
+  public String extractModel(JavaScriptObject jso) {
+    String model = super.extractModel(jso);
+    return model != null ? model : serialize(jso);
+  }
+
+  private static native boolean hasNativeJSON() /*-{
+    return typeof(JSON) == 'object' && typeof(JSON.parse) == 'function';
+  }-*/;
+
+  /**
+   * Parses the payload, returning null if it is not valid JSON or not an
+   * array.
+   */
+  private static native JsArray<JavaScriptObject> nativeParseArray(String payload) /*-{
+    var parsed;
+    try {
+      parsed = JSON.parse(payload);
+    } catch (e) {
+      return null;
+    }
+    return Object.prototype.toString.call(parsed) == '[object Array]' ? parsed : null;
+  }-*/;
+
+  /**
+   * Returns the position of the first element which is not a JSON object, or
+   * -1 if all elements are.
+   */
+  private static native int findInvalidModel(JsArray<JavaScriptObject> models) /*-{
+    for (var i = 0, len = models.length; i < len; i++) {
+      var model = models[i];
+      if (!model || typeof(model) != 'object' ||
+          Object.prototype.toString.call(model) == '[object Array]') {
+        return i;
+      }
+    }
+    return -1;
+  }-*/;
+
+  /**
+   * Serializes a model into JSON, including the attributes inherited from a
+   * column store view and excluding the ones used internally by Rhizosphere.
+   */
+  private static String serialize(JavaScriptObject jso) {
+    return new JSONObject(copyAttributes(jso)).toString();
+  }
+
+  private static native JavaScriptObject copyAttributes(JavaScriptObject jso) /*-{
+    var copy = {};
+    for (var key in jso) {
+      if (key.indexOf('__') != 0 && typeof(jso[key]) != 'function') {
+        copy[key] = jso[key];
+      }
+    }
+    return copy;
+  }-*/;
+
   @SuppressWarnings("unchecked")
   public <T> T cast() {
     return (T) this;
@@ -17,6 +17,7 @@
 package com.rhizospherejs.gwt.client.bridge;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
 
 /**
  * A stock {@link ModelBridge} to convert model objects which are already
@@ -35,6 +36,31 @@ public class JavaScriptObjectModelBridge extends ModelBridge<JavaScriptObject> {
     return model;
   }
 
+  /**
+   * Models are handed over to Rhizosphere as they are, hence they cannot be
+   * moved into a column store.
+   */
+  @Override
+  public boolean supportsColumnStore() {
+    return false;
+  }
+
+  /**
+   * Since no conversion is required, binds the whole batch of models and
+   * appends them to the store in a single native pass. Only the models whose
+   * id is already in the store go through a regular merge.
+   */
+  @Override
+  public void bridgeAll(JsArray<? extends JavaScriptObject> models,
+                        ModelStore store,
+                        JsArray<ModelUpdate> updates) {
+    JsArray<JavaScriptObject> duplicates = bindAll(models, store, true);
+    for (int i = 0; i < duplicates.length(); i++) {
+      JavaScriptObject model = duplicates.get(i);
+      updates.push(merge(model, store.findById(model), model));
+    }
+  }
+
   @SuppressWarnings("unchecked")
   public <T> T cast() {
     return (T) this;
@@ -16,13 +16,19 @@
 
 package com.rhizospherejs.gwt.client.bridge;
 
+import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayBoolean;
+import com.google.gwt.core.client.JsArrayInteger;
 import com.google.gwt.core.client.JsArrayMixed;
+import com.google.gwt.core.client.JsArrayNumber;
+import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.core.client.JsDate;
 
 import com.rhizospherejs.gwt.client.RhizosphereKind;
 import com.rhizospherejs.gwt.rebind.BridgeType;
 
+import java.util.Collection;
 import java.util.Date;
 
 /**
@@ -44,9 +50,15 @@ import java.util.Date;
  * #setObjectArray(String, Object[]) to define their custom conversion logic
  * for Java types that are unsupported by the default JsoBuilder.
  * <p>
- * <strong>NOTE</strong>: the code generator already support array types for
- * any native type, but Rhizosphere does not yet. Hence we do not expose any
- * array setters here.
+ * Arrays of primitive types and strings have dedicated setters, which port
+ * them as native javascript arrays. Arrays of any other type go through
+ * #setObjectArray(String, Object[]).
+ * <p>
+ * Boxed primitives are unboxed (a {@code null} value leaves the attribute
+ * undefined), {@code long} values are converted to doubles, enums are ported
+ * as the name of their constant and collections as native javascript arrays,
+ * so that no Java object ends up in the generated models unless the
+ * attribute type is opaque to Rhizosphere.
  *
  * @author battlehorse@google.com (Riccardo Govoni)
  */
@@ -102,7 +114,9 @@ public class JsoBuilder {
   }-*/;
 
   /**
-   * Sets a String on the target JavaScriptObject.
+   * Sets a String on the target JavaScriptObject. When the model bridge runs
+   * in columnar mode, the value is later dictionary encoded (see
+   * {@link ColumnStore}).
    * @param attribute The name of the variable that will store the value.
    * @param value
    */
@@ -121,6 +135,110 @@ public class JsoBuilder {
     nativeSetObject(target, attribute, JsDate.create(value.getTime()));
   }
 
+  /**
+   * Sets a long on the target JavaScriptObject, converted to a double.
+   * Precision is lost for values beyond 2^53.
+   * @param attribute The name of the variable that will store the value.
+   * @param value
+   */
+  @BridgeType(rhizosphereKind = RhizosphereKind.NUMBER)
+  public final void setLong(String attribute, long value) {
+    setDouble(attribute, (double) value);
+  }
+
+  /**
+   * Sets a boxed integer on the target JavaScriptObject.
+   * @param attribute The name of the variable that will store the value.
+   * @param value The value to set. If {@code null}, the attribute is not set.
+   */
+  @BridgeType(rhizosphereKind = RhizosphereKind.NUMBER)
+  public final void setBoxedInteger(String attribute, Integer value) {
+    if (value != null) {
+      setInteger(attribute, value.intValue());
+    }
+  }
+
+  /**
+   * Sets a boxed long on the target JavaScriptObject, converted to a double.
+   * @param attribute The name of the variable that will store the value.
+   * @param value The value to set. If {@code null}, the attribute is not set.
+   */
+  @BridgeType(rhizosphereKind = RhizosphereKind.NUMBER)
+  public final void setBoxedLong(String attribute, Long value) {
+    if (value != null) {
+      setDouble(attribute, value.doubleValue());
+    }
+  }
+
+  /**
+   * Sets a boxed float on the target JavaScriptObject.
+   * @param attribute The name of the variable that will store the value.
+   * @param value The value to set. If {@code null}, the attribute is not set.
+   */
+  @BridgeType(rhizosphereKind = RhizosphereKind.DECIMAL)
+  public final void setBoxedFloat(String attribute, Float value) {
+    if (value != null) {
+      setFloat(attribute, value.floatValue());
+    }
+  }
+
+  /**
+   * Sets a boxed double on the target JavaScriptObject.
+   * @param attribute The name of the variable that will store the value.
+   * @param value The value to set. If {@code null}, the attribute is not set.
+   */
+  @BridgeType(rhizosphereKind = RhizosphereKind.DECIMAL)
+  public final void setBoxedDouble(String attribute, Double value) {
+    if (value != null) {
+      setDouble(attribute, value.doubleValue());
+    }
+  }
+
+  /**
+   * Sets a boxed boolean on the target JavaScriptObject.
+   * @param attribute The name of the variable that will store the value.
+   * @param value The value to set. If {@code null}, the attribute is not set.
+   */
+  @BridgeType(rhizosphereKind = RhizosphereKind.BOOLEAN)
+  public final void setBoxedBoolean(String attribute, Boolean value) {
+    if (value != null) {
+      setBoolean(attribute, value.booleanValue());
+    }
+  }
+
+  /**
+   * Sets an enum on the target JavaScriptObject, as the name of the enum
+   * constant. Enum attributes are categories, whose values are the enum
+   * constants.
+   * @param attribute The name of the variable that will store the value.
+   * @param value The value to set. If {@code null}, the attribute is not set.
+   */
+  @BridgeType(rhizosphereKind = RhizosphereKind.CATEGORY)
+  public final void setEnum(String attribute, Enum<?> value) {
+    if (value != null) {
+      setString(attribute, value.name());
+    }
+  }
+
+  /**
+   * Sets a collection on the target JavaScriptObject, as a native javascript
+   * array. Elements are converted as
+   * {@link #setObjectArray(String, Object[])} does.
+   * @param attribute The name of the variable that will store the value.
+   * @param value
+   */
+  @BridgeType
+  public final void setCollection(String attribute, Collection<?> value) {
+    JsArrayMixed array = null;
+    if (value != null) {
+      array = JavaScriptObject.createArray().cast();
+      for (Object element : value) {
+        pushElement(array, element);
+      }
+    }
+    nativeSetObject(target, attribute, array);
+  }
+
   /**
    * Sets a JavaScriptObject on the target JavaScriptObject.
    * @param attribute The name of the variable that will store the value.
@@ -142,7 +260,123 @@ public class JsoBuilder {
   }-*/;
 
   /**
-   * Sets an opaque array of objects on the target JavaScriptObject.
+   * Sets an array of integers on the target JavaScriptObject, as a native
+   * javascript array.
+   * @param attribute The name of the variable that will store the value.
+   * @param value
+   */
+  @BridgeType
+  public final void setIntArray(String attribute, int[] value) {
+    JsArrayInteger array = null;
+    if (value != null && GWT.isScript()) {
+      array = copyOf(value).cast();
+    } else if (value != null) {
+      array = JavaScriptObject.createArray().cast();
+      for (int i = 0; i < value.length; i++) {
+        array.push(value[i]);
+      }
+    }
+    nativeSetObject(target, attribute, array);
+  }
+
+  /**
+   * Sets an array of longs on the target JavaScriptObject, as a native
+   * javascript array of doubles.
+   * @param attribute The name of the variable that will store the value.
+   * @param value
+   */
+  @BridgeType
+  public final void setLongArray(String attribute, long[] value) {
+    JsArrayNumber array = null;
+    if (value != null) {
+      array = JavaScriptObject.createArray().cast();
+      for (int i = 0; i < value.length; i++) {
+        array.push((double) value[i]);
+      }
+    }
+    nativeSetObject(target, attribute, array);
+  }
+
+  /**
+   * Sets an array of floats on the target JavaScriptObject, as a native
+   * javascript array.
+   * @param attribute The name of the variable that will store the value.
+   * @param value
+   */
+  @BridgeType
+  public final void setFloatArray(String attribute, float[] value) {
+    JsArrayNumber array = null;
+    if (value != null && GWT.isScript()) {
+      array = copyOf(value).cast();
+    } else if (value != null) {
+      array = JavaScriptObject.createArray().cast();
+      for (int i = 0; i < value.length; i++) {
+        array.push(value[i]);
+      }
+    }
+    nativeSetObject(target, attribute, array);
+  }
+
+  /**
+   * Sets an array of doubles on the target JavaScriptObject, as a native
+   * javascript array.
+   * @param attribute The name of the variable that will store the value.
+   * @param value
+   */
+  @BridgeType
+  public final void setDoubleArray(String attribute, double[] value) {
+    JsArrayNumber array = null;
+    if (value != null && GWT.isScript()) {
+      array = copyOf(value).cast();
+    } else if (value != null) {
+      array = JavaScriptObject.createArray().cast();
+      for (int i = 0; i < value.length; i++) {
+        array.push(value[i]);
+      }
+    }
+    nativeSetObject(target, attribute, array);
+  }
+
+  /**
+   * Sets an array of booleans on the target JavaScriptObject, as a native
+   * javascript array.
+   * @param attribute The name of the variable that will store the value.
+   * @param value
+   */
+  @BridgeType
+  public final void setBooleanArray(String attribute, boolean[] value) {
+    JsArrayBoolean array = null;
+    if (value != null) {
+      array = JavaScriptObject.createArray().cast();
+      for (int i = 0; i < value.length; i++) {
+        array.push(value[i]);
+      }
+    }
+    nativeSetObject(target, attribute, array);
+  }
+
+  /**
+   * Sets an array of strings on the target JavaScriptObject, as a native
+   * javascript array.
+   * @param attribute The name of the variable that will store the value.
+   * @param value
+   */
+  @BridgeType
+  public final void setStringArray(String attribute, String[] value) {
+    JsArrayString array = null;
+    if (value != null) {
+      array = JavaScriptObject.createArray().cast();
+      for (int i = 0; i < value.length; i++) {
+        array.push(value[i]);
+      }
+    }
+    nativeSetObject(target, attribute, array);
+  }
+
+  /**
+   * Sets an array of objects on the target JavaScriptObject, as a native
+   * javascript array. Strings, boxed primitives and enums are converted to
+   * native values, other elements are stored as opaque objects.
    * @param attribute The name of the variable that will store the value.
    * @param value
    */
@@ -151,6 +385,16 @@ public class JsoBuilder {
     nativeSetObject(target, attribute, convertToJsArrayObject(value));
   }
 
+  /**
+   * Returns a plain javascript copy of a Java array of numbers, in a single
+   * native call. Only usable in production mode, where such arrays are
+   * javascript arrays (which must not be shared with Rhizosphere as they
+   * are). In dev mode they are opaque to native code.
+   */
+  private static native JavaScriptObject copyOf(Object array) /*-{
+    return array.slice(0);
+  }-*/;
+
   private native void nativeSetObject(JavaScriptObject target,
                                       String attribute,
                                       JavaScriptObject value) /*-{
@@ -163,11 +407,29 @@ public class JsoBuilder {
     }
     JsArrayMixed array = JavaScriptObject.createArray().cast();
     for (int i = 0; i < value.length; i++) {
-      nativeArrayPush(array, value[i]);
+      pushElement(array, value[i]);
     }
     return array;
   }
 
+  /**
+   * Appends an element to a javascript array, converting strings, boxed
+   * primitives and enums to native values.
+   */
+  private void pushElement(JsArrayMixed array, Object element) {
+    if (element instanceof String) {
+      array.push((String) element);
+    } else if (element instanceof Number) {
+      array.push(((Number) element).doubleValue());
+    } else if (element instanceof Boolean) {
+      array.push(((Boolean) element).booleanValue());
+    } else if (element instanceof Enum<?>) {
+      array.push(((Enum<?>) element).name());
+    } else {
+      nativeArrayPush(array, element);
+    }
+  }
+
   private native void nativeArrayPush(JsArrayMixed array, Object value) /*-{
     array.push(value);
   }-*/;
@@ -17,13 +17,19 @@
 package com.rhizospherejs.gwt.client.bridge;
 
 import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayString;
+
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * A ModelBridge is responsible for converting a Java object representing a
  * Rhizosphere model into a JavaScriptObject that the Rhizosphere javascript
  * library can use. ModelBridge also implements {@link ModelExtractor}.
  * It is therefore also capable of the reverse process of extracting the
- * original Java instance from a generated JavaScriptObject.
+ * original Java instance from a generated JavaScriptObject, via the
+ * {@link ModelRegistry} that tracks all the converted objects.
  * <p>
  * Apart from a few stock model bridges for generic cases (see
  * {@link JavaScriptObjectModelBridge}), all model bridges will be
@@ -41,6 +47,23 @@ public abstract class ModelBridge<T> implements ModelExtractor<T> {
    */
   private JsoBuilder builder;
 
+  /**
+   * The column store the generated JavaScriptObjects are moved into, if
+   * columnar mode is enabled.
+   */
+  private ColumnStore columns;
+
+  /**
+   * Which of the {@link #getProjectableAttributes()} are bridged, or
+   * {@code null} if all of them are.
+   */
+  private boolean[] projection;
+
+  /**
+   * Tracks the Java objects converted by this bridge.
+   */
+  private ModelRegistry<T> registry = new ModelRegistry<T>();
+
   /**
    * Creates a new instance.
    * @param builder A JavaScriptObject builder that the bridge might use to
@@ -62,10 +85,97 @@ public abstract class ModelBridge<T> implements ModelExtractor<T> {
    * @return The generated JavaScriptObject.
    */
   public JavaScriptObject bridge(T model) {
+    return bind(bridgeInternal(model, builder), model);
+  }
+
+  /**
+   * Converts a model and adds the generated JavaScriptObject to the given
+   * store. If the store already contains a model with the same id, the
+   * outcome is merged into it instead (see
+   * {@link #merge(JavaScriptObject, JavaScriptObject, Object)}).
+   *
+   * @param model The object to convert.
+   * @param store The store that will receive the generated JavaScriptObject.
+   * @return The outcome of the merge, or {@code null} if the model was new and
+   *     has been added to the store.
+   */
+  public ModelUpdate bridgeInto(T model, ModelStore store) {
     JavaScriptObject jsModel = bridgeInternal(model, builder);
-    bindJsToModel(jsModel, model);
-    ensureModelId(jsModel);
-    return jsModel;
+    JavaScriptObject existing = store.findById(jsModel);
+    if (existing == null) {
+      store.add(bind(jsModel, model));
+      return null;
+    }
+    return merge(jsModel, existing, model);
+  }
+
+  /**
+   * Converts a batch of models and appends the generated JavaScriptObjects to
+   * the given store, merging the models whose id is already in the store as
+   * {@link #bridgeInto(Object, ModelStore)} does. Only meaningful for bridges
+   * whose models are themselves JavaScriptObjects. Subclasses that can convert
+   * the whole batch in a single pass should override this method.
+   *
+   * @param models The objects to convert.
+   * @param store The store that will receive the generated JavaScriptObjects.
+   * @param updates Receives the outcome of each merge.
+   */
+  @SuppressWarnings("unchecked")
+  public void bridgeAll(JsArray<? extends JavaScriptObject> models,
+                        ModelStore store,
+                        JsArray<ModelUpdate> updates) {
+    for (int i = 0; i < models.length(); i++) {
+      ModelUpdate update = bridgeInto((T) (Object) models.get(i), store);
+      if (update != null) {
+        updates.push(update);
+      }
+    }
+  }
+
+  /**
+   * Merges a freshly bridged model into the JavaScriptObject a previous
+   * version of the same model was converted into, so that references to it
+   * held by Rhizosphere stay valid. Only the attributes whose value differs
+   * are overwritten.
+   *
+   * @param jsModel The freshly bridged model.
+   * @param target The JavaScriptObject to merge into.
+   * @param model The model {@code jsModel} was converted from.
+   * @return The outcome of the merge.
+   */
+  public ModelUpdate merge(JavaScriptObject jsModel, JavaScriptObject target, T model) {
+    JsArrayString changedAttributes = mergeInto(jsModel, target, columns);
+    registry.set(getRegistryId(target), model);
+    return ModelUpdate.create(target, changedAttributes);
+  }
+
+  /**
+   * Converts again a model that was previously bridged into the given store,
+   * and merges the outcome into the JavaScriptObject the model was originally
+   * converted into, so that references to it held by Rhizosphere stay valid.
+   * Only the attributes whose value differs are overwritten.
+   *
+   * @param model The model to convert.
+   * @param store The store containing the JavaScriptObjects previously
+   *     generated by this bridge.
+   * @return The outcome of the update, or {@code null} if the model was never
+   *     bridged into the store.
+   */
+  public ModelUpdate rebridge(T model, ModelStore store) {
+    JavaScriptObject jsModel = bridgeInternal(model, builder);
+    if (!hasModelId(jsModel)) {
+      // The model was assigned its registry id as Rhizosphere id.
+      int registryId = registry.indexOf(model);
+      if (registryId < 0) {
+        return null;
+      }
+      setModelId(jsModel, registryId);
+    }
+    JavaScriptObject target = store.findById(jsModel);
+    if (target == null) {
+      return null;
+    }
+    return merge(jsModel, target, model);
   }
 
   /**
@@ -78,33 +188,366 @@ public abstract class ModelBridge<T> implements ModelExtractor<T> {
    */
   protected abstract JavaScriptObject bridgeInternal(T model, JsoBuilder builder);
 
+  /**
+   * Returns whether this bridge defers the conversion of lazy attributes
+   * until they are first read. Bridges that do not support it convert lazy
+   * attributes right away, when they are defined (see
+   * {@link #defineLazyAttribute(JavaScriptObject, String, Object, int)}).
+   * Generated bridges support lazy attributes.
+   */
+  protected boolean supportsLazyAttributes() {
+    return false;
+  }
+
+  /**
+   * Subclasses that define lazy attributes (see
+   * {@link #defineLazyAttribute(JavaScriptObject, String, Object, int)}) to
+   * implement their conversion logic, which is invoked the first time each
+   * lazy attribute is read, or right away if the bridge does not support
+   * lazy attributes. The default implementation converts nothing.
+   *
+   * @param model The model object the attribute is extracted from.
+   * @param index The index the attribute was defined with.
+   * @param builder A JavaScriptObject builder, whose target is already set
+   *     to the JavaScriptObject that receives the attribute.
+   */
+  protected void bridgeLazyAttribute(T model, int index, JsoBuilder builder) {
+  }
+
+  /**
+   * Defines an attribute of a generated JavaScriptObject whose value is
+   * converted only the first time it is read, via
+   * {@link #bridgeLazyAttribute(Object, int, JsoBuilder)}. The converted value
+   * then replaces the property accessor, so that the conversion happens at
+   * most once. Assigning or deleting the attribute before it is read
+   * discards the conversion.
+   * <p>
+   * On browsers that do not support ES5 property accessors, or if the bridge
+   * does not support lazy attributes (see {@link #supportsLazyAttributes()}),
+   * the attribute is converted right away.
+   *
+   * @param target The JavaScriptObject to define the attribute on.
+   * @param attribute The attribute name.
+   * @param model The model object the attribute is extracted from.
+   * @param index An index that identifies the attribute to
+   *     {@link #bridgeLazyAttribute(Object, int, JsoBuilder)}.
+   */
+  protected final native void defineLazyAttribute(JavaScriptObject target,
+                                                  String attribute,
+                                                  T model,
+                                                  int index) /*-{
+    var bridge = this;
+    var resolve = function(jsModel) {
+      bridge.@com.rhizospherejs.gwt.client.bridge.ModelBridge::resolveLazyAttribute(Lcom/google/gwt/core/client/JavaScriptObject;Ljava/lang/Object;I)(
+          jsModel, model, index);
+    };
+    if (!this.@com.rhizospherejs.gwt.client.bridge.ModelBridge::supportsLazyAttributes()()) {
+      resolve(target);
+      return;
+    }
+    try {
+      Object.defineProperty(target, attribute, {
+        get: $entry(function() {
+          // Drop the accessor first, so that the builder assigns a plain
+          // value (or nothing at all, for null values).
+          delete this[attribute];
+          resolve(this);
+          return this[attribute];
+        }),
+        set: function(value) {
+          Object.defineProperty(this, attribute, {
+            value: value, writable: true, enumerable: true, configurable: true
+          });
+        },
+        enumerable: true,
+        configurable: true
+      });
+    } catch (e) {
+      resolve(target);
+    }
+  }-*/;
+
+  private void resolveLazyAttribute(JavaScriptObject jsModel, T model, int index) {
+    builder.setTarget(jsModel);
+    bridgeLazyAttribute(model, index, builder);
+  }
+
+  /**
+   * Returns the names of the attributes this bridge is able to skip, in a
+   * fixed order, or {@code null} if the bridge does not support projections.
+   * Generated bridges list all the attributes annotated on the POJO.
+   */
+  protected String[] getProjectableAttributes() {
+    return null;
+  }
+
+  /**
+   * Returns which of the {@link #getProjectableAttributes()} must be bridged,
+   * or {@code null} if all of them must be.
+   */
+  protected final boolean[] getProjection() {
+    return projection;
+  }
+
+  /**
+   * Returns whether this bridge can skip attributes not part of a projection.
+   */
+  public boolean supportsProjection() {
+    return getProjectableAttributes() != null;
+  }
+
+  /**
+   * Restricts the attributes of the JavaScriptObjects generated from now on
+   * to the given ones. The getters of the other attributes are not even
+   * invoked. The model id is always bridged, as are custom attributes (see
+   * {@link com.rhizospherejs.gwt.client.CustomRhizosphereModel}). Ignored by
+   * bridges that do not support projections.
+   *
+   * @param attributes The names of the attributes to bridge, or {@code null}
+   *     to bridge all of them.
+   */
+  public void setProjection(JsArrayString attributes) {
+    String[] projectableAttributes = getProjectableAttributes();
+    if (attributes == null || projectableAttributes == null) {
+      projection = null;
+      return;
+    }
+    Set<String> activeAttributes = new HashSet<String>();
+    for (int i = 0; i < attributes.length(); i++) {
+      activeAttributes.add(attributes.get(i));
+    }
+    projection = new boolean[projectableAttributes.length];
+    for (int i = 0; i < projectableAttributes.length; i++) {
+      projection[i] = activeAttributes.contains(projectableAttributes[i]);
+    }
+  }
+
+  /**
+   * Enables columnar mode: the numeric, boolean and date attributes of the
+   * JavaScriptObjects generated from now on are stored in the given column
+   * store, rather than on each object. See {@link ColumnStore} for details.
+   *
+   * @param columns The column store to use, or {@code null} to disable
+   *     columnar mode.
+   */
+  public void setColumnStore(ColumnStore columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Returns the column store used in columnar mode, or {@code null} if
+   * columnar mode is disabled.
+   */
+  public ColumnStore getColumnStore() {
+    return columns;
+  }
+
+  /**
+   * Returns whether this bridge can operate in columnar mode. Bridges that
+   * hand over to Rhizosphere the very objects they receive, rather than
+   * generating new ones, should return false.
+   */
+  public boolean supportsColumnStore() {
+    return true;
+  }
+
+  /**
+   * Returns the registry that tracks the Java objects converted by this
+   * bridge.
+   */
+  public ModelRegistry<T> getRegistry() {
+    return registry;
+  }
+
+  /**
+   * Releases the resources associated to JavaScriptObjects generated by this
+   * bridge, once they are no longer part of the visualization: their
+   * registry entries and, in columnar mode, their column store rows.
+   *
+   * @param jsModels The JavaScriptObjects to release.
+   */
+  public void releaseAll(JsArray<? extends JavaScriptObject> jsModels) {
+    for (int i = 0; i < jsModels.length(); i++) {
+      registry.release(getRegistryId(jsModels.get(i)));
+    }
+    if (columns != null) {
+      columns.releaseAll(jsModels);
+    }
+  }
+
+  /**
+   * Moves a generated JavaScriptObject into the column store, if columnar
+   * mode is enabled and it is not a view of the store already, and registers
+   * the model it was generated from. Models that do not define a Rhizosphere
+   * id are assigned their registry id.
+   *
+   * @return The JavaScriptObject that represents the model from now on.
+   */
+  protected final JavaScriptObject bind(JavaScriptObject jsModel, T model) {
+    if (columns != null && columns.getRow(jsModel) < 0) {
+      jsModel = columns.adopt(jsModel);
+    }
+    int registryId = registry.register(model);
+    setRegistryId(jsModel, registryId);
+    if (!hasModelId(jsModel)) {
+      setModelId(jsModel, registryId);
+    }
+    return jsModel;
+  }
+
+  /**
+   * Binds a batch of models that need no conversion, because they already are
+   * the JavaScriptObjects to hand over to Rhizosphere, and appends them to the
+   * store in a single native pass. Models whose id is already in the store are
+   * left untouched and returned instead, for the caller to merge.
+   *
+   * @param jsModels The models to bind.
+   * @param store The store that will receive the bound models.
+   * @param registerSelf Whether each JavaScriptObject is registered as the
+   *     model it was generated from. If {@code false}, {@code null} is
+   *     registered in its place.
+   * @return The models whose id was already in the store.
+   */
+  protected final native JsArray<JavaScriptObject> bindAll(
+      JsArray<? extends JavaScriptObject> jsModels,
+      ModelStore store,
+      boolean registerSelf) /*-{
+    var duplicates = [];
+    for (var i = 0, len = jsModels.length; i < len; i++) {
+      var jsModel = jsModels[i];
+      if (jsModel['id'] &&
+          store.@com.rhizospherejs.gwt.client.bridge.ModelStore::findById(Lcom/google/gwt/core/client/JavaScriptObject;)(jsModel)) {
+        duplicates.push(jsModel);
+      } else {
+        store.@com.rhizospherejs.gwt.client.bridge.ModelStore::add(Lcom/google/gwt/core/client/JavaScriptObject;)(
+            this.@com.rhizospherejs.gwt.client.bridge.ModelBridge::bind(Lcom/google/gwt/core/client/JavaScriptObject;Ljava/lang/Object;)(
+                jsModel, registerSelf ? jsModel : null));
+      }
+    }
+    return duplicates;
+  }-*/;
+
   @Override
   public T extractModel(JavaScriptObject jso) {
-    return nativeExtractModel(jso);
+    return registry.get(getRegistryId(jso));
   }
 
   /**
-   * Ensures that the generated JavaScriptObject has an assigned ID (mandatory
-   * for any Rhizosphere model object).
+   * Returns whether the generated JavaScriptObject has an assigned ID
+   * (mandatory for any Rhizosphere model object).
    */
-  private final native void ensureModelId(JavaScriptObject model) /*-{
-    if (!model['id']) {
-      model['id'] = model['__gwt_ObjectId'];
-    }
+  private static native boolean hasModelId(JavaScriptObject model) /*-{
+    return !!model['id'];
+  }-*/;
+
+  private static native void setModelId(JavaScriptObject model, int id) /*-{
+    model['id'] = id;
   }-*/;
 
   /**
-   * Stores a reference to the original wrapped object into the generated
-   * JavaScriptObject.
+   * Returns the registry id stored on a generated JavaScriptObject, or -1 if
+   * none is stored.
    */
-  private final native void bindJsToModel(JavaScriptObject target, T model) /*-{
-    target['__rhizosphere_Model'] = model;
+  private static native int getRegistryId(JavaScriptObject model) /*-{
+    var registryId = model['__rhizosphere_registryId'];
+    return typeof(registryId) == 'number' ? registryId : -1;
+  }-*/;
+
+  private static native void setRegistryId(JavaScriptObject model, int registryId) /*-{
+    model['__rhizosphere_registryId'] = registryId;
   }-*/;
 
   /**
-   * Extracts the original model object from the wrapping JavaScriptObject.
+   * Copies all the attributes of the source JavaScriptObject that differ from
+   * the target one into the target, removing from the target the attributes
+   * that no longer exist. The model id and GWT-internal attributes are left
+   * untouched. If source and target are the same object (the model was
+   * modified in place) all the attributes are assumed to have changed.
+   * Lazy attributes of the source that were not read yet are moved to the
+   * target as they are, and assumed to have changed, rather than converted
+   * for the sake of the comparison.
+   * If the target is a view of the given column store, the columns missing
+   * from the source are cleared in the store, and reported as changed only
+   * if they had a value.
+   *
+   * @return The names of the attributes that changed.
    */
-  private native T nativeExtractModel(JavaScriptObject jso) /*-{
-    return jso['__rhizosphere_Model'];
+  private static native JsArrayString mergeInto(JavaScriptObject source,
+                                                JavaScriptObject target,
+                                                ColumnStore columns) /*-{
+    var isInternal = function(key) {
+      return key == 'id' || key == '__gwt_ObjectId' ||
+          key == '__rhizosphere_registryId';
+    };
+    var sameValue = function(a, b) {
+      if (a === b) {
+        return true;
+      }
+      if (a && b && typeof(a.getTime) == 'function' &&
+          typeof(b.getTime) == 'function') {
+        return a.getTime() == b.getTime();
+      }
+      if (a && b && typeof(a) == 'object' && typeof(b) == 'object' &&
+          typeof(a.length) == 'number' && a.length === b.length) {
+        for (var i = 0; i < a.length; i++) {
+          if (a[i] !== b[i]) {
+            return false;
+          }
+        }
+        return true;
+      }
+      return false;
+    };
+
+    var changedAttributes = [];
+    var key;
+    if (source === target) {
+      for (key in target) {
+        if (!isInternal(key)) {
+          changedAttributes.push(key);
+        }
+      }
+      return changedAttributes;
+    }
+    var isLazy = function(key) {
+      var descriptor = Object.getOwnPropertyDescriptor &&
+          Object.getOwnPropertyDescriptor(source, key);
+      return !!(descriptor && descriptor.get);
+    };
+    for (key in source) {
+      if (isInternal(key)) {
+        continue;
+      }
+      if (isLazy(key)) {
+        delete target[key];
+        Object.defineProperty(target, key,
+                              Object.getOwnPropertyDescriptor(source, key));
+        changedAttributes.push(key);
+      } else if (!sameValue(source[key], target[key])) {
+        target[key] = source[key];
+        changedAttributes.push(key);
+      }
+    }
+    // Columns are inherited from the views' prototype, so deleting them from
+    // the target would have no effect: they are cleared in the store instead.
+    var isView = !!columns &&
+        columns.@com.rhizospherejs.gwt.client.bridge.ColumnStore::getRow(Lcom/google/gwt/core/client/JavaScriptObject;)(target) >= 0;
+    for (key in target) {
+      if (target.hasOwnProperty(key) && !isInternal(key) &&
+          !(key in source) &&
+          !(isView && columns.columns.hasOwnProperty(key))) {
+        delete target[key];
+        changedAttributes.push(key);
+      }
+    }
+    if (isView) {
+      for (key in columns.columns) {
+        if (!(key in source) &&
+            columns.@com.rhizospherejs.gwt.client.bridge.ColumnStore::clearValue(Lcom/google/gwt/core/client/JavaScriptObject;Ljava/lang/String;)(target, key)) {
+          changedAttributes.push(key);
+        }
+      }
+    }
+    return changedAttributes;
   }-*/;
 }
@@ -0,0 +1,133 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client.bridge;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the Java objects converted by a {@link ModelBridge}, assigning
+ * each one a dense integer id. The id is stored on the JavaScriptObject
+ * generated for the model, so that the original Java object can be retrieved
+ * from it with a plain array lookup.
+ * <p>
+ * Ids start from 1, so that they can double as Rhizosphere model ids (which
+ * must never be falsy) for models that do not define one. Ids of removed
+ * models are not reused until the registry is cleared, so that stale
+ * references never resolve to a different model. Owners should clear the
+ * registry once none of the registered models is in use anymore, since
+ * released ids are not reclaimed otherwise.
+ * <p>
+ * This class is for internal use. Users of the Rhizosphere library should not
+ * bother with this one.
+ *
+ * @param <T> The models' type.
+ */
+public class ModelRegistry<T> {
+
+  private List<T> models;
+
+  /**
+   * Maps each registered model to its id, by identity.
+   */
+  private Map<T, Integer> ids;
+
+  /**
+   * Creates a new, empty, registry.
+   */
+  public ModelRegistry() {
+    clear();
+  }
+
+  /**
+   * Registers a model.
+   *
+   * @param model The model to register.
+   * @return The id assigned to the model.
+   */
+  public int register(T model) {
+    models.add(model);
+    int id = models.size() - 1;
+    ids.put(model, id);
+    return id;
+  }
+
+  /**
+   * Returns the model registered with the given id, or {@code null} if no such
+   * model exists or it has been released.
+   */
+  public T get(int id) {
+    return id > 0 && id < models.size() ? models.get(id) : null;
+  }
+
+  /**
+   * Replaces the model registered with the given id.
+   */
+  public void set(int id, T model) {
+    if (id > 0 && id < models.size()) {
+      unmap(id);
+      models.set(id, model);
+      ids.put(model, id);
+    }
+  }
+
+  /**
+   * Returns the id of the given model, or -1 if the model is not registered.
+   * Models are matched by identity.
+   */
+  public int indexOf(T model) {
+    Integer id = ids.get(model);
+    return id != null ? id : -1;
+  }
+
+  /**
+   * Releases the model registered with the given id. The id will not be
+   * assigned again.
+   */
+  public void release(int id) {
+    if (id > 0 && id < models.size()) {
+      unmap(id);
+      models.set(id, null);
+    }
+  }
+
+  /**
+   * Releases all the registered models. Ids will be assigned again starting
+   * from 1.
+   */
+  public void clear() {
+    models = new ArrayList<T>();
+    models.add(null);  // Ids start from 1.
+    ids = new IdentityHashMap<T, Integer>();
+  }
+
+  /**
+   * Removes the identity mapping of the model registered with the given id,
+   * unless the same model has been registered again with a different id.
+   */
+  private void unmap(int id) {
+    T model = models.get(id);
+    if (model != null) {
+      Integer mapped = ids.get(model);
+      if (mapped != null && mapped == id) {
+        ids.remove(model);
+      }
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client.bridge;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+
+/**
+ * Native store for the JavaScriptObjects generated by {@link ModelBridge}
+ * instances. The store is a plain javascript array, so that models can be
+ * handed over to the underlying Rhizosphere javascript library as they are,
+ * without any intermediate copy. The store also maintains an index of its
+ * models keyed by their Rhizosphere id, for constant-time lookups.
+ * <p>
+ * This class is for internal use. Users of the Rhizosphere library should not
+ * bother with this one.
+ */
+public final class ModelStore extends JavaScriptObject {
+  protected ModelStore() {}
+
+  /**
+   * Creates a new, empty, model store.
+   */
+  public static ModelStore create() {
+    return JavaScriptObject.createArray().cast();
+  }
+
+  /**
+   * Appends a model to the store.
+   * @param model The JavaScriptObject generated by a {@link ModelBridge}.
+   */
+  public native void add(JavaScriptObject model) /*-{
+    this.push(model);
+    this.@com.rhizospherejs.gwt.client.bridge.ModelStore::index()()[model.id] = model;
+  }-*/;
+
+  /**
+   * Appends all the models contained in another store to this one.
+   * @param other The store to copy models from.
+   */
+  public native void addAll(ModelStore other) /*-{
+    Array.prototype.push.apply(this, other);
+    var index = this.@com.rhizospherejs.gwt.client.bridge.ModelStore::index()();
+    for (var i = 0; i < other.length; i++) {
+      index[other[i].id] = other[i];
+    }
+  }-*/;
+
+  /**
+   * Removes a set of models from the store. Models are matched by their
+   * Rhizosphere id. The ordering of the surviving models is preserved.
+   *
+   * @param models The models to remove.
+   * @return The number of models that were removed.
+   */
+  public native int removeAll(JsArray<? extends JavaScriptObject> models) /*-{
+    var removedIds = {};
+    for (var i = 0; i < models.length; i++) {
+      removedIds[models[i].id] = true;
+    }
+    var survivors = 0;
+    for (i = 0; i < this.length; i++) {
+      if (!(this[i].id in removedIds)) {
+        this[survivors++] = this[i];
+      }
+    }
+    var numRemoved = this.length - survivors;
+    this.length = survivors;
+    if (numRemoved > 0) {
+      var index = this.@com.rhizospherejs.gwt.client.bridge.ModelStore::index()();
+      for (var id in removedIds) {
+        delete index[id];
+      }
+    }
+    return numRemoved;
+  }-*/;
+
+  /**
+   * Returns the stored model that has the same Rhizosphere id as the given
+   * one, in constant time.
+   *
+   * @param model A bridged model.
+   * @return The stored model with the same id, or {@code null} if none exists.
+   */
+  public native JavaScriptObject findById(JavaScriptObject model) /*-{
+    var index = this.@com.rhizospherejs.gwt.client.bridge.ModelStore::index()();
+    var id = model['id'];
+    return (id && index.hasOwnProperty(id)) ? index[id] : null;
+  }-*/;
+
+  /**
+   * Returns the model stored at the given position.
+   */
+  public native JavaScriptObject get(int index) /*-{
+    return this[index];
+  }-*/;
+
+  /**
+   * Returns the number of models in the store.
+   */
+  public native int size() /*-{
+    return this.length;
+  }-*/;
+
+  /**
+   * Returns whether the store is empty.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns a new store containing the models stored from the given position
+   * onward.
+   */
+  public native ModelStore tail(int from) /*-{
+    var tail = this.slice(from);
+    var index = {};
+    for (var i = 0; i < tail.length; i++) {
+      index[tail[i].id] = tail[i];
+    }
+    tail.__rhizosphere_index = index;
+    return tail;
+  }-*/;
+
+  /**
+   * Returns the id index, creating it if needed.
+   */
+  private native JavaScriptObject index() /*-{
+    if (!this.__rhizosphere_index) {
+      this.__rhizosphere_index = {};
+    }
+    return this.__rhizosphere_index;
+  }-*/;
+
+  /**
+   * Returns the store contents as a javascript array. The returned array is
+   * the store itself, not a copy.
+   */
+  public JsArray<JavaScriptObject> asJsArray() {
+    return this.cast();
+  }
+}
@@ -0,0 +1,60 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client.bridge;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+/**
+ * Describes the outcome of bridging again a model that was already converted
+ * into a JavaScriptObject, as produced by
+ * {@link ModelBridge#merge(JavaScriptObject, JavaScriptObject, Object)}: the
+ * JavaScriptObject that has been updated and the list of attributes whose
+ * value changed.
+ * <p>
+ * This class is for internal use. Users of the Rhizosphere library should not
+ * bother with this one.
+ */
+public final class ModelUpdate extends JavaScriptObject {
+  protected ModelUpdate() {}
+
+  static native ModelUpdate create(JavaScriptObject model,
+                                   JsArrayString changedAttributes) /*-{
+    return {model: model, changedAttributes: changedAttributes};
+  }-*/;
+
+  /**
+   * Returns the JavaScriptObject that has been updated in place.
+   */
+  public native JavaScriptObject getModel() /*-{
+    return this.model;
+  }-*/;
+
+  /**
+   * Returns the names of the attributes whose value changed.
+   */
+  public native JsArrayString getChangedAttributes() /*-{
+    return this.changedAttributes;
+  }-*/;
+
+  /**
+   * Returns whether any attribute changed.
+   */
+  public boolean hasChanges() {
+    return getChangedAttributes().length() > 0;
+  }
+}
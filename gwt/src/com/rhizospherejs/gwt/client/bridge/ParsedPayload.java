@@ -0,0 +1,223 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client.bridge;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+
+import com.rhizospherejs.gwt.client.RhizosphereMetaModel;
+
+/**
+ * A JSON array of models that was parsed and validated off the UI thread, by
+ * the Web Worker that backs the JSON loading methods of
+ * {@link com.rhizospherejs.gwt.client.Rhizosphere}.
+ * <p>
+ * The numeric, boolean, string and single-valued category attributes that
+ * the metamodel declares are delivered as columns, in the same layout used by
+ * {@link ColumnStore}, so that they can be adopted by a column store without
+ * any copy. Binary payloads decoded by {@link BinaryModelDecoder} share the
+ * same structure. All other attributes are delivered as one object per model. The
+ * payload also carries some statistics about each columnar attribute, which
+ * are computed while parsing.
+ * <p>
+ * This class is for internal use. Users of the Rhizosphere library should not
+ * bother with this one.
+ */
+public final class ParsedPayload extends JavaScriptObject {
+  protected ParsedPayload() {}
+
+  /**
+   * Statistics about the values of an attribute.
+   */
+  public static final class Stats extends JavaScriptObject {
+    protected Stats() {}
+
+    /**
+     * Returns the number of models that have a value for the attribute.
+     */
+    public native int getCount() /*-{
+      return this.count;
+    }-*/;
+
+    /**
+     * Returns whether the attribute is numeric and at least one model has a
+     * value for it, in which case {@link #getMin()}, {@link #getMax()} and
+     * {@link #getMean()} are meaningful.
+     */
+    public native boolean hasRange() /*-{
+      return typeof(this.min) == 'number';
+    }-*/;
+
+    public native double getMin() /*-{
+      return this.min;
+    }-*/;
+
+    public native double getMax() /*-{
+      return this.max;
+    }-*/;
+
+    public native double getMean() /*-{
+      return this.sum / this.count;
+    }-*/;
+
+    /**
+     * Returns the number of distinct values of a string or category attribute,
+     * or -1 for other attributes.
+     */
+    public native int getDistinct() /*-{
+      return typeof(this.distinct) == 'number' ? this.distinct : -1;
+    }-*/;
+  }
+
+  /**
+   * Creates the message that instructs the worker to parse a payload.
+   *
+   * @param payload The JSON array to parse, or {@code null} if the worker
+   *     should fetch it from {@code url}.
+   * @param url The URL of the JSON array to parse, if {@code payload} is
+   *     {@code null}.
+   * @param metaModel The visualization metamodel, to validate the models
+   *     against. Can be {@code null}.
+   */
+  public static native JavaScriptObject newRequest(String payload,
+                                                   String url,
+                                                   RhizosphereMetaModel metaModel) /*-{
+    var attributes = {};
+    if (metaModel) {
+      for (var key in metaModel) {
+        var attribute = metaModel[key];
+        if (attribute && typeof(attribute['kind']) == 'string') {
+          attributes[key] = {kind: attribute['kind']};
+          if (attribute['enumConstants']) {
+            attributes[key].enumConstants = attribute['enumConstants'].slice();
+          }
+        }
+      }
+    }
+    return {
+      payload: payload,
+      url: url,
+      attributes: attributes,
+      minDictionarySize: @com.rhizospherejs.gwt.client.bridge.DictionaryEncoding::MIN_DICTIONARY_SIZE,
+      maxDictionaryRatio: @com.rhizospherejs.gwt.client.bridge.DictionaryEncoding::MAX_DICTIONARY_RATIO
+    };
+  }-*/;
+
+  /**
+   * Returns the number of models in the payload.
+   */
+  public native int getNumModels() /*-{
+    return this.numModels;
+  }-*/;
+
+  /**
+   * Returns the metamodel that came with the payload, or {@code null} if the
+   * payload did not carry one. Only binary payloads carry a metamodel (see
+   * {@link BinaryModelDecoder}).
+   */
+  public native RhizosphereMetaModel getMetaModel() /*-{
+    return this.metaModel || null;
+  }-*/;
+
+  /**
+   * Returns the statistics about the given attribute, or {@code null} if the
+   * attribute was not delivered as a column.
+   */
+  public native Stats getStats(String attribute) /*-{
+    return this.stats.hasOwnProperty(attribute) ? this.stats[attribute] : null;
+  }-*/;
+
+  /**
+   * Completes the metamodel with the information gathered while parsing:
+   * {@link com.rhizospherejs.gwt.client.RhizosphereKind#RANGE} attributes
+   * that do not define their range receive the minimum and maximum parsed
+   * values, and
+   * {@link com.rhizospherejs.gwt.client.RhizosphereKind#CATEGORY} attributes
+   * that do not define their categories receive the distinct parsed values.
+   *
+   * @param metaModel The visualization metamodel.
+   */
+  public native void describe(RhizosphereMetaModel metaModel) /*-{
+    for (var key in this.columns) {
+      var attribute = metaModel[key];
+      var stats = this.stats[key];
+      var column = this.columns[key];
+      if (!attribute) {
+        continue;
+      }
+      if (attribute['kind'] == 'range' && typeof(stats.min) == 'number' &&
+          typeof(attribute['min']) != 'number' &&
+          typeof(attribute['max']) != 'number') {
+        attribute['min'] = stats.min;
+        attribute['max'] = stats.max;
+      }
+      if (attribute['kind'] == 'category' && column.kind == 'code' &&
+          (!attribute['categories'] || attribute['categories'].length == 0)) {
+        attribute['categories'] = column.values.slice();
+        attribute['multiple'] = false;
+        attribute['isHierarchy'] = false;
+      }
+    }
+  }-*/;
+
+  /**
+   * Assembles one plain object per model, merging back the columnar
+   * attributes into the per-model objects. Used when the models cannot be
+   * adopted by a column store. The payload should not be used afterwards.
+   *
+   * @return The parsed models.
+   */
+  public native JsArray<JavaScriptObject> materialize() /*-{
+    var models = this.rest;
+    for (var key in this.columns) {
+      var column = this.columns[key];
+      for (var i = 0; i < models.length; i++) {
+        var value = column.data[i];
+        switch (column.kind) {
+          case 'int':
+            models[i][key] = value;
+            break;
+          case 'float':
+            if (value === value) {
+              models[i][key] = value;
+            }
+            break;
+          case 'date':
+            if (value === value) {
+              models[i][key] = new Date(value);
+            }
+            break;
+          case 'bool':
+            if (value != 2) {
+              models[i][key] = value == 1;
+            }
+            break;
+          case 'code':
+            if (value >= 0) {
+              models[i][key] = column.values[value];
+            }
+            break;
+          default:
+            if (value !== undefined) {
+              models[i][key] = value;
+            }
+        }
+      }
+    }
+    return models;
+  }-*/;
+}
@@ -0,0 +1,105 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client.handlers;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+
+/**
+ * Event to notify the progress of a Rhizosphere visualization deployment,
+ * when models are deployed incrementally in multiple batches (see
+ * {@link com.rhizospherejs.gwt.client.RhizosphereOptions#setIncrementalDeploy(boolean)}).
+ * <p>
+ * One event is fired after each batch of models has been rendered. A
+ * {@link ReadyEvent} follows once the last batch has been deployed. If the
+ * deployment fails, a last event reports the models deployed until then.
+ */
+public class ProgressEvent extends GwtEvent<ProgressEvent.Handler> {
+
+  /**
+   * Implemented by objects that handle {@link ProgressEvent}.
+   */
+  public interface Handler extends EventHandler {
+    void onProgress(ProgressEvent event);
+  }
+
+  /**
+   * The event type.
+   */
+  static Type<ProgressEvent.Handler> TYPE;
+
+  private int deployedModels;
+  private int totalModels;
+
+  private ProgressEvent(int deployedModels, int totalModels) {
+    this.deployedModels = deployedModels;
+    this.totalModels = totalModels;
+  }
+
+  /**
+   * @return The number of models deployed so far.
+   */
+  public int getDeployedModels() {
+    return deployedModels;
+  }
+
+  /**
+   * @return The total number of models being deployed.
+   */
+  public int getTotalModels() {
+    return totalModels;
+  }
+
+  /**
+   * Fires a {@link ProgressEvent} on all registered handlers in the handler
+   * source.
+   *
+   * @param source the source of the handlers
+   * @param deployedModels The number of models deployed so far.
+   * @param totalModels The total number of models being deployed.
+   */
+  public static void fire(HasProgressHandlers source,
+                          int deployedModels,
+                          int totalModels) {
+    if (TYPE != null) {
+      ProgressEvent event = new ProgressEvent(deployedModels, totalModels);
+      source.fireEvent(event);
+    }
+  }
+
+  /**
+   * Ensures the existence of the handler hook and then returns it.
+   *
+   * @return returns a handler hook
+   */
+  public static Type<ProgressEvent.Handler> getType() {
+    if (TYPE == null) {
+      TYPE = new Type<ProgressEvent.Handler>();
+    }
+    return TYPE;
+  }
+
+  @Override
+  protected void dispatch(Handler handler) {
+    handler.onProgress(this);
+  }
+
+  @Override
+  public com.google.gwt.event.shared.GwtEvent.Type<Handler> getAssociatedType() {
+    return TYPE;
+  }
+}
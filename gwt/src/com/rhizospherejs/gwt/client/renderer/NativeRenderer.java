@@ -104,6 +104,13 @@ public class NativeRenderer<T> {
     modelWidgetMap = new HashMap<JavaScriptObject, Widget>();
   }
 
+  /**
+   * Returns the GWT-land renderer bridged by this class.
+   */
+  public RhizosphereRenderer<T> getRenderer() {
+    return gwtRenderer;
+  }
+
   /**
    * Lazily defines the widget bridge. The widget bridge can be set only once,
    * so this method will throw an exception if the bridge was already set on
@@ -291,6 +298,42 @@ public class NativeRenderer<T> {
     }
   }
 
+  /**
+   * Forgets the rendering associated to the given model, after the model has
+   * been removed from the visualization.
+   *
+   * @param jso A JavaScriptObject wrapping the removed Rhizosphere model.
+   */
+  public void releaseRendering(JavaScriptObject jso) {
+    modelWidgetMap.remove(jso);
+  }
+
+  /**
+   * Forgets all the renderings tracked by this renderer, after they have been
+   * detached from the visualization. Renderings are produced again on demand.
+   *
+   * @return The number of renderings released.
+   */
+  public int releaseAllRenderings() {
+    int numRenderings = modelWidgetMap.size();
+    modelWidgetMap.clear();
+    return numRenderings;
+  }
+
+  /**
+   * Releases all the renderings tracked by this renderer, and unbinds it from
+   * its widget bridge and model extractor, so that it can be garbage collected
+   * (or bound to a different visualization).
+   *
+   * @return The number of renderings released.
+   */
+  public int dispose() {
+    int numRenderings = releaseAllRenderings();
+    widgetBridge = null;
+    modelExtractor = null;
+    return numRenderings;
+  }
+
   /**
    * Queries the GWT renderer managed by this class to determine whether it
    * supports expansion (maximization) of model renderings or not.
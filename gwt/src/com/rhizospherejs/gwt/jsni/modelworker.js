@@ -0,0 +1,307 @@
+/**
+  @license
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+/**
+ * Web Worker that parses a JSON array of Rhizosphere models off the UI
+ * thread, driven by com.rhizospherejs.gwt.client.WorkerModelLoader.
+ *
+ * The worker receives a message with the following fields:
+ * - payload: The JSON array to parse. Alternatively, 'url' can point to a
+ *     resource containing it, which the worker fetches by itself.
+ * - attributes: The metamodel attributes, as a map from attribute key to an
+ *     object with the attribute 'kind' and, optionally, its 'enumConstants'.
+ * - minDictionarySize, maxDictionaryRatio: The thresholds past which string
+ *     attributes are no longer dictionary encoded (see ColumnStore).
+ *
+ * Every model is validated against the kind of its attributes. The values of
+ * numeric, boolean, string and single-valued category attributes are moved
+ * into one column per attribute, using the same layout as ColumnStore:
+ * - 'float': Float64Array, NaN marks missing values.
+ * - 'bool': Uint8Array, 1 for true, 0 for false, 2 marks missing values.
+ * - 'code': Int32Array of dictionary codes, -1 marks missing values. The
+ *     'values' array lists the dictionary values, indexed by code.
+ * - 'string': Array of strings, for string attributes with too many distinct
+ *     values to be worth encoding.
+ * All the other attributes are left in per-model objects.
+ *
+ * The worker replies with either an 'error' message, or with the fields
+ * 'numModels', 'columns', 'rest' (the per-model objects) and 'stats' (a map
+ * from attribute key to the count of non-missing values and, depending on the
+ * attribute, their 'min', 'max' and 'sum' or the number of 'distinct'
+ * values). The buffers backing typed array columns are transferred, not
+ * copied.
+ */
+
+var COLUMN_KINDS = {
+  'number': 'float',
+  'range': 'float',
+  'boolean': 'bool',
+  'string': 'code',
+  'category': 'code'
+};
+
+self.onmessage = function(event) {
+  var request = event.data;
+  if (request.url) {
+    var xhr = new XMLHttpRequest();
+    xhr.open('GET', request.url, true);
+    xhr.onreadystatechange = function() {
+      if (xhr.readyState != 4) {
+        return;
+      }
+      if (xhr.status != 200) {
+        self.postMessage({error: 'Unable to fetch ' + request.url +
+                                 ' (HTTP ' + xhr.status + ')'});
+        return;
+      }
+      reply(xhr.responseText, request);
+    };
+    xhr.send(null);
+  } else {
+    reply(request.payload, request);
+  }
+};
+
+function reply(payload, request) {
+  var result;
+  try {
+    result = parse(payload, request);
+  } catch (e) {
+    self.postMessage({error: e.message || String(e)});
+    return;
+  }
+  var transfer = [];
+  for (var key in result.columns) {
+    var data = result.columns[key].data;
+    if (data.buffer) {
+      transfer.push(data.buffer);
+    }
+  }
+  try {
+    self.postMessage(result, transfer);
+  } catch (e) {
+    // Browsers without transferable objects support.
+    self.postMessage(result);
+  }
+}
+
+function isArray(value) {
+  return Object.prototype.toString.call(value) == '[object Array]';
+}
+
+function parse(payload, request) {
+  var models;
+  try {
+    models = JSON.parse(payload);
+  } catch (e) {
+    throw new Error('Received payload is not a valid JSON Array');
+  }
+  if (!isArray(models)) {
+    throw new Error('Received payload is not a JSON Array');
+  }
+  var numModels = models.length;
+  var attributes = request.attributes || {};
+
+  // Decide which attributes to store in columns. Category attributes fall
+  // back to per-model storage as soon as a model holds multiple categories.
+  var builders = {};
+  for (var key in attributes) {
+    var columnKind = COLUMN_KINDS[attributes[key].kind];
+    if (columnKind && key != 'id') {
+      builders[key] = newBuilder(columnKind, attributes[key], numModels);
+    }
+  }
+
+  var rest = new Array(numModels);
+  for (var i = 0; i < numModels; i++) {
+    var model = models[i];
+    if (!model || typeof(model) != 'object' || isArray(model)) {
+      throw new Error('Element ' + i + ' of the received payload is not a JSON Object');
+    }
+    var residual = {};
+    for (var key in model) {
+      if (!model.hasOwnProperty(key)) {
+        continue;
+      }
+      var value = model[key];
+      if (attributes.hasOwnProperty(key) && value !== null) {
+        validate(attributes[key].kind, key, value, i);
+      }
+      var builder = builders[key];
+      if (builder && isArray(value)) {
+        // Multi-valued category.
+        builder.demoted = true;
+      }
+      if (builder && !builder.demoted) {
+        store(builder, i, value);
+      } else {
+        residual[key] = value;
+      }
+    }
+    rest[i] = residual;
+  }
+
+  var columns = {};
+  var stats = {};
+  for (var key in builders) {
+    var builder = builders[key];
+    if (builder.demoted) {
+      // Move back the values already stored in the column.
+      var count = 0;
+      for (var i = 0; i < numModels; i++) {
+        if (models[i].hasOwnProperty(key)) {
+          rest[i][key] = models[i][key];
+          count += models[i][key] === null ? 0 : 1;
+        }
+      }
+      stats[key] = {count: count};
+      continue;
+    }
+    stats[key] = builder.stats();
+    var limit = Math.max(request.minDictionarySize || 0,
+                         numModels * (request.maxDictionaryRatio || 0));
+    if (builder.kind == 'code' && builder.values.length > limit &&
+        !builder.seeded) {
+      decode(builder);
+    }
+    columns[key] = {kind: builder.kind, data: builder.data};
+    if (builder.values) {
+      columns[key].values = builder.values;
+    }
+  }
+  return {numModels: numModels, columns: columns, rest: rest, stats: stats};
+}
+
+function validate(kind, key, value, position) {
+  var valid;
+  switch (kind) {
+    case 'number':
+    case 'range':
+      valid = typeof(value) == 'number';
+      break;
+    case 'boolean':
+      valid = typeof(value) == 'boolean';
+      break;
+    case 'string':
+      valid = typeof(value) == 'string';
+      break;
+    case 'category':
+      if (isArray(value)) {
+        valid = true;
+        for (var i = 0; i < value.length && valid; i++) {
+          valid = typeof(value[i]) == 'string';
+        }
+      } else {
+        valid = typeof(value) == 'string';
+      }
+      break;
+    default:
+      // Dates have no JSON representation, custom kinds are opaque.
+      valid = true;
+  }
+  if (!valid) {
+    throw new Error('Element ' + position + ' of the received payload has an ' +
+                    'invalid value for attribute ' + key + ' (' + kind + ')');
+  }
+}
+
+function newBuilder(kind, attribute, numModels) {
+  var builder = {kind: kind, count: 0, demoted: false};
+  var i;
+  switch (kind) {
+    case 'float':
+      builder.data = new Float64Array(numModels);
+      for (i = 0; i < numModels; i++) {
+        builder.data[i] = NaN;
+      }
+      builder.min = Infinity;
+      builder.max = -Infinity;
+      builder.sum = 0;
+      builder.stats = function() {
+        return this.count == 0 ? {count: 0} :
+            {count: this.count, min: this.min, max: this.max, sum: this.sum};
+      };
+      break;
+    case 'bool':
+      builder.data = new Uint8Array(numModels);
+      for (i = 0; i < numModels; i++) {
+        builder.data[i] = 2;
+      }
+      builder.stats = function() {
+        return {count: this.count};
+      };
+      break;
+    case 'code':
+      builder.data = new Int32Array(numModels);
+      for (i = 0; i < numModels; i++) {
+        builder.data[i] = -1;
+      }
+      builder.values = [];
+      builder.codes = {};
+      // Enum attributes are encoded with the ordinals of their constants.
+      var constants = attribute.enumConstants;
+      builder.seeded = !!(constants && constants.length > 0);
+      for (i = 0; builder.seeded && i < constants.length; i++) {
+        builder.values.push(constants[i]);
+        builder.codes['$' + constants[i]] = i;
+      }
+      builder.stats = function() {
+        return {count: this.count, distinct: this.values.length};
+      };
+      break;
+  }
+  return builder;
+}
+
+function store(builder, row, value) {
+  if (value === null || value === undefined) {
+    return;
+  }
+  builder.count++;
+  switch (builder.kind) {
+    case 'float':
+      builder.data[row] = value;
+      builder.min = Math.min(builder.min, value);
+      builder.max = Math.max(builder.max, value);
+      builder.sum += value;
+      break;
+    case 'bool':
+      builder.data[row] = value ? 1 : 0;
+      break;
+    case 'code':
+      var code = builder.codes['$' + value];
+      if (code === undefined) {
+        code = builder.values.length;
+        builder.values.push(value);
+        builder.codes['$' + value] = code;
+      }
+      builder.data[row] = code;
+      break;
+  }
+}
+
+function decode(builder) {
+  var decoded = new Array(builder.data.length);
+  for (var i = 0; i < builder.data.length; i++) {
+    var code = builder.data[i];
+    decoded[i] = code < 0 ? undefined : builder.values[code];
+  }
+  builder.kind = 'string';
+  builder.data = decoded;
+  delete builder.values;
+  delete builder.codes;
+}
@@ -105,6 +105,16 @@ public class BridgeCapabilities {
     public String getName() {
       return method.getName();
     }
+
+    /**
+     * Returns whether this method is a plain property assignment onto the
+     * model object, which generated code is therefore free to inline. Only
+     * final native methods qualify, since they cannot be overridden by custom
+     * {@link BridgeCapabilities#JSO_BUILDER_CLASS} subclasses.
+     */
+    public boolean isDirect() {
+      return method.isNative() && method.isFinal();
+    }
   }
 
   /**
@@ -125,6 +135,23 @@ public class BridgeCapabilities {
    */
   private BridgeMethod objectArrayFallbackMethod;
 
+  /**
+   * Method that will be used to port enum values onto Rhizosphere model
+   * objects.
+   */
+  private BridgeMethod enumMethod;
+
+  /**
+   * Method that will be used to port collections onto Rhizosphere model
+   * objects.
+   */
+  private BridgeMethod collectionMethod;
+
+  /**
+   * The analyzed {@link #JSO_BUILDER_CLASS} type.
+   */
+  private JClassType builderType;
+
   private TypeOracle oracle;
   private TreeLogger logger;
 
@@ -145,7 +172,6 @@ public class BridgeCapabilities {
   public BridgeCapabilities configure() throws UnableToCompleteException {
     logger.log(TreeLogger.TRACE,
         "Parsing bridge class " + JSO_BUILDER_CLASS + " to extract mapping methods.");
-    JClassType builderType;
     try {
       builderType = oracle.getType(JSO_BUILDER_CLASS);
     } catch (NotFoundException e) {
@@ -159,7 +185,8 @@ public class BridgeCapabilities {
     for (JMethod method : builderType.getInheritableMethods()) {
       if (isValidBridgeMethod(method)) {
         BridgeMethod bridgeMethod = new BridgeMethod(method);
-        String targetType = bridgeMethod.getTargetType().getQualifiedSourceName();
+        String targetType =
+            bridgeMethod.getTargetType().getErasedType().getQualifiedSourceName();
 
         bridgeMethods.put(targetType, bridgeMethod);
         if (targetType.equals("java.lang.Object")) {
@@ -168,6 +195,12 @@ public class BridgeCapabilities {
         if (targetType.equals("java.lang.Object[]")) {
           objectArrayFallbackMethod = bridgeMethod;
         }
+        if (targetType.equals("java.lang.Enum")) {
+          enumMethod = bridgeMethod;
+        }
+        if (targetType.equals("java.util.Collection")) {
+          collectionMethod = bridgeMethod;
+        }
       }
     }
     if (objectFallbackMethod == null) {
@@ -181,6 +214,20 @@ public class BridgeCapabilities {
     return this;
   }
 
+  /**
+   * Returns whether these capabilities still describe the given type oracle,
+   * that is whether they were built from it and {@link #JSO_BUILDER_CLASS}
+   * has not been reloaded since. Capabilities are expensive to build, so they
+   * can be shared by all the generators that run against the same oracle.
+   *
+   * @param typeOracle The type oracle of the current compilation.
+   * @return Whether these capabilities can be used with the given oracle.
+   */
+  public boolean isCurrent(TypeOracle typeOracle) {
+    return oracle == typeOracle && builderType != null &&
+        typeOracle.findType(JSO_BUILDER_CLASS) == builderType;
+  }
+
   /**
    * Verifies that a method on {@link #JSO_BUILDER_CLASS} has the correct
    * signature to be used as a bridge method to port Java types onto Rhizosphere
@@ -215,16 +262,29 @@ public class BridgeCapabilities {
 
   /**
    * Returns the {@link #JSO_BUILDER_CLASS} method capable of porting the given
-   * Java type onto a Rhizosphere model object.
+   * Java type onto a Rhizosphere model object. Methods that handle the exact
+   * type take precedence, followed by the ones for enums and collections, if
+   * the type is one, and finally by the fallback methods for arrays and
+   * objects.
    *
    * @param argumentType The Java type to port.
    * @return The bridge method capable of porting it.
    */
   public BridgeMethod getBridgeMethod(final JType argumentType) {
-    BridgeMethod method = bridgeMethods.get(argumentType.getQualifiedSourceName());
+    JType erasedType = argumentType.getErasedType();
+    BridgeMethod method = bridgeMethods.get(erasedType.getQualifiedSourceName());
     if (method != null) {
       return method;
     }
+    if (enumMethod != null && erasedType.isEnum() != null) {
+      return enumMethod;
+    }
+    JClassType classType = erasedType.isClassOrInterface();
+    if (collectionMethod != null && classType != null &&
+        classType.isAssignableTo(
+            collectionMethod.getTargetType().getErasedType().isClassOrInterface())) {
+      return collectionMethod;
+    }
     return argumentType.isArray() != null ? objectArrayFallbackMethod : objectFallbackMethod;
   }
 }
@@ -16,18 +16,24 @@
 
 package com.rhizospherejs.gwt.rebind;
 
+import com.google.gwt.core.ext.Generator;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 import com.google.gwt.user.rebind.SourceWriter;
 
-import com.rhizospherejs.gwt.rebind.BridgeCapabilities.BridgeMethod;
-import com.rhizospherejs.gwt.rebind.ModelInspector.MappableMethod;
+import com.rhizospherejs.gwt.rebind.ModelMapping.Attribute;
 
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Writes the source code of
- * {@link com.rhizospherejs.gwt.client.RhizosphereMapping} instances.
+ * {@link com.rhizospherejs.gwt.client.RhizosphereMapping} instances from
+ * {@link ModelMapping} descriptions. The writer is shared by the GWT
+ * generator ({@link RhizosphereGenerator}) and by the javac annotation
+ * processor ({@link com.rhizospherejs.gwt.apt.RhizosphereMappingProcessor}),
+ * so that both emit the same source code for the same POJO.
  *
  * @author battlehorse@google.com (Riccardo Govoni)
  */
@@ -47,28 +53,35 @@ public class MappingWriter {
     return modelClassName + "Mapping";
   }
 
-  private ModelInspector inspector;
-  private BridgeCapabilities bridgeCapabilities;
+  private ModelMapping mapping;
   private PrintWriter pw;
   private TreeLogger logger;
   private String packageName;
   private String className;
   private String modelClassName;
+  private boolean singleCrossing;
 
-  MappingWriter(
-      TreeLogger logger, 
+  /**
+   * Creates a new writer.
+   *
+   * @param logger The logger to report to.
+   * @param pw The writer that receives the generated source code.
+   * @param mapping The mapping to generate.
+   * @param singleCrossing Whether to generate single crossing bridges (see
+   *     {@link RhizosphereGenerator#SINGLE_CROSSING_PROPERTY}).
+   */
+  public MappingWriter(
+      TreeLogger logger,
       PrintWriter pw,
-      String packageName,
-      String modelClassName,
-      BridgeCapabilities bridgeCapabilities,
-      ModelInspector inspector) {
+      ModelMapping mapping,
+      boolean singleCrossing) {
     this.logger = logger;
-    this.packageName = packageName;
-    this.modelClassName = modelClassName;
-    this.className = getMappingClassName(modelClassName);
+    this.packageName = mapping.getPackageName();
+    this.modelClassName = mapping.getModelClassName();
+    this.className = mapping.getMappingClassName();
     this.pw = pw;
-    this.bridgeCapabilities = bridgeCapabilities;
-    this.inspector = inspector;
+    this.mapping = mapping;
+    this.singleCrossing = singleCrossing;
   }
 
   private SourceWriter getSourceWriter() {
@@ -76,6 +89,7 @@ public class MappingWriter {
         new ClassSourceFileComposerFactory(packageName, className);
 
     composerFactory.addImport("com.google.gwt.core.client.JavaScriptObject");   
+    composerFactory.addImport("com.rhizospherejs.gwt.client.AttributeAccessors");
     composerFactory.addImport("com.rhizospherejs.gwt.client.RhizosphereKind");
     composerFactory.addImport("com.rhizospherejs.gwt.client.RhizosphereMapping");
     composerFactory.addImport("com.rhizospherejs.gwt.client.RhizosphereMetaModel");
@@ -86,6 +100,7 @@ public class MappingWriter {
     composerFactory.addImport(ModelInspector.CUSTOM_ATTRIBUTES_INTERFACE);
     composerFactory.addImport(BridgeCapabilities.JSO_BUILDER_CLASS);    
     composerFactory.addImport(BridgeCapabilities.METAMODEL_ATTRIBUTE_BUILDER_CLASS);     
+    composerFactory.addImport("java.util.Comparator");
 
     composerFactory.addImplementedInterface("RhizosphereMapping<" +  modelClassName + ">");
 
@@ -98,9 +113,13 @@ public class MappingWriter {
     sw.println();
     writeMetaModelFactoryInterfaceImpl(sw);
     sw.println();
+    writeAttributeAccessorsFactoryMethod(sw);
+    sw.println();
     writeModelBridgeImpl(sw);
     sw.println();
     writeMetaModelFactoryImpl(sw);
+    sw.println();
+    writeAttributeAccessorsImpl(sw);
     sw.commit(logger);
   }
 
@@ -124,6 +143,15 @@ public class MappingWriter {
     sw.println("}");
   }
 
+  private void writeAttributeAccessorsFactoryMethod(SourceWriter sw) {
+    sw.println("@Override");
+    sw.println("public AttributeAccessors<%s> newAttributeAccessors() {", modelClassName);
+    sw.indent();
+    sw.println("return new %sAttributeAccessors();", modelClassName);
+    sw.outdent();
+    sw.println("}");
+  }
+
   private void writeModelBridgeImpl(SourceWriter sw) {
     sw.println("private static final class %sModelBridge extends ModelBridge<%s> {",
         modelClassName, modelClassName);
@@ -135,30 +163,79 @@ public class MappingWriter {
     sw.println("}");
     sw.println();
 
+    // In single crossing mode, the attributes that can be ported with a plain
+    // assignment are collected in a single object literal.
+    List<LiteralAttribute> literalAttributes = new ArrayList<LiteralAttribute>();
+    List<LiteralAttribute> builderAttributes = new ArrayList<LiteralAttribute>();
+    List<LiteralAttribute> lazyAttributes = new ArrayList<LiteralAttribute>();
+    for (Attribute modelAttribute : mapping.getAttributes()) {
+      LiteralAttribute attribute =
+          new LiteralAttribute(modelAttribute.getAttributeName(), modelAttribute);
+      if (modelAttribute.isLazy()) {
+        lazyAttributes.add(attribute);
+      } else {
+        classifyAttribute(attribute, literalAttributes, builderAttributes);
+      }
+    }
+    Attribute modelIdAttribute = mapping.getModelIdAttribute();
+    if (modelIdAttribute != null) {
+      classifyAttribute(new LiteralAttribute("id", modelIdAttribute),
+          literalAttributes, builderAttributes);
+    }
+
+    boolean projectable = !mapping.getAttributes().isEmpty();
+    if (projectable) {
+      writeProjectableAttributesMethod(sw);
+      sw.println();
+    }
+
     sw.println("@Override");
     sw.println("protected JavaScriptObject bridgeInternal(%s in, %s jsoBuilder) {",
         modelClassName, BridgeCapabilities.JSO_BUILDER_CLASS);
     sw.indent();
 
-    sw.println("JavaScriptObject target = JavaScriptObject.createObject();");
-    sw.println("jsoBuilder.setTarget(target);");
+    sw.println("JavaScriptObject target;");
+    if (projectable) {
+      sw.println("boolean[] projection = getProjection();");
+      sw.println("if (projection != null) {");
+      sw.indentln("target = bridgeProjected(in, jsoBuilder, projection);");
+      sw.println("} else {");
+      sw.indent();
+    }
 
-    for (MappableMethod modelMethod : inspector.getMappableModelMethods()) {
-      BridgeMethod bridgeMethod = bridgeCapabilities.getBridgeMethod(modelMethod.getReturnType());
-      sw.println("jsoBuilder.%s(\"%s\", in.%s());",
-          bridgeMethod.getName(), modelMethod.getAttributeName(), modelMethod.getName());
+    if (literalAttributes.isEmpty()) {
+      sw.println("target = JavaScriptObject.createObject();");
+    } else {
+      StringBuilder args = new StringBuilder();
+      for (LiteralAttribute attribute : literalAttributes) {
+        if (args.length() > 0) {
+          args.append(", ");
+        }
+        args.append("in.").append(attribute.modelAttribute.getMethodName()).append("()");
+      }
+      sw.println("target = createModel(%s);", args.toString());
     }
 
-    MappableMethod modelIdGeneratorMethod = inspector.getModelIdGeneratorMethod(); 
-    if (modelIdGeneratorMethod != null) {
-      BridgeMethod bridgeMethod = bridgeCapabilities.getBridgeMethod(
-          modelIdGeneratorMethod.getReturnType());
-      sw.println();
-      sw.println("jsoBuilder.%s(\"%s\", in.%s());",
-          bridgeMethod.getName(), "id", modelIdGeneratorMethod.getName());
+    if (!builderAttributes.isEmpty() || mapping.usesCustomAttributes()) {
+      sw.println("jsoBuilder.setTarget(target);");
+    }
+    for (LiteralAttribute attribute : builderAttributes) {
+      writeBuilderCall(sw, attribute);
     }
 
-    if (inspector.modelUsesCustomAttributes()) {
+    // Lazy attributes are identified by their position in the list, see
+    // writeLazyAttributesMethod().
+    for (int i = 0; i < lazyAttributes.size(); i++) {
+      sw.println("defineLazyAttribute(target, \"%s\", in, %s);",
+          Generator.escape(lazyAttributes.get(i).name), i);
+    }
+
+    if (projectable) {
+      sw.outdent();
+      sw.println("}");
+    }
+
+    if (mapping.usesCustomAttributes()) {
       sw.println("((%s) in).setCustomRhizosphereAttributes(jsoBuilder);",
           ModelInspector.CUSTOM_ATTRIBUTES_INTERFACE);
     }
@@ -169,11 +246,185 @@ public class MappingWriter {
     sw.outdent();
     sw.println("}");
 
+    if (projectable) {
+      sw.println();
+      writeProjectedBridgeMethod(sw);
+    }
+
+    if (!literalAttributes.isEmpty()) {
+      sw.println();
+      writeModelLiteralMethod(sw, literalAttributes);
+    }
+
+    if (!lazyAttributes.isEmpty()) {
+      sw.println();
+      writeLazyAttributesMethod(sw, lazyAttributes);
+    }
+
     // Close class definition
     sw.outdent();
     sw.println("}");
   }
 
+  private void writeBuilderCall(SourceWriter sw, LiteralAttribute attribute) {
+    sw.println("jsoBuilder.%s(\"%s\", in.%s());",
+        attribute.modelAttribute.getBridgeMethodName(), Generator.escape(attribute.name),
+        attribute.modelAttribute.getMethodName());
+  }
+
+  /**
+   * Writes the list of attributes the bridge can project away, in the order
+   * of {@link ModelMapping#getAttributes()}. See
+   * {@link com.rhizospherejs.gwt.client.bridge.ModelBridge#setProjection}.
+   */
+  private void writeProjectableAttributesMethod(SourceWriter sw) {
+    StringBuilder names = new StringBuilder();
+    for (Attribute attribute : mapping.getAttributes()) {
+      if (names.length() > 0) {
+        names.append(", ");
+      }
+      names.append("\"").append(Generator.escape(attribute.getAttributeName())).append("\"");
+    }
+    sw.println("private static final String[] PROJECTABLE_ATTRIBUTES = new String[] {%s};",
+        names.toString());
+    sw.println();
+    sw.println("@Override");
+    sw.println("protected String[] getProjectableAttributes() {");
+    sw.indentln("return PROJECTABLE_ATTRIBUTES;");
+    sw.println("}");
+  }
+
+  /**
+   * Writes the method that bridges only the attributes part of the active
+   * projection. Projected models are always assembled via the JsoBuilder,
+   * since the set of bridged attributes is only known at runtime. The model
+   * id is always bridged.
+   */
+  private void writeProjectedBridgeMethod(SourceWriter sw) {
+    sw.println("private JavaScriptObject bridgeProjected(%s in, %s jsoBuilder, "
+        + "boolean[] projection) {", modelClassName, BridgeCapabilities.JSO_BUILDER_CLASS);
+    sw.indent();
+    sw.println("JavaScriptObject target = JavaScriptObject.createObject();");
+    sw.println("jsoBuilder.setTarget(target);");
+    List<Attribute> attributes = mapping.getAttributes();
+    int lazyIndex = 0;
+    for (int i = 0; i < attributes.size(); i++) {
+      Attribute modelAttribute = attributes.get(i);
+      sw.println("if (projection[%s]) {", i);
+      sw.indent();
+      if (modelAttribute.isLazy()) {
+        sw.println("defineLazyAttribute(target, \"%s\", in, %s);",
+            Generator.escape(modelAttribute.getAttributeName()), lazyIndex++);
+      } else {
+        writeBuilderCall(sw, new LiteralAttribute(modelAttribute.getAttributeName(),
+            modelAttribute));
+      }
+      sw.outdent();
+      sw.println("}");
+    }
+    Attribute modelIdAttribute = mapping.getModelIdAttribute();
+    if (modelIdAttribute != null) {
+      writeBuilderCall(sw, new LiteralAttribute("id", modelIdAttribute));
+    }
+    sw.println("return target;");
+    sw.outdent();
+    sw.println("}");
+  }
+
+  /**
+   * An attribute of the model being bridged, along with the name it is
+   * assigned to on the model object.
+   */
+  private static class LiteralAttribute {
+    String name;
+    Attribute modelAttribute;
+
+    LiteralAttribute(String name, Attribute modelAttribute) {
+      this.name = name;
+      this.modelAttribute = modelAttribute;
+    }
+  }
+
+  /**
+   * Decides whether an attribute will be part of the object literal emitted
+   * in single crossing mode, or ported via the JsoBuilder. Only attributes
+   * whose bridge method is a plain assignment (see
+   * {@link Attribute#isDirectBridge()}) can be part of the literal. Everything
+   * goes through the JsoBuilder when single crossing mode is disabled.
+   */
+  private void classifyAttribute(LiteralAttribute attribute,
+                                 List<LiteralAttribute> literalAttributes,
+                                 List<LiteralAttribute> builderAttributes) {
+    if (singleCrossing && attribute.modelAttribute.isDirectBridge()) {
+      literalAttributes.add(attribute);
+    } else {
+      builderAttributes.add(attribute);
+    }
+  }
+
+  /**
+   * Writes a native method that assembles a model object with a single
+   * JavaScript object literal. Since the literal always lists the attributes
+   * in the same order, all the models generated by the bridge share the same
+   * shape.
+   */
+  private void writeModelLiteralMethod(SourceWriter sw,
+                                       List<LiteralAttribute> literalAttributes) {
+    StringBuilder params = new StringBuilder();
+    for (int i = 0; i < literalAttributes.size(); i++) {
+      if (i > 0) {
+        params.append(", ");
+      }
+      params.append(literalAttributes.get(i).modelAttribute.getBridgeTargetTypeName());
+      params.append(" a").append(i);
+    }
+    sw.println("private static native JavaScriptObject createModel(%s) /*-{",
+        params.toString());
+    sw.indent();
+    sw.println("return {");
+    sw.indent();
+    for (int i = 0; i < literalAttributes.size(); i++) {
+      sw.println("'%s': a%s%s", Generator.escape(literalAttributes.get(i).name), i,
+          i < literalAttributes.size() - 1 ? "," : "");
+    }
+    sw.outdent();
+    sw.println("};");
+    sw.outdent();
+    sw.println("}-*/;");
+  }
+
+  /**
+   * Writes the methods that enable lazy attributes and convert them the first
+   * time they are read, through the same JsoBuilder methods eager attributes
+   * use.
+   */
+  private void writeLazyAttributesMethod(SourceWriter sw,
+                                         List<LiteralAttribute> lazyAttributes) {
+    sw.println("@Override");
+    sw.println("protected boolean supportsLazyAttributes() {");
+    sw.indentln("return true;");
+    sw.println("}");
+    sw.println();
+    sw.println("@Override");
+    sw.println("protected void bridgeLazyAttribute(%s in, int index, %s jsoBuilder) {",
+        modelClassName, BridgeCapabilities.JSO_BUILDER_CLASS);
+    sw.indent();
+    sw.println("switch (index) {");
+    sw.indent();
+    for (int i = 0; i < lazyAttributes.size(); i++) {
+      LiteralAttribute attribute = lazyAttributes.get(i);
+      sw.println("case %s:", i);
+      sw.indentln("jsoBuilder.%s(\"%s\", in.%s());",
+          attribute.modelAttribute.getBridgeMethodName(), Generator.escape(attribute.name),
+          attribute.modelAttribute.getMethodName());
+      sw.indentln("break;");
+    }
+    sw.outdent();
+    sw.println("}");
+    sw.outdent();
+    sw.println("}");
+  }
+
   private void writeMetaModelFactoryImpl(SourceWriter sw) {
     sw.println("private static final class %sMetaModelFactory extends MetaModelFactory {",
         modelClassName);
@@ -198,19 +449,32 @@ public class MappingWriter {
     sw.println("Attribute attr;");
     sw.println("AttributeDescriptor descriptor;");
     sw.println("RhizosphereKind kind;");
-    for (MappableMethod modelMethod : inspector.getMappableModelMethods()) {
-      if (!modelMethod.contributesToMetaModel()) {
+    for (Attribute modelAttribute : mapping.getAttributes()) {
+      if (!modelAttribute.contributesToMetaModel()) {
         continue;
       }
-      String labelParameter = modelMethod.getAttributeLabel() != null ?
-          "\"" + modelMethod.getAttributeLabel() + "\"" : "null";
-      sw.println("attr = metaModel.newAttribute(\"%s\");", modelMethod.getAttributeName());
-      sw.println("descriptor = new %s();", modelMethod.getAttributeDescriptorClassName());
+      String attributeName = Generator.escape(modelAttribute.getAttributeName());
+      String labelParameter = modelAttribute.getAttributeLabel() != null ?
+          "\"" + Generator.escape(modelAttribute.getAttributeLabel()) + "\"" : "null";
+      sw.println("attr = metaModel.newAttribute(\"%s\");", attributeName);
+      sw.println("descriptor = new %s();", modelAttribute.getAttributeDescriptorClassName());
       sw.println("kind = RhizosphereKind.valueOf(RhizosphereKind.class, \"%s\");",
-          bridgeCapabilities.getBridgeMethod(modelMethod.getReturnType()).
-              getRhizosphereKind().name());
+          modelAttribute.getRhizosphereKind().name());
+      List<String> enumConstants = modelAttribute.getEnumConstants();
+      if (enumConstants != null) {
+        // Enum constants are known at compile time. Descriptors applied by
+        // fillAttribute() below can still override the categories.
+        StringBuilder constants = new StringBuilder();
+        for (String constant : enumConstants) {
+          if (constants.length() > 0) {
+            constants.append(", ");
+          }
+          constants.append("\"").append(Generator.escape(constant)).append("\"");
+        }
+        sw.println("attr.setEnumConstants(new String[] {%s});", constants.toString());
+      }
       sw.println("attrBuilder.fillAttribute(attr, descriptor, \"%s\", %s, kind);",
-          modelMethod.getAttributeName(), labelParameter);
+          attributeName, labelParameter);
       sw.println();
     }
 
@@ -220,4 +484,110 @@ public class MappingWriter {
     sw.outdent();
     sw.println("}");
   }
+
+  /**
+   * Writes the attribute accessors of the model. Accessors call the model
+   * getters directly, switching on the attribute index, so that reading an
+   * attribute or comparing two models never goes through reflection nor
+   * through the JavaScript model objects.
+   */
+  private void writeAttributeAccessorsImpl(SourceWriter sw) {
+    List<Attribute> attributes = mapping.getAttributes();
+    sw.println("private static final class %sAttributeAccessors extends AttributeAccessors<%s> {",
+        modelClassName, modelClassName);
+    sw.indent();
+
+    StringBuilder names = new StringBuilder();
+    StringBuilder numeric = new StringBuilder();
+    StringBuilder sortable = new StringBuilder();
+    for (Attribute attribute : attributes) {
+      if (names.length() > 0) {
+        names.append(", ");
+        numeric.append(", ");
+        sortable.append(", ");
+      }
+      names.append("\"").append(Generator.escape(attribute.getAttributeName())).append("\"");
+      numeric.append(attribute.isNumeric());
+      sortable.append(attribute.isSortable());
+    }
+    sw.println("public %sAttributeAccessors() {", modelClassName);
+    sw.indent();
+    sw.println("super(new String[] {%s},", names.toString());
+    sw.println("      new boolean[] {%s},", numeric.toString());
+    sw.println("      new boolean[] {%s});", sortable.toString());
+    sw.outdent();
+    sw.println("}");
+    sw.println();
+
+    sw.println("@Override");
+    sw.println("protected Object getAttribute(%s in, int index) {", modelClassName);
+    sw.indent();
+    sw.println("switch (index) {");
+    sw.indent();
+    for (int i = 0; i < attributes.size(); i++) {
+      sw.println("case %s: return in.%s();", i, attributes.get(i).getMethodName());
+    }
+    sw.println("default: return null;");
+    sw.outdent();
+    sw.println("}");
+    sw.outdent();
+    sw.println("}");
+    sw.println();
+
+    sw.println("@Override");
+    sw.println("protected double getDoubleAttribute(%s in, int index) {", modelClassName);
+    sw.indent();
+    sw.println("switch (index) {");
+    sw.indent();
+    for (int i = 0; i < attributes.size(); i++) {
+      Attribute attribute = attributes.get(i);
+      if (!attribute.isNumeric()) {
+        continue;
+      }
+      if (attribute.isPrimitive()) {
+        sw.println("case %s: return in.%s();", i, attribute.getMethodName());
+      } else {
+        sw.println("case %s: return toDouble(in.%s());", i, attribute.getMethodName());
+      }
+    }
+    sw.println("default: return Double.NaN;");
+    sw.outdent();
+    sw.println("}");
+    sw.outdent();
+    sw.println("}");
+    sw.println();
+
+    sw.println("@Override");
+    sw.println("protected Comparator<%s> newComparator(int index) {", modelClassName);
+    sw.indent();
+    sw.println("switch (index) {");
+    sw.indent();
+    for (int i = 0; i < attributes.size(); i++) {
+      Attribute attribute = attributes.get(i);
+      if (!attribute.isSortable()) {
+        continue;
+      }
+      sw.println("case %s:", i);
+      sw.indent();
+      sw.println("return new Comparator<%s>() {", modelClassName);
+      sw.indent();
+      sw.println("public int compare(%s a, %s b) {", modelClassName, modelClassName);
+      // Qualified, since the comparator's own compare() shadows the helpers.
+      sw.indentln("return AttributeAccessors.%s(a.%s(), b.%s());",
+          attribute.isPrimitive() ? "compare" : "compareValues",
+          attribute.getMethodName(), attribute.getMethodName());
+      sw.println("}");
+      sw.outdent();
+      sw.println("};");
+      sw.outdent();
+    }
+    sw.println("default: return null;");
+    sw.outdent();
+    sw.println("}");
+    sw.outdent();
+    sw.println("}");
+
+    sw.outdent();
+    sw.println("}");
+  }
 }
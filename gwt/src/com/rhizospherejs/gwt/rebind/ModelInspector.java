@@ -20,6 +20,8 @@ import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.core.ext.typeinfo.JArrayType;
 import com.google.gwt.core.ext.typeinfo.JClassType;
+import com.google.gwt.core.ext.typeinfo.JEnumConstant;
+import com.google.gwt.core.ext.typeinfo.JEnumType;
 import com.google.gwt.core.ext.typeinfo.JMethod;
 import com.google.gwt.core.ext.typeinfo.JPrimitiveType;
 import com.google.gwt.core.ext.typeinfo.JType;
@@ -28,7 +30,9 @@ import com.google.gwt.core.ext.typeinfo.TypeOracle;
 
 import com.rhizospherejs.gwt.client.CustomRhizosphereModel;
 import com.rhizospherejs.gwt.client.RhizosphereModelAttribute;
+import com.rhizospherejs.gwt.rebind.BridgeCapabilities.BridgeMethod;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -65,6 +69,13 @@ public class ModelInspector {
    */
   private JClassType customAttributesInterfaceType;
 
+  /**
+   * Class types of {@link Number} and {@link Comparable}, used to identify
+   * the attributes that support numeric projections and sorting.
+   */
+  private JClassType numberType;
+  private JClassType comparableType;
+
   private TreeLogger logger;
   private BridgeCapabilities bridgeCapabilities;
 
@@ -128,14 +139,7 @@ public class ModelInspector {
         attributeName = explicitName;
         return;
       }
-      String methodName = method.getName();
-      if (methodName.startsWith("is") && methodName.length() > 3) {
-        attributeName = Character.toLowerCase(methodName.charAt(2)) + methodName.substring(3);
-      } else if (methodName.startsWith("get") && methodName.length() > 4) {
-        attributeName = Character.toLowerCase(methodName.charAt(3)) + methodName.substring(4);
-      } else {
-        attributeName = methodName;
-      }
+      attributeName = getDefaultAttributeName(method.getName());
     }
 
     private void extractAttributeLabel() {
@@ -164,6 +168,16 @@ public class ModelInspector {
       return method.getReturnType();
     }
 
+    /**
+     * Returns the enum type of the attribute extracted by this method, or
+     * {@code null} if the attribute is not an enum. The constants of enum
+     * attributes are known at compile time, and become the attribute
+     * categories in the generated metamodel.
+     */
+    public JEnumType getEnumType() {
+      return method.getReturnType().isEnum();
+    }
+
     /**
      * Returns the name that the attribute extracted by this method will have
      * on the Rhizosphere model.
@@ -204,6 +218,31 @@ public class ModelInspector {
     public boolean isModelIdGenerator() {
       return method.getAnnotation(ATTRIBUTE_ANNOTATION).modelId();
     }
+
+    /**
+     * Defines whether the attribute extracted by this method is computed only
+     * when first read, as defined by {@link RhizosphereModelAttribute#lazy()}.
+     */
+    public boolean isLazy() {
+      return method.getAnnotation(ATTRIBUTE_ANNOTATION).lazy();
+    }
+  }
+
+  /**
+   * Returns the name an attribute has on the Rhizosphere model when
+   * {@link RhizosphereModelAttribute#name()} does not specify one, derived
+   * from the name of the getter method it is extracted from.
+   *
+   * @param methodName The getter method name.
+   * @return The attribute name.
+   */
+  public static String getDefaultAttributeName(String methodName) {
+    if (methodName.startsWith("is") && methodName.length() > 3) {
+      return Character.toLowerCase(methodName.charAt(2)) + methodName.substring(3);
+    } else if (methodName.startsWith("get") && methodName.length() > 4) {
+      return Character.toLowerCase(methodName.charAt(3)) + methodName.substring(4);
+    }
+    return methodName;
   }
 
   ModelInspector(TreeLogger logger,
@@ -220,6 +259,8 @@ public class ModelInspector {
           "Unable to resolve custom attributes interface: " + CUSTOM_ATTRIBUTES_INTERFACE);
       throw new UnableToCompleteException();
     }
+    numberType = oracle.findType(Number.class.getName());
+    comparableType = oracle.findType(Comparable.class.getName());
     modelMethods = new LinkedList<MappableMethod>();
   }
 
@@ -242,6 +283,7 @@ public class ModelInspector {
     for (JMethod method : methods) {
       if (isValidMethodSignature(method)) {
         verifyValidReturnType(method);
+        verifyValidLaziness(method);
         logger.log(TreeLogger.DEBUG,
             "Found valid attribute for Rhizosphere model generation: " + method.getName());
         modelMethods.add(new MappableMethod(method));
@@ -298,6 +340,24 @@ public class ModelInspector {
     }
   }
 
+  /**
+   * Verifies that a lazy attribute is not the model identifier, which is
+   * required as soon as the model is converted.
+   *
+   * @param method the method to inspect.
+   * @throws UnableToCompleteException if the attribute is both lazy and the
+   *     model identifier.
+   */
+  private void verifyValidLaziness(JMethod method) throws UnableToCompleteException {
+    RhizosphereModelAttribute annotation = method.getAnnotation(ATTRIBUTE_ANNOTATION);
+    if (annotation.lazy() && annotation.modelId()) {
+      logger.log(TreeLogger.ERROR,
+          "Method " + modelType.getQualifiedSourceName() + "::" + method.getName()
+          + " identifies the model and cannot be lazy.");
+      throw new UnableToCompleteException();
+    }
+  }
+
   private void verifySupportedPrimitiveReturnType(JMethod method, JPrimitiveType type)
       throws UnableToCompleteException {
     if (!bridgeCapabilities.getMappablePrimitiveTypes().contains(type)) {
@@ -324,6 +384,64 @@ public class ModelInspector {
     return useCustomAttributes;
   }
 
+  /**
+   * Returns the description of the mapping to generate for the inspected
+   * POJO.
+   */
+  public ModelMapping getModelMapping() {
+    ModelMapping mapping = new ModelMapping(
+        modelType.getPackage().getName(), modelType.getSimpleSourceName(), useCustomAttributes);
+    for (MappableMethod method : modelMethods) {
+      BridgeMethod bridgeMethod = bridgeCapabilities.getBridgeMethod(method.getReturnType());
+      ModelMapping.Attribute attribute = new ModelMapping.Attribute(
+          method.getName(),
+          method.getReturnType().getParameterizedQualifiedSourceName(),
+          method.getAttributeName());
+      attribute.setMetadata(
+          method.getAttributeLabel(),
+          method.getAttributeDescriptorClassName(),
+          method.contributesToMetaModel(),
+          method.isModelIdGenerator());
+      attribute.setLazy(method.isLazy());
+      attribute.setBridgeMethod(
+          bridgeMethod.getName(),
+          bridgeMethod.getTargetType().getQualifiedSourceName(),
+          bridgeMethod.isDirect(),
+          bridgeMethod.getRhizosphereKind());
+      setValueTraits(attribute, method.getReturnType());
+      JEnumType enumType = method.getEnumType();
+      if (enumType != null) {
+        List<String> constants = new ArrayList<String>();
+        for (JEnumConstant constant : enumType.getEnumConstants()) {
+          constants.add(constant.getName());
+        }
+        attribute.setEnumConstants(constants);
+      }
+      mapping.addAttribute(attribute);
+    }
+    return mapping;
+  }
+
+  private void setValueTraits(ModelMapping.Attribute attribute, JType type) {
+    JPrimitiveType primitiveType = type.isPrimitive();
+    if (primitiveType != null) {
+      boolean numeric = primitiveType != JPrimitiveType.BOOLEAN &&
+          primitiveType != JPrimitiveType.CHAR;
+      attribute.setValueTraits(true, numeric, true);
+      return;
+    }
+    JClassType classType = type.isClassOrInterface();
+    if (classType == null) {
+      attribute.setValueTraits(false, false, false);
+      return;
+    }
+    classType = classType.getErasedType();
+    attribute.setValueTraits(
+        false,
+        classType.isAssignableTo(numberType),
+        classType.isAssignableTo(comparableType));
+  }
+
   /**
    * Returns the method whose extracted attributes identify unique Rhizosphere
    * model ids, if any, or returns {@code null} otherwise.
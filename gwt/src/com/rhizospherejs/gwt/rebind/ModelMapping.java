@@ -0,0 +1,407 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.rebind;
+
+import com.rhizospherejs.gwt.client.RhizosphereKind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes the {@link com.rhizospherejs.gwt.client.RhizosphereMapping} to
+ * generate for a POJO implementing
+ * {@link com.rhizospherejs.gwt.client.RhizosphereModel}: the attributes to
+ * port from the POJO onto Rhizosphere models, along with the bridge methods
+ * that port them and their metamodel information.
+ * <p>
+ * A model mapping is independent of how the POJO was analyzed, so that
+ * {@link MappingWriter} can generate the same mapping source code both from
+ * the GWT type oracle (see {@link ModelInspector}) and from javac
+ * annotation processing (see
+ * {@link com.rhizospherejs.gwt.apt.RhizosphereMappingProcessor}).
+ */
+public class ModelMapping {
+
+  /**
+   * An attribute to port from the POJO onto the Rhizosphere model.
+   */
+  public static class Attribute {
+    private String methodName;
+    private String returnTypeName;
+    private String attributeName;
+    private String attributeLabel;
+    private String attributeDescriptorClassName;
+    private boolean contributesToMetaModel;
+    private boolean modelIdGenerator;
+    private boolean lazy;
+    private List<String> enumConstants;
+    private boolean primitive;
+    private boolean numeric;
+    private boolean sortable;
+    private String bridgeMethodName;
+    private String bridgeTargetTypeName;
+    private boolean directBridge;
+    private RhizosphereKind rhizosphereKind;
+
+    /**
+     * Creates a new attribute.
+     *
+     * @param methodName The name of the POJO method the attribute is read
+     *     from.
+     * @param returnTypeName The qualified source name of the method return
+     *     type, including its type arguments.
+     * @param attributeName The name the attribute will have on the Rhizosphere
+     *     model.
+     */
+    public Attribute(String methodName, String returnTypeName, String attributeName) {
+      this.methodName = methodName;
+      this.returnTypeName = returnTypeName;
+      this.attributeName = attributeName;
+    }
+
+    /**
+     * Sets the attribute metadata, as defined by
+     * {@link com.rhizospherejs.gwt.client.RhizosphereModelAttribute}.
+     *
+     * @param label The user-visible label of the attribute, or {@code null}
+     *     if the attribute name should be used.
+     * @param descriptorClassName The canonical name of the attribute
+     *     descriptor class.
+     * @param contributesToMetaModel Whether the attribute is part of the
+     *     metamodel (that is, whether it is not opaque).
+     * @param modelIdGenerator Whether the attribute is the model id.
+     * @return this object, for chaining.
+     */
+    public Attribute setMetadata(String label,
+                                 String descriptorClassName,
+                                 boolean contributesToMetaModel,
+                                 boolean modelIdGenerator) {
+      this.attributeLabel = label;
+      this.attributeDescriptorClassName = descriptorClassName;
+      this.contributesToMetaModel = contributesToMetaModel;
+      this.modelIdGenerator = modelIdGenerator;
+      return this;
+    }
+
+    /**
+     * Sets whether the attribute is computed only when first read (see
+     * {@link com.rhizospherejs.gwt.client.RhizosphereModelAttribute#lazy()}).
+     *
+     * @param lazy Whether the attribute is lazy.
+     * @return this object, for chaining.
+     */
+    public Attribute setLazy(boolean lazy) {
+      this.lazy = lazy;
+      return this;
+    }
+
+    /**
+     * Sets the {@link BridgeCapabilities#JSO_BUILDER_CLASS} method that ports
+     * the attribute onto the Rhizosphere model.
+     *
+     * @param name The bridge method name.
+     * @param targetTypeName The qualified source name of the Java type the
+     *     bridge method accepts.
+     * @param direct Whether the bridge method is a plain property assignment
+     *     (see {@link BridgeCapabilities.BridgeMethod#isDirect()}).
+     * @param kind The Rhizosphere kind the bridge method sets.
+     * @return this object, for chaining.
+     */
+    public Attribute setBridgeMethod(String name,
+                                     String targetTypeName,
+                                     boolean direct,
+                                     RhizosphereKind kind) {
+      this.bridgeMethodName = name;
+      this.bridgeTargetTypeName = targetTypeName;
+      this.directBridge = direct;
+      this.rhizosphereKind = kind;
+      return this;
+    }
+
+    /**
+     * Sets the traits of the attribute Java type that determine the Java-side
+     * operations it supports (see
+     * {@link com.rhizospherejs.gwt.client.AttributeAccessors}).
+     *
+     * @param primitive Whether the attribute type is a primitive.
+     * @param numeric Whether the attribute type is a numeric primitive or a
+     *     {@link Number}.
+     * @param sortable Whether the attribute type is a primitive or a
+     *     {@link Comparable}.
+     * @return this object, for chaining.
+     */
+    public Attribute setValueTraits(boolean primitive, boolean numeric, boolean sortable) {
+      this.primitive = primitive;
+      this.numeric = numeric;
+      this.sortable = sortable;
+      return this;
+    }
+
+    /**
+     * Sets the names of the enum constants the attribute can assume, in
+     * declaration order, if the attribute is an enum.
+     *
+     * @return this object, for chaining.
+     */
+    public Attribute setEnumConstants(List<String> enumConstants) {
+      this.enumConstants = enumConstants;
+      return this;
+    }
+
+    /**
+     * Returns the name of the POJO method the attribute is read from.
+     */
+    public String getMethodName() {
+      return methodName;
+    }
+
+    /**
+     * Returns the qualified source name of the Java type of the attribute.
+     */
+    public String getReturnTypeName() {
+      return returnTypeName;
+    }
+
+    /**
+     * Returns the name the attribute will have on the Rhizosphere model.
+     */
+    public String getAttributeName() {
+      return attributeName;
+    }
+
+    /**
+     * Returns the user-visible label of the attribute, or {@code null} if
+     * none was specified.
+     */
+    public String getAttributeLabel() {
+      return attributeLabel;
+    }
+
+    /**
+     * Returns the canonical name of the attribute descriptor class.
+     */
+    public String getAttributeDescriptorClassName() {
+      return attributeDescriptorClassName;
+    }
+
+    /**
+     * Returns whether the attribute contributes to the generated metamodel.
+     */
+    public boolean contributesToMetaModel() {
+      return contributesToMetaModel;
+    }
+
+    /**
+     * Returns whether the attribute is the unique model id.
+     */
+    public boolean isModelIdGenerator() {
+      return modelIdGenerator;
+    }
+
+    /**
+     * Returns whether the attribute is computed only when first read.
+     */
+    public boolean isLazy() {
+      return lazy;
+    }
+
+    /**
+     * Returns the names of the enum constants the attribute can assume, or
+     * {@code null} if the attribute is not an enum.
+     */
+    public List<String> getEnumConstants() {
+      return enumConstants;
+    }
+
+    /**
+     * Returns whether the attribute type is a primitive.
+     */
+    public boolean isPrimitive() {
+      return primitive;
+    }
+
+    /**
+     * Returns whether the attribute type is a numeric primitive or a
+     * {@link Number}.
+     */
+    public boolean isNumeric() {
+      return numeric;
+    }
+
+    /**
+     * Returns whether the attribute type is a primitive or a
+     * {@link Comparable}.
+     */
+    public boolean isSortable() {
+      return sortable;
+    }
+
+    /**
+     * Returns the name of the bridge method that ports the attribute.
+     */
+    public String getBridgeMethodName() {
+      return bridgeMethodName;
+    }
+
+    /**
+     * Returns the qualified source name of the Java type the bridge method
+     * accepts.
+     */
+    public String getBridgeTargetTypeName() {
+      return bridgeTargetTypeName;
+    }
+
+    /**
+     * Returns whether the bridge method is a plain property assignment.
+     */
+    public boolean isDirectBridge() {
+      return directBridge;
+    }
+
+    /**
+     * Returns the Rhizosphere kind of the attribute.
+     */
+    public RhizosphereKind getRhizosphereKind() {
+      return rhizosphereKind;
+    }
+  }
+
+  private String packageName;
+  private String modelClassName;
+  private List<Attribute> attributes = new ArrayList<Attribute>();
+  private boolean useCustomAttributes;
+
+  /**
+   * Creates a new model mapping.
+   *
+   * @param packageName The package of the POJO, which will also contain the
+   *     generated mapping.
+   * @param modelClassName The simple source name of the POJO.
+   * @param useCustomAttributes Whether the POJO performs custom attribute
+   *     mapping in addition to the annotation-based one.
+   */
+  public ModelMapping(String packageName, String modelClassName, boolean useCustomAttributes) {
+    this.packageName = packageName;
+    this.modelClassName = modelClassName;
+    this.useCustomAttributes = useCustomAttributes;
+  }
+
+  /**
+   * Adds an attribute to the mapping. Attributes are generated in the order
+   * they are added.
+   */
+  public void addAttribute(Attribute attribute) {
+    attributes.add(attribute);
+  }
+
+  /**
+   * Returns the package of the POJO.
+   */
+  public String getPackageName() {
+    return packageName;
+  }
+
+  /**
+   * Returns the simple source name of the POJO.
+   */
+  public String getModelClassName() {
+    return modelClassName;
+  }
+
+  /**
+   * Returns the simple name of the generated mapping class.
+   */
+  public String getMappingClassName() {
+    return MappingWriter.getMappingClassName(modelClassName);
+  }
+
+  /**
+   * Returns the qualified name of the generated mapping class.
+   */
+  public String getQualifiedMappingClassName() {
+    return packageName + "." + getMappingClassName();
+  }
+
+  /**
+   * Returns the attributes to port from the POJO.
+   */
+  public List<Attribute> getAttributes() {
+    return attributes;
+  }
+
+  /**
+   * Returns the attribute that identifies unique Rhizosphere model ids, or
+   * {@code null} if the POJO does not define one.
+   */
+  public Attribute getModelIdAttribute() {
+    for (Attribute attribute : attributes) {
+      if (attribute.isModelIdGenerator()) {
+        return attribute;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether the POJO performs custom attribute mapping in addition to
+   * the annotation-based one.
+   */
+  public boolean usesCustomAttributes() {
+    return useCustomAttributes;
+  }
+
+  /**
+   * Returns a digest of everything the generated mapping depends upon. Model
+   * mappings that have the same fingerprint result in the same generated
+   * mapping, so the fingerprint can be used to decide whether a previously
+   * generated mapping can be reused.
+   */
+  public String getFingerprint() {
+    StringBuilder fingerprint = new StringBuilder();
+    appendField(fingerprint, packageName);
+    appendField(fingerprint, modelClassName);
+    appendField(fingerprint, useCustomAttributes);
+    for (Attribute attribute : attributes) {
+      appendField(fingerprint, attribute.methodName);
+      appendField(fingerprint, attribute.returnTypeName);
+      appendField(fingerprint, attribute.attributeName);
+      appendField(fingerprint, attribute.attributeLabel);
+      appendField(fingerprint, attribute.attributeDescriptorClassName);
+      appendField(fingerprint, attribute.contributesToMetaModel);
+      appendField(fingerprint, attribute.modelIdGenerator);
+      appendField(fingerprint, attribute.lazy);
+      appendField(fingerprint, attribute.enumConstants);
+      appendField(fingerprint, attribute.primitive);
+      appendField(fingerprint, attribute.numeric);
+      appendField(fingerprint, attribute.sortable);
+      appendField(fingerprint, attribute.bridgeMethodName);
+      appendField(fingerprint, attribute.bridgeTargetTypeName);
+      appendField(fingerprint, attribute.directBridge);
+      appendField(fingerprint, attribute.rhizosphereKind);
+    }
+    return fingerprint.toString();
+  }
+
+  /**
+   * Appends a length-prefixed field to a fingerprint, so that fields cannot
+   * be confused with one another whatever they contain.
+   */
+  private static void appendField(StringBuilder fingerprint, Object field) {
+    String value = String.valueOf(field);
+    fingerprint.append(field == null ? -1 : value.length()).append(':').append(value);
+  }
+}
@@ -16,15 +16,28 @@
 
 package com.rhizospherejs.gwt.rebind;
 
-import com.google.gwt.core.ext.Generator;
+import com.google.gwt.core.ext.BadPropertyValueException;
+import com.google.gwt.core.ext.ConfigurationProperty;
 import com.google.gwt.core.ext.GeneratorContext;
+import com.google.gwt.core.ext.GeneratorContextExt;
+import com.google.gwt.core.ext.GeneratorExt;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.core.ext.typeinfo.JArrayType;
 import com.google.gwt.core.ext.typeinfo.JClassType;
+import com.google.gwt.core.ext.typeinfo.JMethod;
+import com.google.gwt.core.ext.typeinfo.JParameterizedType;
+import com.google.gwt.core.ext.typeinfo.JRawType;
+import com.google.gwt.core.ext.typeinfo.JType;
 import com.google.gwt.core.ext.typeinfo.NotFoundException;
 import com.google.gwt.core.ext.typeinfo.TypeOracle;
+import com.google.gwt.dev.javac.rebind.CachedClientDataMap;
+import com.google.gwt.dev.javac.rebind.CachedRebindResult;
+import com.google.gwt.dev.javac.rebind.RebindResult;
+import com.google.gwt.dev.javac.rebind.RebindStatus;
 
 import java.io.PrintWriter;
+import java.util.List;
 
 /**
  * Code generator that generates
@@ -56,16 +69,68 @@ import java.io.PrintWriter;
  *   all the attributes that must be exposed within Rhizosphere, along with
  *   the associated metadata.</li>
  * <li>{@link MappingWriter} uses the information extracted by the previous 2
- *   steps a generates factories capable of converting user-provided POJOs into
- *   Rhizosphere-compatible JavaScriptObjects.</li>
+ *   steps (collected in a {@link ModelMapping}) a generates factories capable
+ *   of converting user-provided POJOs into Rhizosphere-compatible
+ *   JavaScriptObjects.</li>
  * </ul>
+ * <p>
+ * The {@value #SINGLE_CROSSING_PROPERTY} configuration property controls the
+ * shape of the generated bridges. When {@code true}, each POJO is converted
+ * with a single call into a native method that returns the whole model as an
+ * object literal, rather than with one JSNI call per attribute.
+ * <p>
+ * The generator is incremental. When generator result caching is enabled,
+ * as it is in dev mode, the mapping generated for a model type is reused
+ * without inspecting the model type at all if neither the model type, nor
+ * any of its supertypes, nor the types its methods return (such as the enums
+ * whose constants are baked into the mapping), nor
+ * {@link BridgeCapabilities#JSO_BUILDER_CLASS} were modified since the
+ * mapping was generated. Otherwise the model type is
+ * inspected, and the mapping is still reused as long as the
+ * {@link ModelMapping#getFingerprint() fingerprint} of the model type is
+ * unchanged, so that only the mappings of the model types that were edited
+ * in a relevant way are regenerated and recompiled.
+ * {@link BridgeCapabilities} are built once per type oracle and shared by all
+ * model types.
+ * <p>
+ * Mappings can also be generated ahead of time by javac, with
+ * {@link com.rhizospherejs.gwt.apt.RhizosphereMappingProcessor}. The
+ * generator picks up pre-generated mappings as they are.
  *
  * @author battlehorse@google.com (Riccardo Govoni)
  */
-public class RhizosphereGenerator extends Generator {
+public class RhizosphereGenerator extends GeneratorExt {
+
+  /**
+   * Name of the configuration property that enables single crossing bridges.
+   */
+  public static final String SINGLE_CROSSING_PROPERTY = "rhizosphere.bridge.singleCrossing";
+
+  /**
+   * Key under which generated mappings record the fingerprint of the model
+   * inspection they were generated from (see
+   * {@link ModelMapping#getFingerprint()}).
+   */
+  private static final String FINGERPRINT_KEY = "rhizosphere.mapping.fingerprint";
+
+  /**
+   * Key under which generated mappings record whether they contain single
+   * crossing bridges.
+   */
+  private static final String SINGLE_CROSSING_KEY = "rhizosphere.mapping.singleCrossing";
+
+  /**
+   * Bridge capabilities shared by all the mappings generated against the same
+   * type oracle, so that {@link BridgeCapabilities#JSO_BUILDER_CLASS} is
+   * scanned only once per compilation (or dev mode refresh), rather than
+   * once per model type.
+   */
+  private static BridgeCapabilities sharedBridgeCapabilities;
 
   @Override
-  public String generate(TreeLogger logger, GeneratorContext context, String requestedClass)
+  public RebindResult generateIncrementally(TreeLogger logger,
+                                            GeneratorContextExt context,
+                                            String requestedClass)
       throws UnableToCompleteException {
     TypeOracle oracle = context.getTypeOracle();
     JClassType modelType;
@@ -76,31 +141,179 @@ public class RhizosphereGenerator extends Generator {
       throw new UnableToCompleteException();
     }
 
-    BridgeCapabilities bridgeCapabilities = new BridgeCapabilities(
-        logger.branch(TreeLogger.TRACE, "Initializing BridgeCapabilities."), oracle).configure();
-    ModelInspector inspector = new ModelInspector(
-        logger.branch(TreeLogger.TRACE, "Initializing ModelInspector."), 
+    String mappingPackageName = modelType.getPackage().getName();
+    String mappingClassName = MappingWriter.getMappingClassName(modelType.getSimpleSourceName());
+    String mappingQualifiedName = mappingPackageName + "." + mappingClassName;
+    if (oracle.findType(mappingQualifiedName) != null) {
+      // Either generated for a previous permutation, or pre-generated at javac
+      // time by the annotation processor.
+      logger.log(TreeLogger.TRACE, mappingClassName + " already exists. Nothing to do.");
+      return new RebindResult(RebindStatus.USE_EXISTING, mappingQualifiedName);
+    }
+
+    boolean singleCrossing = isSingleCrossing(logger, context);
+    CachedRebindResult cachedResult = context.isGeneratorResultCachingEnabled() ?
+        context.getCachedGeneratorResult() : null;
+    if (cachedResult != null &&
+        isUpToDate(context, cachedResult, modelType, singleCrossing) &&
+        context.reuseTypeFromCacheIfAvailable(mappingQualifiedName)) {
+      logger.log(TreeLogger.TRACE, requestedClass + " has not been modified. Reusing cached mapping.");
+      return newRebindResult(RebindStatus.USE_PARTIAL_CACHED, mappingQualifiedName,
+          (String) cachedResult.getClientData(FINGERPRINT_KEY), singleCrossing);
+    }
+
+    BridgeCapabilities bridgeCapabilities = getBridgeCapabilities(logger, oracle);
+    ModelMapping mapping = new ModelInspector(
+        logger.branch(TreeLogger.TRACE, "Initializing ModelInspector."),
         oracle,
         modelType,
-        bridgeCapabilities).configure();
+        bridgeCapabilities).configure().getModelMapping();
+    String fingerprint = mapping.getFingerprint() + singleCrossing;
+
+    if (cachedResult != null &&
+        fingerprint.equals(cachedResult.getClientData(FINGERPRINT_KEY)) &&
+        context.reuseTypeFromCacheIfAvailable(mappingQualifiedName)) {
+      logger.log(TreeLogger.TRACE, mappingClassName + " is unchanged. Reusing cached mapping.");
+      return newRebindResult(RebindStatus.USE_PARTIAL_CACHED, mappingQualifiedName, fingerprint,
+          singleCrossing);
+    }
 
-    String mappingPackageName = modelType.getPackage().getName();
-    String mappingClassName = MappingWriter.getMappingClassName(modelType.getSimpleSourceName());
     PrintWriter pw = context.tryCreate(logger, mappingPackageName, mappingClassName);
     if (pw == null) {
       logger.log(TreeLogger.INFO, mappingClassName + " already exists. Nothing to do.");
-      return mappingPackageName + "." + mappingClassName;
+      return new RebindResult(RebindStatus.USE_EXISTING, mappingQualifiedName);
     }
 
     MappingWriter writer = new MappingWriter(
         logger.branch(TreeLogger.TRACE, "Initializing MappingWriter."),
         pw,
-        mappingPackageName,
-        modelType.getSimpleSourceName(),
-        bridgeCapabilities,
-        inspector);
+        mapping,
+        singleCrossing);
     writer.write();
     context.commit(logger, pw);
-    return mappingPackageName + "." + mappingClassName;
+    return newRebindResult(RebindStatus.USE_ALL_NEW, mappingQualifiedName, fingerprint,
+        singleCrossing);
+  }
+
+  /**
+   * Returns the bridge capabilities for the given type oracle, reusing the
+   * ones built by a previous invocation of the generator if they still
+   * describe it.
+   */
+  private static synchronized BridgeCapabilities getBridgeCapabilities(
+      TreeLogger logger, TypeOracle oracle) throws UnableToCompleteException {
+    if (sharedBridgeCapabilities == null || !sharedBridgeCapabilities.isCurrent(oracle)) {
+      sharedBridgeCapabilities = new BridgeCapabilities(
+          logger.branch(TreeLogger.TRACE, "Initializing BridgeCapabilities."), oracle).configure();
+    }
+    return sharedBridgeCapabilities;
+  }
+
+  /**
+   * Returns whether the mapping generated for the requested model type by a
+   * previous compilation is certainly still valid, without inspecting the
+   * model type: the mapping was generated with the same bridge shape, and
+   * neither the model type, nor its supertypes, nor the types returned by its
+   * methods, nor the JsoBuilder have been modified since. A {@code false}
+   * result only means that the model type must be inspected to tell.
+   */
+  private boolean isUpToDate(GeneratorContextExt context,
+                             CachedRebindResult cachedResult,
+                             JClassType modelType,
+                             boolean singleCrossing) {
+    if (cachedResult.getClientData(FINGERPRINT_KEY) == null ||
+        !Boolean.valueOf(singleCrossing).equals(cachedResult.getClientData(SINGLE_CROSSING_KEY))) {
+      return false;
+    }
+    long timeGenerated = cachedResult.getTimeGenerated();
+    if (isModifiedSince(context, modelType, timeGenerated)) {
+      return false;
+    }
+    // The inspection also reads the types the attributes are extracted from,
+    // for example to bake enum constants into the mapping.
+    for (JMethod method : modelType.getInheritableMethods()) {
+      if (isModifiedSince(context, method.getReturnType(), timeGenerated)) {
+        return false;
+      }
+    }
+    JClassType builderType =
+        context.getTypeOracle().findType(BridgeCapabilities.JSO_BUILDER_CLASS);
+    return builderType != null && !isSourceModifiedSince(context, builderType, timeGenerated);
+  }
+
+  /**
+   * Returns whether the source of a type, or of any of its supertypes, array
+   * component types or type arguments, may have been modified after the given
+   * time. Primitive types never are.
+   */
+  private static boolean isModifiedSince(GeneratorContextExt context, JType type, long time) {
+    JArrayType arrayType = type.isArray();
+    if (arrayType != null) {
+      return isModifiedSince(context, arrayType.getComponentType(), time);
+    }
+    JClassType classType = type.isClassOrInterface();
+    if (classType == null) {
+      return false;
+    }
+    JParameterizedType parameterized = classType.isParameterized();
+    if (parameterized != null) {
+      for (JClassType typeArg : parameterized.getTypeArgs()) {
+        if (isModifiedSince(context, typeArg, time)) {
+          return true;
+        }
+      }
+    }
+    for (JClassType supertype : classType.getErasedType().getFlattenedSupertypeHierarchy()) {
+      if (isSourceModifiedSince(context, supertype, time)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the source of a type may have been modified after the
+   * given time. Types whose source cannot be found, and whose modification
+   * time is therefore unknown, are assumed to be.
+   */
+  private static boolean isSourceModifiedSince(GeneratorContextExt context,
+                                               JClassType type,
+                                               long time) {
+    JParameterizedType parameterized = type.isParameterized();
+    JRawType raw = type.isRawType();
+    if (parameterized != null) {
+      type = parameterized.getBaseType();
+    } else if (raw != null) {
+      type = raw.getBaseType();
+    }
+    long lastModified = context.getSourceLastModifiedTime(type);
+    return lastModified == 0L || lastModified > time;
+  }
+
+  private RebindResult newRebindResult(RebindStatus status,
+                                       String mappingQualifiedName,
+                                       String fingerprint,
+                                       boolean singleCrossing) {
+    CachedClientDataMap clientData = new CachedClientDataMap();
+    clientData.put(FINGERPRINT_KEY, fingerprint);
+    clientData.put(SINGLE_CROSSING_KEY, singleCrossing);
+    return new RebindResult(status, mappingQualifiedName, clientData);
+  }
+
+  /**
+   * Returns whether single crossing bridges are enabled for the current
+   * compilation.
+   */
+  private boolean isSingleCrossing(TreeLogger logger, GeneratorContext context) {
+    try {
+      ConfigurationProperty property =
+          context.getPropertyOracle().getConfigurationProperty(SINGLE_CROSSING_PROPERTY);
+      List<String> values = property.getValues();
+      return !values.isEmpty() && Boolean.parseBoolean(values.get(0));
+    } catch (BadPropertyValueException e) {
+      logger.log(TreeLogger.TRACE,
+          SINGLE_CROSSING_PROPERTY + " is not defined. Using per-attribute bridges.");
+      return false;
+    }
   }
 }
@@ -0,0 +1,501 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.server;
+
+import com.rhizospherejs.gwt.client.RhizosphereKind;
+import com.rhizospherejs.gwt.client.bridge.DictionaryEncoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes a dataset in the compact columnar binary format decoded by
+ * {@link com.rhizospherejs.gwt.client.bridge.BinaryModelDecoder}. Meant to
+ * run on the server, which sends the encoded bytes to GWT clients in place of
+ * a JSON array of models.
+ * <p>
+ * Datasets are described column by column: each column holds the values of
+ * one attribute for all the models, and all columns must have the same
+ * length. Example:
+ *
+ * <pre><code>
+ * byte[] payload = new BinaryModelEncoder()
+ *     .setIds(ids)
+ *     .addStringColumn("name", "Name", RhizosphereKind.STRING, names)
+ *     .addIntegerColumn("age", "Age", RhizosphereKind.RANGE, ages)
+ *     .addBooleanColumn("manager", "Manager", managers)
+ *     .encode();
+ * </code></pre>
+ *
+ * <h3>Format</h3>
+ * All numbers are little-endian. Strings are encoded as a uint32 byte
+ * length followed by their UTF-8 bytes.
+ * <ul>
+ * <li>Preamble: the 4 bytes {@code RHZB}, a uint8 format version
+ *   ({@link #VERSION}), 3 padding bytes, then the number of models and the
+ *   number of attributes as uint32.</li>
+ * <li>Header, one entry per attribute: the attribute name, label and
+ *   Rhizosphere kind as strings (an empty kind marks attributes that are not
+ *   part of the metamodel, like the model id), the uint8 column type, the
+ *   uint32 number of models that have a value and, for numeric and date
+ *   columns, the minimum, maximum and sum of the values as float64.
+ *   Dictionary columns follow with the uint32 dictionary size and the
+ *   dictionary strings.</li>
+ * <li>Data, one column per attribute in header order. Each column starts at
+ *   an offset aligned to 8 bytes, so that clients can map it with a typed
+ *   array without copying it:
+ *   <ul>
+ *   <li>{@link #FLOAT64}: float64 values, NaN marks missing values.</li>
+ *   <li>{@link #INT32}: int32 values.</li>
+ *   <li>{@link #BOOL}: uint8 values, 1 for true, 0 for false, 2 marks missing
+ *     values.</li>
+ *   <li>{@link #CODE}: int32 dictionary codes, -1 marks missing values.</li>
+ *   <li>{@link #DATE}: float64 milliseconds since the epoch, NaN marks missing
+ *     values.</li>
+ *   <li>{@link #STRING}: one string per model, a length of
+ *     {@code 0xFFFFFFFF} marks missing values.</li>
+ *   </ul></li>
+ * </ul>
+ * String columns are dictionary encoded ({@link #CODE}) unless they have too
+ * many distinct values, using the same thresholds as
+ * {@link com.rhizospherejs.gwt.client.bridge.DictionaryEncoding}.
+ * <p>
+ * This class is not thread safe.
+ */
+public class BinaryModelEncoder {
+
+  /**
+   * Version of the format produced by this encoder.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * Column types.
+   */
+  public static final int FLOAT64 = 1;
+  public static final int INT32 = 2;
+  public static final int BOOL = 3;
+  public static final int CODE = 4;
+  public static final int DATE = 5;
+  public static final int STRING = 6;
+
+  /**
+   * A column of the dataset, with its header information.
+   */
+  private static final class Column {
+    String name;
+    String label;
+    String kind;
+    int type;
+    int count;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    double sum;
+    List<String> dictionary;
+    int[] ints;
+    double[] doubles;
+    byte[] bytes;
+    String[] strings;
+
+    Column(String name, String label, String kind, int type) {
+      this.name = name;
+      this.label = label != null ? label : "";
+      this.kind = kind;
+      this.type = type;
+    }
+
+    void accumulate(double value) {
+      count++;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      sum += value;
+    }
+  }
+
+  private final List<Column> columns = new ArrayList<Column>();
+  private int numModels = -1;
+
+  /**
+   * Sets the unique ids of the models. Ids are optional: models without an id
+   * are assigned one by the client.
+   *
+   * @param ids The model ids.
+   * @return this object, for chaining.
+   */
+  public BinaryModelEncoder setIds(String[] ids) {
+    Column column = new Column("id", "", "", STRING);
+    column.strings = ids;
+    for (String id : ids) {
+      if (id != null) {
+        column.count++;
+      }
+    }
+    return add(column, ids.length);
+  }
+
+  /**
+   * Sets the unique ids of the models, as integers.
+   *
+   * @param ids The model ids.
+   * @return this object, for chaining.
+   */
+  public BinaryModelEncoder setIds(int[] ids) {
+    Column column = new Column("id", "", "", INT32);
+    column.ints = ids;
+    column.count = ids.length;
+    return add(column, ids.length);
+  }
+
+  /**
+   * Adds a column of decimal numbers. Use {@link Double#NaN} for missing
+   * values.
+   *
+   * @param name The attribute name.
+   * @param label The user-visible attribute label, or {@code null}.
+   * @param kind The attribute kind, typically {@link RhizosphereKind#NUMBER}
+   *     or {@link RhizosphereKind#RANGE}.
+   * @param values The attribute values, one per model.
+   * @return this object, for chaining.
+   */
+  public BinaryModelEncoder addNumberColumn(String name,
+                                            String label,
+                                            RhizosphereKind kind,
+                                            double[] values) {
+    Column column = new Column(name, label, nativeKind(kind), FLOAT64);
+    column.doubles = values;
+    for (double value : values) {
+      if (!Double.isNaN(value)) {
+        column.accumulate(value);
+      }
+    }
+    return add(column, values.length);
+  }
+
+  /**
+   * Adds a column of integer numbers. Integer columns have no missing values.
+   *
+   * @param name The attribute name.
+   * @param label The user-visible attribute label, or {@code null}.
+   * @param kind The attribute kind, typically {@link RhizosphereKind#NUMBER}
+   *     or {@link RhizosphereKind#RANGE}.
+   * @param values The attribute values, one per model.
+   * @return this object, for chaining.
+   */
+  public BinaryModelEncoder addIntegerColumn(String name,
+                                             String label,
+                                             RhizosphereKind kind,
+                                             int[] values) {
+    Column column = new Column(name, label, nativeKind(kind), INT32);
+    column.ints = values;
+    for (int value : values) {
+      column.accumulate(value);
+    }
+    return add(column, values.length);
+  }
+
+  /**
+   * Adds a column of {@link RhizosphereKind#BOOLEAN} values. Use {@code null}
+   * for missing values.
+   *
+   * @param name The attribute name.
+   * @param label The user-visible attribute label, or {@code null}.
+   * @param values The attribute values, one per model.
+   * @return this object, for chaining.
+   */
+  public BinaryModelEncoder addBooleanColumn(String name, String label, Boolean[] values) {
+    Column column = new Column(name, label, nativeKind(RhizosphereKind.BOOLEAN), BOOL);
+    column.bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) {
+        column.bytes[i] = 2;
+      } else {
+        column.bytes[i] = (byte) (values[i] ? 1 : 0);
+        column.count++;
+      }
+    }
+    return add(column, values.length);
+  }
+
+  /**
+   * Adds a column of {@link RhizosphereKind#DATE} values. Use {@code null}
+   * for missing values.
+   *
+   * @param name The attribute name.
+   * @param label The user-visible attribute label, or {@code null}.
+   * @param values The attribute values, one per model.
+   * @return this object, for chaining.
+   */
+  public BinaryModelEncoder addDateColumn(String name, String label, Date[] values) {
+    Column column = new Column(name, label, nativeKind(RhizosphereKind.DATE), DATE);
+    column.doubles = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) {
+        column.doubles[i] = Double.NaN;
+      } else {
+        column.doubles[i] = values[i].getTime();
+        column.accumulate(column.doubles[i]);
+      }
+    }
+    return add(column, values.length);
+  }
+
+  /**
+   * Adds a column of strings. Use {@code null} for missing values. The
+   * column is dictionary encoded, unless it has too many distinct values.
+   *
+   * @param name The attribute name.
+   * @param label The user-visible attribute label, or {@code null}.
+   * @param kind The attribute kind, typically {@link RhizosphereKind#STRING}
+   *     or {@link RhizosphereKind#CATEGORY}.
+   * @param values The attribute values, one per model.
+   * @return this object, for chaining.
+   */
+  public BinaryModelEncoder addStringColumn(String name,
+                                            String label,
+                                            RhizosphereKind kind,
+                                            String[] values) {
+    Column column = new Column(name, label, nativeKind(kind), CODE);
+    Map<String, Integer> codes = new HashMap<String, Integer>();
+    column.dictionary = new ArrayList<String>();
+    column.ints = new int[values.length];
+    double maxDictionarySize = DictionaryEncoding.getMaxDictionarySize(values.length);
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) {
+        column.ints[i] = -1;
+        continue;
+      }
+      column.count++;
+      Integer code = codes.get(values[i]);
+      if (code == null) {
+        code = column.dictionary.size();
+        column.dictionary.add(values[i]);
+        codes.put(values[i], code);
+      }
+      column.ints[i] = code;
+    }
+    if (column.dictionary.size() > maxDictionarySize) {
+      column.type = STRING;
+      column.strings = values;
+      column.dictionary = null;
+      column.ints = null;
+    }
+    return add(column, values.length);
+  }
+
+  /**
+   * Encodes the dataset.
+   *
+   * @return The encoded bytes.
+   */
+  public byte[] encode() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      writeTo(bytes);
+    } catch (IOException e) {
+      // Cannot happen when writing to memory.
+      throw new IllegalStateException(e.getMessage());
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Encodes the dataset to the given stream.
+   *
+   * @param out The stream to write to. It is not closed.
+   * @throws IOException If writing to the stream fails.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    Output output = new Output(out);
+    output.writeByte('R');
+    output.writeByte('H');
+    output.writeByte('Z');
+    output.writeByte('B');
+    output.writeByte(VERSION);
+    output.align(4);
+    output.writeInt(Math.max(numModels, 0));
+    output.writeInt(columns.size());
+
+    for (Column column : columns) {
+      output.writeString(column.name);
+      output.writeString(column.label);
+      output.writeString(column.kind);
+      output.writeByte(column.type);
+      output.writeInt(column.count);
+      if (column.type == FLOAT64 || column.type == INT32 || column.type == DATE) {
+        output.writeDouble(column.count > 0 ? column.min : Double.NaN);
+        output.writeDouble(column.count > 0 ? column.max : Double.NaN);
+        output.writeDouble(column.sum);
+      }
+      if (column.type == CODE) {
+        output.writeInt(column.dictionary.size());
+        for (String value : column.dictionary) {
+          output.writeString(value);
+        }
+      }
+    }
+
+    for (Column column : columns) {
+      output.align(8);
+      switch (column.type) {
+        case FLOAT64:
+        case DATE:
+          for (double value : column.doubles) {
+            output.writeDouble(value);
+          }
+          break;
+        case INT32:
+        case CODE:
+          for (int value : column.ints) {
+            output.writeInt(value);
+          }
+          break;
+        case BOOL:
+          output.write(column.bytes);
+          break;
+        case STRING:
+          for (String value : column.strings) {
+            if (value == null) {
+              output.writeInt(0xFFFFFFFF);
+            } else {
+              output.writeString(value);
+            }
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unknown column type: " + column.type);
+      }
+    }
+    output.flush();
+  }
+
+  private BinaryModelEncoder add(Column column, int length) {
+    if (numModels >= 0 && length != numModels) {
+      throw new IllegalArgumentException("Column " + column.name + " has " + length
+          + " values, but previous columns have " + numModels);
+    }
+    for (Column existing : columns) {
+      if (existing.name.equals(column.name)) {
+        throw new IllegalArgumentException("Duplicate column: " + column.name);
+      }
+    }
+    numModels = length;
+    columns.add(column);
+    return this;
+  }
+
+  /**
+   * Returns the identifier the Rhizosphere javascript library uses for the
+   * given kind (see {@link RhizosphereKind#getNativeKind()}, which is only
+   * available on the client).
+   */
+  private static String nativeKind(RhizosphereKind kind) {
+    switch (kind) {
+      case BOOLEAN:
+        return "boolean";
+      case STRING:
+        return "string";
+      case NUMBER:
+        return "number";
+      case DATE:
+        return "date";
+      case RANGE:
+        return "range";
+      case CATEGORY:
+        return "category";
+      case DECIMAL:
+        return "decimal";
+      case DECIMALRANGE:
+        return "decimalRange";
+      case LOGARITHMRANGE:
+        return "logarithmRange";
+      case STRINGARRAY:
+        return "stringArray";
+      default:
+        throw new IllegalArgumentException("Unsupported kind: " + kind);
+    }
+  }
+
+  /**
+   * Little-endian writer that keeps track of the number of bytes written, for
+   * alignment purposes.
+   */
+  private static final class Output {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8];
+    private long position = 0;
+
+    Output(OutputStream out) {
+      this.out = out;
+    }
+
+    void writeByte(int value) throws IOException {
+      out.write(value);
+      position++;
+    }
+
+    void write(byte[] bytes) throws IOException {
+      out.write(bytes);
+      position += bytes.length;
+    }
+
+    void writeInt(int value) throws IOException {
+      for (int i = 0; i < 4; i++) {
+        buffer[i] = (byte) (value >>> (8 * i));
+      }
+      out.write(buffer, 0, 4);
+      position += 4;
+    }
+
+    void writeDouble(double value) throws IOException {
+      long bits = Double.doubleToLongBits(value);
+      for (int i = 0; i < 8; i++) {
+        buffer[i] = (byte) (bits >>> (8 * i));
+      }
+      out.write(buffer, 0, 8);
+      position += 8;
+    }
+
+    void writeString(String value) throws IOException {
+      byte[] utf8;
+      try {
+        utf8 = value.getBytes("UTF-8");
+      } catch (UnsupportedEncodingException e) {
+        // UTF-8 is always supported.
+        throw new IllegalStateException(e.getMessage());
+      }
+      writeInt(utf8.length);
+      write(utf8);
+    }
+
+    void align(int boundary) throws IOException {
+      while (position % boundary != 0) {
+        writeByte(0);
+      }
+    }
+
+    void flush() throws IOException {
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,228 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.apt;
+
+import com.rhizospherejs.gwt.client.RhizosphereMapping;
+import com.rhizospherejs.gwt.rebind.RhizosphereGenerator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Test helper that compiles model sources with
+ * {@link RhizosphereMappingProcessor} enabled, as javac would in a project
+ * build, so that the generated mappings are compiled along with the models
+ * and can be loaded and exercised on the JVM. The test classpath must contain
+ * gwt-user, which the generated mappings depend upon.
+ */
+public class MappingCompiler {
+
+  private final boolean singleCrossing;
+  private final File workDir;
+  private final File sourceOutputDir;
+  private final File classOutputDir;
+  private final DiagnosticCollector<JavaFileObject> diagnostics =
+      new DiagnosticCollector<JavaFileObject>();
+  private ClassLoader classLoader;
+
+  /**
+   * Creates a new compiler, writing its output to a temporary directory.
+   *
+   * @param singleCrossing Whether the processor should generate single
+   *     crossing bridges.
+   */
+  public MappingCompiler(boolean singleCrossing) throws IOException {
+    this.singleCrossing = singleCrossing;
+    workDir = File.createTempFile("rhizosphere-apt", "");
+    workDir.delete();
+    sourceOutputDir = new File(workDir, "src");
+    classOutputDir = new File(workDir, "classes");
+    if (!sourceOutputDir.mkdirs() || !classOutputDir.mkdirs()) {
+      throw new IOException("Unable to create " + workDir);
+    }
+  }
+
+  /**
+   * Returns an in-memory source file.
+   *
+   * @param className The fully qualified name of the class the source
+   *     defines.
+   * @param code The source code.
+   */
+  public static JavaFileObject source(String className, final String code) {
+    return new SimpleJavaFileObject(
+        URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+        JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return code;
+      }
+    };
+  }
+
+  /**
+   * Compiles the given sources, along with the sources the processor
+   * generates from them.
+   *
+   * @return Whether compilation completed without errors.
+   */
+  public boolean compile(JavaFileObject... sources) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      throw new IllegalStateException("A JDK is required to compile mappings.");
+    }
+    StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(diagnostics, null, null);
+    List<String> options = new ArrayList<String>(Arrays.asList(
+        "-processor", RhizosphereMappingProcessor.class.getName(),
+        "-classpath", System.getProperty("java.class.path"),
+        "-s", sourceOutputDir.getPath(),
+        "-d", classOutputDir.getPath()));
+    if (singleCrossing) {
+      options.add("-A" + RhizosphereGenerator.SINGLE_CROSSING_PROPERTY + "=true");
+    }
+    try {
+      return compiler.getTask(
+          null, fileManager, diagnostics, options, null, Arrays.asList(sources)).call();
+    } finally {
+      fileManager.close();
+    }
+  }
+
+  /**
+   * Returns the diagnostics reported by the compiler so far.
+   */
+  public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+    return diagnostics.getDiagnostics();
+  }
+
+  /**
+   * Returns whether the compiler reported an error containing the given
+   * message.
+   */
+  public boolean hasError(String message) {
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR &&
+          diagnostic.getMessage(null).contains(message)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the processor generated a source for the given class.
+   */
+  public boolean isGenerated(String className) {
+    return getSourceFile(className).exists();
+  }
+
+  /**
+   * Returns the source the processor generated for the given class.
+   */
+  public String readGeneratedSource(String className) throws IOException {
+    Reader reader = new InputStreamReader(new FileInputStream(getSourceFile(className)), "UTF-8");
+    try {
+      StringBuilder contents = new StringBuilder();
+      char[] buffer = new char[4096];
+      for (int read = reader.read(buffer); read >= 0; read = reader.read(buffer)) {
+        contents.append(buffer, 0, read);
+      }
+      return contents.toString();
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Loads one of the compiled classes.
+   */
+  public Class<?> loadClass(String className) throws ClassNotFoundException {
+    if (classLoader == null) {
+      URL[] urls;
+      try {
+        urls = new URL[] {classOutputDir.toURI().toURL()};
+      } catch (IOException e) {
+        throw new ClassNotFoundException(className, e);
+      }
+      classLoader = new URLClassLoader(urls, MappingCompiler.class.getClassLoader());
+    }
+    return classLoader.loadClass(className);
+  }
+
+  /**
+   * Instantiates the mapping generated for the given model class.
+   *
+   * @param modelClassName The fully qualified name of the model class.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> RhizosphereMapping<T> newMapping(String modelClassName) throws Exception {
+    return (RhizosphereMapping<T>) loadClass(modelClassName + "Mapping").newInstance();
+  }
+
+  /**
+   * Instantiates one of the compiled classes, using the only constructor
+   * that accepts the given number of arguments.
+   */
+  public Object newInstance(String className, Object... args) throws Exception {
+    for (Constructor<?> constructor : loadClass(className).getConstructors()) {
+      if (constructor.getParameterTypes().length == args.length) {
+        return constructor.newInstance(args);
+      }
+    }
+    throw new NoSuchMethodException(className + " has no constructor for " + Arrays.asList(args));
+  }
+
+  /**
+   * Deletes the compiler output.
+   */
+  public void dispose() {
+    delete(workDir);
+  }
+
+  private File getSourceFile(String className) {
+    return new File(sourceOutputDir, className.replace('.', '/') + ".java");
+  }
+
+  private static void delete(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+}
@@ -0,0 +1,149 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.apt;
+
+import com.rhizospherejs.gwt.client.AttributeAccessors;
+import com.rhizospherejs.gwt.client.RhizosphereMapping;
+
+import junit.framework.TestCase;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+
+/**
+ * Tests for {@link RhizosphereMappingProcessor}, running it within javac on
+ * sample model sources and exercising the compiled mappings.
+ */
+public class RhizosphereMappingProcessorTest extends TestCase {
+
+  private static final String PERSON =
+      "package demo;\n" +
+      "import com.rhizospherejs.gwt.client.RhizosphereModel;\n" +
+      "import com.rhizospherejs.gwt.client.RhizosphereModelAttribute;\n" +
+      "import java.util.Date;\n" +
+      "public class Person implements RhizosphereModel {\n" +
+      "  private final String id;\n" +
+      "  private final int age;\n" +
+      "  private final Date hired;\n" +
+      "  public Person(String id, int age, Date hired) {\n" +
+      "    this.id = id;\n" +
+      "    this.age = age;\n" +
+      "    this.hired = hired;\n" +
+      "  }\n" +
+      "  @RhizosphereModelAttribute(modelId = true) public String getId() { return id; }\n" +
+      "  @RhizosphereModelAttribute public int getAge() { return age; }\n" +
+      "  @RhizosphereModelAttribute public boolean isManager() { return age > 40; }\n" +
+      "  @RhizosphereModelAttribute(lazy = true) public Date getHired() { return hired; }\n" +
+      "}\n";
+
+  private MappingCompiler compiler;
+
+  @Override
+  protected void tearDown() throws Exception {
+    if (compiler != null) {
+      compiler.dispose();
+    }
+  }
+
+  public void testGeneratesMapping() throws Exception {
+    compiler = new MappingCompiler(false);
+    boolean success = compiler.compile(MappingCompiler.source("demo.Person", PERSON));
+    assertTrue(compiler.getDiagnostics().toString(), success);
+
+    RhizosphereMapping<Object> mapping = compiler.newMapping("demo.Person");
+    AttributeAccessors<Object> accessors = mapping.newAttributeAccessors();
+    Object person = compiler.newInstance("demo.Person", "p1", 45, new Date(1000L));
+    assertEquals(4, accessors.getAttributeCount());
+    assertEquals("p1", accessors.<String>get(person, "id"));
+    assertEquals(Integer.valueOf(45), accessors.<Integer>get(person, "age"));
+    assertEquals(Boolean.TRUE, accessors.<Boolean>get(person, "manager"));
+    assertEquals(new Date(1000L), accessors.<Date>get(person, "hired"));
+    assertEquals(45.0, accessors.getDouble(person, "age"));
+
+    Class<?> bridgeClass = compiler.loadClass("demo.PersonMapping$PersonModelBridge");
+    assertNotNull(bridgeClass.getDeclaredMethod("supportsLazyAttributes"));
+    assertFalse(hasDeclaredMethod(bridgeClass, "createModel"));
+  }
+
+  public void testGeneratesSingleCrossingMapping() throws Exception {
+    compiler = new MappingCompiler(true);
+    boolean success = compiler.compile(MappingCompiler.source("demo.Person", PERSON));
+    assertTrue(compiler.getDiagnostics().toString(), success);
+
+    RhizosphereMapping<Object> mapping = compiler.newMapping("demo.Person");
+    Object person = compiler.newInstance("demo.Person", "p1", 30, null);
+    assertEquals(Boolean.FALSE, mapping.newAttributeAccessors().<Boolean>get(person, "manager"));
+
+    Class<?> bridgeClass = compiler.loadClass("demo.PersonMapping$PersonModelBridge");
+    assertTrue(hasDeclaredMethod(bridgeClass, "createModel"));
+  }
+
+  public void testSkipsAbstractAndNonModelClasses() throws Exception {
+    compiler = new MappingCompiler(false);
+    assertTrue(compiler.compile(
+        MappingCompiler.source("demo.Base",
+            "package demo;\n" +
+            "import com.rhizospherejs.gwt.client.RhizosphereModel;\n" +
+            "import com.rhizospherejs.gwt.client.RhizosphereModelAttribute;\n" +
+            "public abstract class Base implements RhizosphereModel {\n" +
+            "  @RhizosphereModelAttribute public int getAge() { return 0; }\n" +
+            "}\n"),
+        MappingCompiler.source("demo.Plain",
+            "package demo;\n" +
+            "public class Plain {\n" +
+            "  public int getAge() { return 0; }\n" +
+            "}\n")));
+    assertFalse(compiler.isGenerated("demo.BaseMapping"));
+    assertFalse(compiler.isGenerated("demo.PlainMapping"));
+  }
+
+  public void testRejectsLazyModelId() throws Exception {
+    compiler = new MappingCompiler(false);
+    assertFalse(compiler.compile(
+        MappingCompiler.source("demo.Person",
+            "package demo;\n" +
+            "import com.rhizospherejs.gwt.client.RhizosphereModel;\n" +
+            "import com.rhizospherejs.gwt.client.RhizosphereModelAttribute;\n" +
+            "public class Person implements RhizosphereModel {\n" +
+            "  @RhizosphereModelAttribute(modelId = true, lazy = true)\n" +
+            "  public String getId() { return null; }\n" +
+            "}\n")));
+    assertTrue(compiler.hasError("identifies the model and cannot be lazy"));
+    assertFalse(compiler.isGenerated("demo.PersonMapping"));
+  }
+
+  public void testRejectsModelsWithoutAttributes() throws Exception {
+    compiler = new MappingCompiler(false);
+    assertFalse(compiler.compile(
+        MappingCompiler.source("demo.Person",
+            "package demo;\n" +
+            "import com.rhizospherejs.gwt.client.RhizosphereModel;\n" +
+            "public class Person implements RhizosphereModel {\n" +
+            "  public String getId() { return null; }\n" +
+            "}\n")));
+    assertTrue(compiler.hasError("No suitable annotated methods found"));
+  }
+
+  private static boolean hasDeclaredMethod(Class<?> type, String name) {
+    for (Method method : type.getDeclaredMethods()) {
+      if (method.getName().equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
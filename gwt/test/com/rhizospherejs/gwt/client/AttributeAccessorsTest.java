@@ -0,0 +1,193 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.client;
+
+import com.rhizospherejs.gwt.apt.MappingCompiler;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Tests for the {@link AttributeAccessors} generated along with
+ * {@link RhizosphereMapping}s, compiling a sample model with
+ * {@link com.rhizospherejs.gwt.apt.RhizosphereMappingProcessor}.
+ */
+public class AttributeAccessorsTest extends TestCase {
+
+  private static final String PERSON =
+      "package demo;\n" +
+      "import com.rhizospherejs.gwt.client.RhizosphereModel;\n" +
+      "import com.rhizospherejs.gwt.client.RhizosphereModelAttribute;\n" +
+      "import java.util.Date;\n" +
+      "public class Person implements RhizosphereModel {\n" +
+      "  public enum Team { RED, GREEN, BLUE }\n" +
+      "  private final String id;\n" +
+      "  private final int age;\n" +
+      "  private final double score;\n" +
+      "  private final boolean manager;\n" +
+      "  private final Long balance;\n" +
+      "  private final Date hired;\n" +
+      "  private final String team;\n" +
+      "  public Person(String id, int age, double score, boolean manager,\n" +
+      "                Long balance, Date hired, String team) {\n" +
+      "    this.id = id;\n" +
+      "    this.age = age;\n" +
+      "    this.score = score;\n" +
+      "    this.manager = manager;\n" +
+      "    this.balance = balance;\n" +
+      "    this.hired = hired;\n" +
+      "    this.team = team;\n" +
+      "  }\n" +
+      "  @RhizosphereModelAttribute(modelId = true) public String getId() { return id; }\n" +
+      "  @RhizosphereModelAttribute public int getAge() { return age; }\n" +
+      "  @RhizosphereModelAttribute public double getScore() { return score; }\n" +
+      "  @RhizosphereModelAttribute public boolean isManager() { return manager; }\n" +
+      "  @RhizosphereModelAttribute public Long getBalance() { return balance; }\n" +
+      "  @RhizosphereModelAttribute public Date getHired() { return hired; }\n" +
+      "  @RhizosphereModelAttribute public Team getTeam() {\n" +
+      "    return team == null ? null : Team.valueOf(team);\n" +
+      "  }\n" +
+      "  @RhizosphereModelAttribute public double[] getScores() { return new double[] {score}; }\n" +
+      "}\n";
+
+  private MappingCompiler compiler;
+  private AttributeAccessors<Object> accessors;
+  private Object alice;
+  private Object bob;
+  private Object carol;
+
+  @Override
+  protected void setUp() throws Exception {
+    compiler = new MappingCompiler(false);
+    boolean success = compiler.compile(MappingCompiler.source("demo.Person", PERSON));
+    assertTrue(compiler.getDiagnostics().toString(), success);
+    RhizosphereMapping<Object> mapping = compiler.newMapping("demo.Person");
+    accessors = mapping.newAttributeAccessors();
+    alice = compiler.newInstance("demo.Person",
+        "alice", 30, 7.5, true, 100L, new Date(2000L), "GREEN");
+    bob = compiler.newInstance("demo.Person",
+        "bob", 25, -1.5, false, null, null, "BLUE");
+    carol = compiler.newInstance("demo.Person",
+        "carol", 40, 3.0, false, 50L, new Date(1000L), null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    compiler.dispose();
+  }
+
+  public void testAttributeNames() {
+    List<String> names = new ArrayList<String>();
+    for (int i = 0; i < accessors.getAttributeCount(); i++) {
+      names.add(accessors.getAttributeName(i));
+      assertEquals(i, accessors.indexOf(accessors.getAttributeName(i)));
+    }
+    Collections.sort(names);
+    assertEquals(
+        Arrays.asList("age", "balance", "hired", "id", "manager", "score", "scores", "team"),
+        names);
+    assertEquals(-1, accessors.indexOf("missing"));
+    try {
+      accessors.getAttributeName(accessors.getAttributeCount());
+      fail("Invalid indexes should be rejected");
+    } catch (IndexOutOfBoundsException expected) {
+      // expected.
+    }
+  }
+
+  public void testTraits() {
+    for (String name : Arrays.asList("age", "score", "balance")) {
+      assertTrue(name, accessors.isNumeric(accessors.indexOf(name)));
+    }
+    for (String name : Arrays.asList("id", "manager", "hired", "team", "scores")) {
+      assertFalse(name, accessors.isNumeric(accessors.indexOf(name)));
+    }
+    for (String name : Arrays.asList("id", "age", "score", "manager", "balance", "hired", "team")) {
+      assertTrue(name, accessors.isSortable(accessors.indexOf(name)));
+    }
+    assertFalse(accessors.isSortable(accessors.indexOf("scores")));
+  }
+
+  public void testGet() {
+    assertEquals("alice", accessors.<String>get(alice, "id"));
+    assertEquals(Integer.valueOf(30), accessors.<Integer>get(alice, accessors.indexOf("age")));
+    assertEquals(Double.valueOf(7.5), accessors.<Double>get(alice, "score"));
+    assertEquals(Boolean.TRUE, accessors.<Boolean>get(alice, "manager"));
+    assertEquals(Long.valueOf(100L), accessors.<Long>get(alice, "balance"));
+    assertEquals(new Date(2000L), accessors.<Date>get(alice, "hired"));
+    assertEquals("GREEN", accessors.get(alice, "team").toString());
+    assertEquals(7.5, accessors.<double[]>get(alice, "scores")[0]);
+    assertNull(accessors.get(bob, "balance"));
+    assertNull(accessors.get(carol, "team"));
+    try {
+      accessors.get(alice, "missing");
+      fail("Unknown attributes should be rejected");
+    } catch (RhizosphereException expected) {
+      // expected.
+    }
+  }
+
+  public void testGetDouble() {
+    assertEquals(30.0, accessors.getDouble(alice, "age"));
+    assertEquals(-1.5, accessors.getDouble(bob, accessors.indexOf("score")));
+    assertEquals(100.0, accessors.getDouble(alice, "balance"));
+    assertTrue(Double.isNaN(accessors.getDouble(bob, "balance")));
+    try {
+      accessors.getDouble(alice, "hired");
+      fail("Non numeric attributes should be rejected");
+    } catch (RhizosphereException expected) {
+      // expected.
+    }
+  }
+
+  public void testPrimitiveComparators() {
+    assertSorted("age", bob, alice, carol);
+    assertSorted("score", bob, carol, alice);
+    assertSorted("manager", bob, carol, alice);
+  }
+
+  public void testValueComparators() {
+    // Missing values come first.
+    assertSorted("balance", bob, carol, alice);
+    assertSorted("hired", bob, carol, alice);
+    assertSorted("id", alice, bob, carol);
+    // Enums are sorted by declaration order.
+    assertSorted("team", carol, alice, bob);
+  }
+
+  public void testComparatorsAreCached() {
+    assertSame(accessors.getComparator(accessors.indexOf("age")), accessors.getComparator("age"));
+    try {
+      accessors.getComparator("scores");
+      fail("Non sortable attributes should be rejected");
+    } catch (RhizosphereException expected) {
+      // expected.
+    }
+  }
+
+  private void assertSorted(String attributeName, Object... expected) {
+    // The sort is stable, so ties keep this order.
+    List<Object> people = new ArrayList<Object>(Arrays.asList(alice, bob, carol));
+    Collections.sort(people, accessors.getComparator(attributeName));
+    assertEquals(attributeName, Arrays.asList(expected), people);
+  }
+}
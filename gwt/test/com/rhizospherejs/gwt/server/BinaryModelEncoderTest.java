@@ -0,0 +1,309 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.server;
+
+import com.rhizospherejs.gwt.client.RhizosphereKind;
+import com.rhizospherejs.gwt.client.bridge.DictionaryEncoding;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link BinaryModelEncoder}, decoding its output back according
+ * to the documented format.
+ */
+public class BinaryModelEncoderTest extends TestCase {
+
+  /**
+   * A column read back from an encoded payload.
+   */
+  private static class DecodedColumn {
+    String name;
+    String label;
+    String kind;
+    int type;
+    int count;
+    double min;
+    double max;
+    double sum;
+    List<String> dictionary;
+    Object[] values;
+  }
+
+  public void testRoundTrip() {
+    byte[] payload = new BinaryModelEncoder()
+        .setIds(new String[] {"a", "b", "c"})
+        .addNumberColumn("weight", "Weight", RhizosphereKind.DECIMAL,
+            new double[] {1.5, Double.NaN, -2.5})
+        .addIntegerColumn("age", "Age", RhizosphereKind.RANGE, new int[] {30, 40, 20})
+        .addBooleanColumn("manager", null, new Boolean[] {true, null, false})
+        .addDateColumn("hired", "Hired", new Date[] {new Date(1000L), null, new Date(3000L)})
+        .addStringColumn("team", "Team", RhizosphereKind.CATEGORY,
+            new String[] {"red", null, "red"})
+        .encode();
+    Map<String, DecodedColumn> columns = decode(payload, 3);
+    assertEquals(6, columns.size());
+
+    DecodedColumn ids = columns.get("id");
+    assertEquals("", ids.kind);
+    assertEquals(BinaryModelEncoder.STRING, ids.type);
+    assertValues(ids, "a", "b", "c");
+
+    DecodedColumn weight = columns.get("weight");
+    assertEquals("Weight", weight.label);
+    assertEquals("decimal", weight.kind);
+    assertEquals(BinaryModelEncoder.FLOAT64, weight.type);
+    assertEquals(2, weight.count);
+    assertEquals(-2.5, weight.min);
+    assertEquals(1.5, weight.max);
+    assertEquals(-1.0, weight.sum);
+    assertValues(weight, 1.5, Double.NaN, -2.5);
+
+    DecodedColumn age = columns.get("age");
+    assertEquals("range", age.kind);
+    assertEquals(BinaryModelEncoder.INT32, age.type);
+    assertEquals(20.0, age.min);
+    assertEquals(40.0, age.max);
+    assertEquals(90.0, age.sum);
+    assertValues(age, 30, 40, 20);
+
+    DecodedColumn manager = columns.get("manager");
+    assertEquals("", manager.label);
+    assertEquals("boolean", manager.kind);
+    assertEquals(2, manager.count);
+    assertValues(manager, (byte) 1, (byte) 2, (byte) 0);
+
+    DecodedColumn hired = columns.get("hired");
+    assertEquals("date", hired.kind);
+    assertEquals(BinaryModelEncoder.DATE, hired.type);
+    assertEquals(1000.0, hired.min);
+    assertEquals(3000.0, hired.max);
+    assertValues(hired, 1000.0, Double.NaN, 3000.0);
+
+    DecodedColumn team = columns.get("team");
+    assertEquals("category", team.kind);
+    assertEquals(BinaryModelEncoder.CODE, team.type);
+    assertEquals(2, team.count);
+    assertEquals(1, team.dictionary.size());
+    assertEquals("red", team.dictionary.get(0));
+    assertValues(team, 0, -1, 0);
+  }
+
+  public void testIntegerIds() {
+    byte[] payload = new BinaryModelEncoder().setIds(new int[] {7, 9}).encode();
+    DecodedColumn ids = decode(payload, 2).get("id");
+    assertEquals(BinaryModelEncoder.INT32, ids.type);
+    assertValues(ids, 7, 9);
+  }
+
+  public void testAbandonsDictionaryPastThreshold() {
+    // One distinct value more than a dictionary can hold, plus a missing one.
+    int numModels = DictionaryEncoding.MIN_DICTIONARY_SIZE + 2;
+    String[] values = new String[numModels];
+    for (int i = 0; i < numModels; i++) {
+      values[i] = "value\u00e8" + i;
+    }
+    values[numModels - 1] = null;
+    byte[] payload = new BinaryModelEncoder()
+        .addStringColumn("name", "Name", RhizosphereKind.STRING, values)
+        .encode();
+    DecodedColumn name = decode(payload, numModels).get("name");
+    assertEquals(BinaryModelEncoder.STRING, name.type);
+    assertEquals(numModels - 1, name.count);
+    assertNull(name.dictionary);
+    assertEquals(values[0], name.values[0]);
+    assertEquals(values[numModels - 2], name.values[numModels - 2]);
+    assertNull(name.values[numModels - 1]);
+  }
+
+  public void testEncodesAllKinds() {
+    // The identifiers rhizo.meta.Kind defines for each kind.
+    Map<RhizosphereKind, String> nativeKinds = new EnumMap<RhizosphereKind, String>(
+        RhizosphereKind.class);
+    nativeKinds.put(RhizosphereKind.BOOLEAN, "boolean");
+    nativeKinds.put(RhizosphereKind.STRING, "string");
+    nativeKinds.put(RhizosphereKind.NUMBER, "number");
+    nativeKinds.put(RhizosphereKind.DATE, "date");
+    nativeKinds.put(RhizosphereKind.RANGE, "range");
+    nativeKinds.put(RhizosphereKind.CATEGORY, "category");
+    nativeKinds.put(RhizosphereKind.DECIMAL, "decimal");
+    nativeKinds.put(RhizosphereKind.DECIMALRANGE, "decimalRange");
+    nativeKinds.put(RhizosphereKind.LOGARITHMRANGE, "logarithmRange");
+    nativeKinds.put(RhizosphereKind.STRINGARRAY, "stringArray");
+    assertEquals(RhizosphereKind.values().length, nativeKinds.size());
+    for (RhizosphereKind kind : RhizosphereKind.values()) {
+      byte[] payload = new BinaryModelEncoder()
+          .addNumberColumn("value", null, kind, new double[] {1})
+          .encode();
+      assertEquals(nativeKinds.get(kind), decode(payload, 1).get("value").kind);
+    }
+  }
+
+  public void testMissingValuesOnly() {
+    byte[] payload = new BinaryModelEncoder()
+        .addNumberColumn("weight", null, RhizosphereKind.NUMBER,
+            new double[] {Double.NaN, Double.NaN})
+        .addStringColumn("team", null, RhizosphereKind.CATEGORY, new String[] {null, null})
+        .encode();
+    Map<String, DecodedColumn> columns = decode(payload, 2);
+
+    DecodedColumn weight = columns.get("weight");
+    assertEquals(0, weight.count);
+    assertTrue(Double.isNaN(weight.min));
+    assertTrue(Double.isNaN(weight.max));
+    assertEquals(0.0, weight.sum);
+
+    DecodedColumn team = columns.get("team");
+    assertEquals(0, team.count);
+    assertTrue(team.dictionary.isEmpty());
+    assertValues(team, -1, -1);
+  }
+
+  public void testWriteToMatchesEncode() throws IOException {
+    BinaryModelEncoder encoder = new BinaryModelEncoder()
+        .setIds(new String[] {"a", "b"})
+        .addDateColumn("hired", null, new Date[] {new Date(1000L), null});
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    encoder.writeTo(out);
+    assertTrue(Arrays.equals(encoder.encode(), out.toByteArray()));
+  }
+
+  public void testRejectsMismatchedColumns() {
+    BinaryModelEncoder encoder = new BinaryModelEncoder()
+        .addIntegerColumn("age", null, RhizosphereKind.NUMBER, new int[] {1, 2});
+    try {
+      encoder.addIntegerColumn("height", null, RhizosphereKind.NUMBER, new int[] {1});
+      fail("Columns of different length should be rejected");
+    } catch (IllegalArgumentException expected) {
+      // expected.
+    }
+    try {
+      encoder.addIntegerColumn("age", null, RhizosphereKind.NUMBER, new int[] {1, 2});
+      fail("Duplicate columns should be rejected");
+    } catch (IllegalArgumentException expected) {
+      // expected.
+    }
+  }
+
+  private static void assertValues(DecodedColumn column, Object... expected) {
+    assertEquals(expected.length, column.values.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(column.name + "[" + i + "]", expected[i], column.values[i]);
+    }
+  }
+
+  /**
+   * Decodes a payload, checking its preamble and the alignment of its
+   * columns along the way.
+   */
+  private static Map<String, DecodedColumn> decode(byte[] payload, int expectedModels) {
+    ByteBuffer in = ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals('R', in.get());
+    assertEquals('H', in.get());
+    assertEquals('Z', in.get());
+    assertEquals('B', in.get());
+    assertEquals(BinaryModelEncoder.VERSION, in.get());
+    align(in, 4);
+    int numModels = in.getInt();
+    assertEquals(expectedModels, numModels);
+    int numColumns = in.getInt();
+
+    Map<String, DecodedColumn> columns = new LinkedHashMap<String, DecodedColumn>();
+    for (int i = 0; i < numColumns; i++) {
+      DecodedColumn column = new DecodedColumn();
+      column.name = readString(in);
+      column.label = readString(in);
+      column.kind = readString(in);
+      column.type = in.get();
+      column.count = in.getInt();
+      if (column.type == BinaryModelEncoder.FLOAT64 ||
+          column.type == BinaryModelEncoder.INT32 ||
+          column.type == BinaryModelEncoder.DATE) {
+        column.min = in.getDouble();
+        column.max = in.getDouble();
+        column.sum = in.getDouble();
+      }
+      if (column.type == BinaryModelEncoder.CODE) {
+        int size = in.getInt();
+        column.dictionary = new ArrayList<String>(size);
+        for (int j = 0; j < size; j++) {
+          column.dictionary.add(readString(in));
+        }
+      }
+      columns.put(column.name, column);
+    }
+
+    for (DecodedColumn column : columns.values()) {
+      align(in, 8);
+      column.values = new Object[numModels];
+      for (int i = 0; i < numModels; i++) {
+        switch (column.type) {
+          case BinaryModelEncoder.FLOAT64:
+          case BinaryModelEncoder.DATE:
+            column.values[i] = in.getDouble();
+            break;
+          case BinaryModelEncoder.INT32:
+          case BinaryModelEncoder.CODE:
+            column.values[i] = in.getInt();
+            break;
+          case BinaryModelEncoder.BOOL:
+            column.values[i] = in.get();
+            break;
+          case BinaryModelEncoder.STRING:
+            column.values[i] = readString(in);
+            break;
+          default:
+            fail("Unknown column type: " + column.type);
+        }
+      }
+    }
+    assertFalse(in.hasRemaining());
+    return columns;
+  }
+
+  private static void align(ByteBuffer in, int boundary) {
+    while (in.position() % boundary != 0) {
+      assertEquals(0, in.get());
+    }
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = in.getInt();
+    if (length == 0xFFFFFFFF) {
+      return null;
+    }
+    byte[] utf8 = new byte[length];
+    in.get(utf8);
+    try {
+      return new String(utf8, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.showcase.bench.client;
+
+import com.rhizospherejs.gwt.client.RhizosphereModel;
+import com.rhizospherejs.gwt.client.RhizosphereModelAttribute;
+
+/**
+ * A POJO exposing 20 attributes of mixed types (plus the model id), used to
+ * measure model bridge throughput.
+ */
+public class BenchModel implements RhizosphereModel {
+
+  private String id;
+  private String name;
+  private String city;
+  private String country;
+  private String department;
+  private String title;
+  private int age;
+  private int tenure;
+  private int reports;
+  private int projects;
+  private int floor;
+  private int rating;
+  private double salary;
+  private double bonus;
+  private double latitude;
+  private double longitude;
+  private double score;
+  private boolean manager;
+  private boolean remote;
+  private boolean active;
+  private boolean contractor;
+
+  /**
+   * Creates a new model whose attributes are derived from the given seed.
+   */
+  public BenchModel(int i) {
+    id = "bench-" + i;
+    name = "name-" + (i % 10);
+    city = "city-" + (i % 11);
+    country = "country-" + (i % 12);
+    department = "department-" + (i % 13);
+    title = "title-" + (i % 14);
+    age = i % 25;
+    tenure = i % 28;
+    reports = i % 31;
+    projects = i % 34;
+    floor = i % 37;
+    rating = i % 40;
+    salary = i * 0.12;
+    bonus = i * 0.13;
+    latitude = i * 0.14;
+    longitude = i * 0.15;
+    score = i * 0.16;
+    manager = i % 2 == 0;
+    remote = i % 3 == 0;
+    active = i % 4 == 0;
+    contractor = i % 5 == 0;
+  }
+
+  @RhizosphereModelAttribute(modelId=true, opaque=true)
+  public String getId() {
+    return id;
+  }
+
+  @RhizosphereModelAttribute
+  public String getName() {
+    return name;
+  }
+
+  @RhizosphereModelAttribute
+  public String getCity() {
+    return city;
+  }
+
+  @RhizosphereModelAttribute
+  public String getCountry() {
+    return country;
+  }
+
+  @RhizosphereModelAttribute
+  public String getDepartment() {
+    return department;
+  }
+
+  @RhizosphereModelAttribute
+  public String getTitle() {
+    return title;
+  }
+
+  @RhizosphereModelAttribute
+  public int getAge() {
+    return age;
+  }
+
+  @RhizosphereModelAttribute
+  public int getTenure() {
+    return tenure;
+  }
+
+  @RhizosphereModelAttribute
+  public int getReports() {
+    return reports;
+  }
+
+  @RhizosphereModelAttribute
+  public int getProjects() {
+    return projects;
+  }
+
+  @RhizosphereModelAttribute
+  public int getFloor() {
+    return floor;
+  }
+
+  @RhizosphereModelAttribute
+  public int getRating() {
+    return rating;
+  }
+
+  @RhizosphereModelAttribute
+  public double getSalary() {
+    return salary;
+  }
+
+  @RhizosphereModelAttribute
+  public double getBonus() {
+    return bonus;
+  }
+
+  @RhizosphereModelAttribute
+  public double getLatitude() {
+    return latitude;
+  }
+
+  @RhizosphereModelAttribute
+  public double getLongitude() {
+    return longitude;
+  }
+
+  @RhizosphereModelAttribute
+  public double getScore() {
+    return score;
+  }
+
+  @RhizosphereModelAttribute
+  public boolean isManager() {
+    return manager;
+  }
+
+  @RhizosphereModelAttribute
+  public boolean isRemote() {
+    return remote;
+  }
+
+  @RhizosphereModelAttribute
+  public boolean isActive() {
+    return active;
+  }
+
+  @RhizosphereModelAttribute
+  public boolean isContractor() {
+    return contractor;
+  }
+}
@@ -0,0 +1,256 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.showcase.bench.client;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.EntryPoint;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.user.client.ui.Label;
+import com.google.gwt.user.client.ui.RootPanel;
+
+import com.rhizospherejs.gwt.client.bridge.BinaryModelDecoder;
+import com.rhizospherejs.gwt.client.bridge.ColumnStore;
+import com.rhizospherejs.gwt.client.bridge.JSONStringModelBridge;
+import com.rhizospherejs.gwt.client.bridge.ModelStore;
+import com.rhizospherejs.gwt.client.bridge.ModelUpdate;
+import com.rhizospherejs.gwt.client.bridge.ParsedPayload;
+
+/**
+ * Measures the time and heap needed to load the same dataset from a JSON
+ * payload and from a binary payload (see
+ * {@link com.rhizospherejs.gwt.server.BinaryModelEncoder}).
+ * <p>
+ * The payloads are generated by
+ * {@link com.rhizospherejs.gwt.showcase.bench.server.BenchPayloadGenerator}
+ * and fetched from the host page directory. Each round loads the dataset
+ * three times:
+ * <ul>
+ * <li>from JSON, via {@link JSONStringModelBridge#bridgePayload};</li>
+ * <li>from the binary payload, adopting its columns into a
+ *   {@link ColumnStore};</li>
+ * <li>from the binary payload, materializing one javascript object per
+ *   model.</li>
+ * </ul>
+ * Heap usage is the growth of the javascript heap while the loaded models are
+ * still reachable. It relies on the non-standard
+ * {@code performance.memory} API and is only reported where available
+ * (Chrome started with {@code --enable-precise-memory-info} gives the most
+ * accurate figures). Results are appended to the page once all rounds
+ * complete.
+ */
+public class BinaryPayloadBenchmark implements EntryPoint {
+
+  private static final int NUM_WARMUP_ROUNDS = 2;
+  private static final int NUM_ROUNDS = 5;
+
+  /**
+   * One of the measured loading strategies.
+   */
+  private abstract static class Strategy {
+    final String name;
+    double totalMillis;
+    double totalHeap;
+    int numModels;
+
+    Strategy(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Loads the dataset, returning the loaded models.
+     */
+    abstract JavaScriptObject load();
+
+    void run(boolean measure) {
+      double heapBefore = usedHeapSize();
+      Duration duration = new Duration();
+      JavaScriptObject loaded = load();
+      double elapsed = duration.elapsedMillis();
+      double heapAfter = usedHeapSize();
+      if (measure) {
+        totalMillis += elapsed;
+        totalHeap += heapAfter - heapBefore;
+      }
+      numModels = length(loaded);
+    }
+
+    String report() {
+      String report = name + ": " + Math.round(totalMillis / NUM_ROUNDS) + " ms";
+      if (usedHeapSize() >= 0) {
+        report += ", " + Math.round(totalHeap / NUM_ROUNDS / 1024) + " KB heap";
+      }
+      return report + " (" + numModels + " models)";
+    }
+  }
+
+  private String jsonPayload;
+  private JavaScriptObject binaryPayload;
+  private Strategy[] strategies;
+  private int round;
+
+  @Override
+  public void onModuleLoad() {
+    if (!BinaryModelDecoder.isSupported() || !ColumnStore.isSupported()) {
+      log("Binary payloads are not supported by this browser.");
+      return;
+    }
+    strategies = new Strategy[] {
+      new Strategy("JSON payload") {
+        @Override
+        JavaScriptObject load() {
+          ModelStore store = ModelStore.create();
+          JsArray<ModelUpdate> updates = JavaScriptObject.createArray().cast();
+          new JSONStringModelBridge().bridgePayload(jsonPayload, store, updates);
+          return store;
+        }
+      },
+      new Strategy("Binary payload, column store") {
+        @Override
+        JavaScriptObject load() {
+          ModelStore store = ModelStore.create();
+          JsArray<ModelUpdate> updates = JavaScriptObject.createArray().cast();
+          JSONStringModelBridge bridge = new JSONStringModelBridge();
+          bridge.setColumnStore(ColumnStore.create());
+          bridge.bridgeParsed(BinaryModelDecoder.decode(binaryPayload), store, updates);
+          return store;
+        }
+      },
+      new Strategy("Binary payload, materialized") {
+        @Override
+        JavaScriptObject load() {
+          ModelStore store = ModelStore.create();
+          JsArray<ModelUpdate> updates = JavaScriptObject.createArray().cast();
+          new JSONStringModelBridge().bridgeParsed(
+              BinaryModelDecoder.decode(binaryPayload), store, updates);
+          return store;
+        }
+      }
+    };
+    fetchPayloads();
+  }
+
+  private void fetchPayloads() {
+    log("Fetching payloads...");
+    RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, "payload.json");
+    try {
+      builder.sendRequest(null, new RequestCallback() {
+        @Override
+        public void onResponseReceived(Request request, Response response) {
+          if (response.getStatusCode() != Response.SC_OK) {
+            log("Unable to fetch payload.json (HTTP " + response.getStatusCode() + ")");
+            return;
+          }
+          jsonPayload = response.getText();
+          fetchBinaryPayload("payload.bin");
+        }
+
+        @Override
+        public void onError(Request request, Throwable exception) {
+          log("Unable to fetch payload.json: " + exception.getMessage());
+        }
+      });
+    } catch (RequestException e) {
+      log("Unable to fetch payload.json: " + e.getMessage());
+    }
+  }
+
+  private native void fetchBinaryPayload(String url) /*-{
+    var self = this;
+    var xhr = new XMLHttpRequest();
+    xhr.open('GET', url, true);
+    xhr.responseType = 'arraybuffer';
+    xhr.onreadystatechange = $entry(function() {
+      if (xhr.readyState != 4) {
+        return;
+      }
+      if (xhr.status != 200) {
+        self.@com.rhizospherejs.gwt.showcase.bench.client.BinaryPayloadBenchmark::log(Ljava/lang/String;)(
+            'Unable to fetch ' + url + ' (HTTP ' + xhr.status + ')');
+        return;
+      }
+      self.@com.rhizospherejs.gwt.showcase.bench.client.BinaryPayloadBenchmark::onPayloadsFetched(Lcom/google/gwt/core/client/JavaScriptObject;)(
+          xhr.response);
+    });
+    xhr.send(null);
+  }-*/;
+
+  private void onPayloadsFetched(JavaScriptObject binaryPayload) {
+    this.binaryPayload = binaryPayload;
+    log("JSON payload: " + jsonPayload.length() + " chars, binary payload: " +
+        byteLength(binaryPayload) + " bytes. Running " + NUM_ROUNDS + " rounds...");
+
+    // Run one strategy at a time, to give the browser a chance to collect the
+    // models loaded by the previous one.
+    Scheduler.get().scheduleIncremental(new RepeatingCommand() {
+      private int next;
+
+      @Override
+      public boolean execute() {
+        // Alternate which strategy goes first.
+        int index = (round + next) % strategies.length;
+        strategies[index].run(round >= NUM_WARMUP_ROUNDS);
+        next++;
+        if (next < strategies.length) {
+          return true;
+        }
+        next = 0;
+        round++;
+        if (round < NUM_WARMUP_ROUNDS + NUM_ROUNDS) {
+          return true;
+        }
+        report();
+        return false;
+      }
+    });
+  }
+
+  private void report() {
+    for (Strategy strategy : strategies) {
+      log(strategy.report());
+    }
+  }
+
+  /**
+   * Returns the size of the used javascript heap in bytes, or -1 if it is
+   * not available.
+   */
+  private static native double usedHeapSize() /*-{
+    var performance = $wnd.performance;
+    return (performance && performance.memory) ?
+        performance.memory.usedJSHeapSize : -1;
+  }-*/;
+
+  private static native int length(JavaScriptObject array) /*-{
+    return array.length;
+  }-*/;
+
+  private static native int byteLength(JavaScriptObject buffer) /*-{
+    return buffer.byteLength;
+  }-*/;
+
+  private void log(String message) {
+    RootPanel.get().add(new Label(message));
+  }
+}
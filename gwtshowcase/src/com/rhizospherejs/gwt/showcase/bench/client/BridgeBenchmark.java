@@ -0,0 +1,169 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.showcase.bench.client;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.EntryPoint;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.RepeatingCommand;
+import com.google.gwt.user.client.ui.Label;
+import com.google.gwt.user.client.ui.RootPanel;
+
+import com.rhizospherejs.gwt.client.RhizosphereMapping;
+import com.rhizospherejs.gwt.client.bridge.JsoBuilder;
+import com.rhizospherejs.gwt.client.bridge.ModelBridge;
+
+/**
+ * Measures the throughput of model bridges for a 20-attribute model.
+ * <p>
+ * The module compiles generated bridges in single crossing mode (see
+ * {@link com.rhizospherejs.gwt.rebind.RhizosphereGenerator}). They are
+ * compared against {@link PerAttributeBridge}, which mirrors the code the
+ * generator emits when single crossing mode is disabled. Each round bridges
+ * {@link #NUM_MODELS} models with both bridges, alternating which goes first.
+ * Results are appended to the page once all rounds complete.
+ */
+public class BridgeBenchmark implements EntryPoint {
+
+  private static final int NUM_MODELS = 20000;
+  private static final int NUM_WARMUP_ROUNDS = 3;
+  private static final int NUM_ROUNDS = 10;
+
+  /**
+   * A bridge that ports each attribute with a separate JsoBuilder call, as
+   * generated bridges do when single crossing mode is disabled.
+   */
+  private static final class PerAttributeBridge extends ModelBridge<BenchModel> {
+    public PerAttributeBridge() {
+      super(null);
+    }
+
+    @Override
+    protected JavaScriptObject bridgeInternal(BenchModel model, JsoBuilder builder) {
+      JavaScriptObject target = JavaScriptObject.createObject();
+      builder.setTarget(target);
+      builder.setString("name", model.getName());
+      builder.setString("city", model.getCity());
+      builder.setString("country", model.getCountry());
+      builder.setString("department", model.getDepartment());
+      builder.setString("title", model.getTitle());
+      builder.setInteger("age", model.getAge());
+      builder.setInteger("tenure", model.getTenure());
+      builder.setInteger("reports", model.getReports());
+      builder.setInteger("projects", model.getProjects());
+      builder.setInteger("floor", model.getFloor());
+      builder.setInteger("rating", model.getRating());
+      builder.setDouble("salary", model.getSalary());
+      builder.setDouble("bonus", model.getBonus());
+      builder.setDouble("latitude", model.getLatitude());
+      builder.setDouble("longitude", model.getLongitude());
+      builder.setDouble("score", model.getScore());
+      builder.setBoolean("manager", model.isManager());
+      builder.setBoolean("remote", model.isRemote());
+      builder.setBoolean("active", model.isActive());
+      builder.setBoolean("contractor", model.isContractor());
+      builder.setString("id", model.getId());
+      return target;
+    }
+  }
+
+  private BenchModel[] models;
+  private ModelBridge<BenchModel> perAttributeBridge;
+  private ModelBridge<BenchModel> singleCrossingBridge;
+  private double perAttributeMillis;
+  private double singleCrossingMillis;
+  private int round;
+
+  @Override
+  public void onModuleLoad() {
+    models = new BenchModel[NUM_MODELS];
+    for (int i = 0; i < NUM_MODELS; i++) {
+      models[i] = new BenchModel(i);
+    }
+    perAttributeBridge = new PerAttributeBridge();
+    RhizosphereMapping<BenchModel> mapping = GWT.create(BenchModel.class);
+    singleCrossingBridge = mapping.newModelBridge(null);
+
+    log("Bridging " + NUM_MODELS + " models, " + NUM_ROUNDS + " rounds...");
+
+    // Run one round at a time, to give the browser a chance to collect the
+    // models generated by the previous one.
+    Scheduler.get().scheduleIncremental(new RepeatingCommand() {
+      @Override
+      public boolean execute() {
+        runRound();
+        round++;
+        if (round < NUM_WARMUP_ROUNDS + NUM_ROUNDS) {
+          return true;
+        }
+        report();
+        return false;
+      }
+    });
+  }
+
+  private void runRound() {
+    boolean measure = round >= NUM_WARMUP_ROUNDS;
+    if (round % 2 == 0) {
+      double elapsed = time(perAttributeBridge);
+      if (measure) {
+        perAttributeMillis += elapsed;
+      }
+      elapsed = time(singleCrossingBridge);
+      if (measure) {
+        singleCrossingMillis += elapsed;
+      }
+    } else {
+      double elapsed = time(singleCrossingBridge);
+      if (measure) {
+        singleCrossingMillis += elapsed;
+      }
+      elapsed = time(perAttributeBridge);
+      if (measure) {
+        perAttributeMillis += elapsed;
+      }
+    }
+  }
+
+  /**
+   * Bridges all the models with the given bridge, returning the elapsed time
+   * in milliseconds.
+   */
+  private double time(ModelBridge<BenchModel> bridge) {
+    JavaScriptObject[] bridged = new JavaScriptObject[NUM_MODELS];
+    Duration duration = new Duration();
+    for (int i = 0; i < NUM_MODELS; i++) {
+      bridged[i] = bridge.bridge(models[i]);
+    }
+    return duration.elapsedMillis();
+  }
+
+  private void report() {
+    log("Per-attribute bridge: " + throughput(perAttributeMillis) + " models/sec");
+    log("Single crossing bridge: " + throughput(singleCrossingMillis) + " models/sec");
+  }
+
+  private long throughput(double totalMillis) {
+    return Math.round(NUM_MODELS * NUM_ROUNDS * 1000.0 / Math.max(totalMillis, 1));
+  }
+
+  private void log(String message) {
+    RootPanel.get().add(new Label(message));
+  }
+}
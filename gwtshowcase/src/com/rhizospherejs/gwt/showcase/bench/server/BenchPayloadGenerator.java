@@ -0,0 +1,160 @@
+/*
+  Copyright 2011 The Rhizosphere Authors. All Rights Reserved.
+
+  Licensed under the Apache License, Version 2.0 (the "License");
+  you may not use this file except in compliance with the License.
+  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+*/
+
+package com.rhizospherejs.gwt.showcase.bench.server;
+
+import com.rhizospherejs.gwt.client.RhizosphereKind;
+import com.rhizospherejs.gwt.server.BinaryModelEncoder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Date;
+import java.util.Random;
+
+/**
+ * Generates the payloads used by
+ * {@link com.rhizospherejs.gwt.showcase.bench.client.BinaryPayloadBenchmark}:
+ * the same dataset of {@link #NUM_MODELS} models with 15 attributes each,
+ * once encoded with {@link BinaryModelEncoder} ({@code payload.bin}) and once
+ * as a JSON array ({@code payload.json}). JSON has no date type, so dates are
+ * written there as milliseconds since the epoch.
+ * <p>
+ * Usage: {@code BenchPayloadGenerator <output directory>}
+ */
+public class BenchPayloadGenerator {
+
+  private static final int NUM_MODELS = 100000;
+
+  private static final String[] DEPARTMENTS = {
+    "Engineering", "Sales", "Marketing", "Finance", "Legal", "Support",
+    "Research", "Operations", "Design", "Facilities"
+  };
+
+  private final String[] ids = new String[NUM_MODELS];
+  private final String[] names = new String[NUM_MODELS];
+  private final String[] cities = new String[NUM_MODELS];
+  private final String[] countries = new String[NUM_MODELS];
+  private final String[] departments = new String[NUM_MODELS];
+  private final String[] titles = new String[NUM_MODELS];
+  private final int[] ages = new int[NUM_MODELS];
+  private final int[] tenures = new int[NUM_MODELS];
+  private final int[] floors = new int[NUM_MODELS];
+  private final int[] ratings = new int[NUM_MODELS];
+  private final double[] salaries = new double[NUM_MODELS];
+  private final double[] bonuses = new double[NUM_MODELS];
+  private final double[] scores = new double[NUM_MODELS];
+  private final Date[] hired = new Date[NUM_MODELS];
+  private final Boolean[] managers = new Boolean[NUM_MODELS];
+  private final Boolean[] remotes = new Boolean[NUM_MODELS];
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: BenchPayloadGenerator <output directory>");
+      System.exit(1);
+    }
+    File outputDir = new File(args[0]);
+    if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+      throw new IOException("Cannot create " + outputDir);
+    }
+    BenchPayloadGenerator generator = new BenchPayloadGenerator();
+    generator.generate(new Random(42));
+    generator.writeBinary(new File(outputDir, "payload.bin"));
+    generator.writeJson(new File(outputDir, "payload.json"));
+  }
+
+  private void generate(Random random) {
+    for (int i = 0; i < NUM_MODELS; i++) {
+      ids[i] = "m" + i;
+      names[i] = "Employee " + i;
+      cities[i] = "City " + random.nextInt(50);
+      countries[i] = "Country " + random.nextInt(20);
+      departments[i] = DEPARTMENTS[random.nextInt(DEPARTMENTS.length)];
+      titles[i] = "Title " + random.nextInt(30);
+      ages[i] = 20 + random.nextInt(45);
+      tenures[i] = random.nextInt(30);
+      floors[i] = random.nextInt(12);
+      ratings[i] = 1 + random.nextInt(5);
+      salaries[i] = 30000 + random.nextInt(170000) + random.nextInt(100) / 100.0;
+      bonuses[i] = salaries[i] * random.nextDouble() * 0.2;
+      scores[i] = random.nextDouble() * 100;
+      hired[i] = new Date(946684800000L + random.nextInt(4000) * 86400000L);
+      managers[i] = random.nextInt(8) == 0;
+      remotes[i] = random.nextBoolean();
+    }
+  }
+
+  private void writeBinary(File file) throws IOException {
+    OutputStream out = new FileOutputStream(file);
+    try {
+      new BinaryModelEncoder()
+          .setIds(ids)
+          .addStringColumn("name", "Name", RhizosphereKind.STRING, names)
+          .addStringColumn("city", "City", RhizosphereKind.CATEGORY, cities)
+          .addStringColumn("country", "Country", RhizosphereKind.CATEGORY, countries)
+          .addStringColumn("department", "Department", RhizosphereKind.CATEGORY, departments)
+          .addStringColumn("title", "Title", RhizosphereKind.STRING, titles)
+          .addIntegerColumn("age", "Age", RhizosphereKind.RANGE, ages)
+          .addIntegerColumn("tenure", "Tenure", RhizosphereKind.RANGE, tenures)
+          .addIntegerColumn("floor", "Floor", RhizosphereKind.NUMBER, floors)
+          .addIntegerColumn("rating", "Rating", RhizosphereKind.RANGE, ratings)
+          .addNumberColumn("salary", "Salary", RhizosphereKind.RANGE, salaries)
+          .addNumberColumn("bonus", "Bonus", RhizosphereKind.NUMBER, bonuses)
+          .addNumberColumn("score", "Score", RhizosphereKind.RANGE, scores)
+          .addDateColumn("hired", "Hired", hired)
+          .addBooleanColumn("manager", "Manager", managers)
+          .addBooleanColumn("remote", "Remote", remotes)
+          .writeTo(out);
+    } finally {
+      out.close();
+    }
+  }
+
+  private void writeJson(File file) throws IOException {
+    Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    try {
+      out.write('[');
+      for (int i = 0; i < NUM_MODELS; i++) {
+        if (i > 0) {
+          out.write(",\n");
+        }
+        out.write("{\"id\":\"" + ids[i] + "\"");
+        out.write(",\"name\":\"" + names[i] + "\"");
+        out.write(",\"city\":\"" + cities[i] + "\"");
+        out.write(",\"country\":\"" + countries[i] + "\"");
+        out.write(",\"department\":\"" + departments[i] + "\"");
+        out.write(",\"title\":\"" + titles[i] + "\"");
+        out.write(",\"age\":" + ages[i]);
+        out.write(",\"tenure\":" + tenures[i]);
+        out.write(",\"floor\":" + floors[i]);
+        out.write(",\"rating\":" + ratings[i]);
+        out.write(",\"salary\":" + salaries[i]);
+        out.write(",\"bonus\":" + bonuses[i]);
+        out.write(",\"score\":" + scores[i]);
+        out.write(",\"hired\":" + hired[i].getTime());
+        out.write(",\"manager\":" + managers[i]);
+        out.write(",\"remote\":" + remotes[i]);
+        out.write('}');
+      }
+      out.write(']');
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -49,6 +49,14 @@ rhizo.Project = function(gui, opt_options) {
    */
   this.state_ = null;
 
+  /**
+   * The state captured when the project was hibernated, or null if the
+   * project is not hibernated.
+   * @type {Object}
+   * @private
+   */
+  this.hibernation_ = null;
+
   /**
    * The publish/subscribe message dispatcher used by visualization elements
    * and components to communicate across the project.
@@ -95,38 +103,89 @@ rhizo.Project.prototype.metaReady = function() {
   return true;
 };
 
+/**
+ * Deploys the project, making all its models visible and laying them out.
+ *
+ * @param {Array.<*>} opt_models The models to deploy. If omitted, the models
+ *     previously staged via stageModels() are deployed.
+ */
 rhizo.Project.prototype.deploy = function(opt_models) {
-  if (opt_models && this.addModels_(opt_models)) {
+  var success = !opt_models || !!this.buildModels_(opt_models);
+  // An explicit, even if empty, set of models always yields a live
+  // visualization, which models can be added to afterward.
+  if (success && (opt_models || this.models_.length > 0)) {
     this.finalizeUI_();
   }
   this.logger_.info("*** Ready!");
 };
 
-rhizo.Project.prototype.addModels_ = function(models) {
+/**
+ * Adds a batch of models to a project that has not been deployed yet. The
+ * renderings for the models are created right away, but they remain hidden
+ * until deploy() is invoked. This allows the creation of renderings for large
+ * sets of models to be split in multiple, time-sliced, steps.
+ *
+ * @param {!Array.<*>} models The models to stage.
+ * @return {boolean} Whether the models were successfully staged.
+ */
+rhizo.Project.prototype.stageModels = function(models) {
+  return !!this.buildModels_(models);
+};
+
+/**
+ * Wraps a set of models into SuperModels, verifies them, creates their
+ * renderings and adds them to the project.
+ *
+ * @param {!Array.<*>} models The models to add.
+ * @return {Array.<rhizo.model.SuperModel>} The SuperModels wrapping the added
+ *     models, or null if something went wrong.
+ * @private
+ */
+rhizo.Project.prototype.buildModels_ = function(models) {
   // wrap each model into a SuperModel
+  var supermodels = [];
+  if (models.length == 0) {
+    // Nothing to render.
+    return supermodels;
+  }
   for (var i = 0; i < models.length; i++) {
-    this.models_[i] = new rhizo.model.SuperModel(models[i]);
+    supermodels.push(new rhizo.model.SuperModel(models[i]));
   }
 
   // model sanity checking.
-  if (!this.checkModels_()) {
-    return false;
+  if (!this.checkModels_(supermodels)) {
+    return null;
   }
 
-  this.buildModelsMap_();
-  return true;
+  if (!this.buildRenderings_(supermodels)) {
+    // Something went wrong while creating the renderings.
+    return null;
+  }
+
+  for (i = 0; i < supermodels.length; i++) {
+    this.models_.push(supermodels[i]);
+    this.modelsMap_[supermodels[i].id] = supermodels[i];
+  }
+  return supermodels;
 };
 
-rhizo.Project.prototype.finalizeUI_ = function() {
+/**
+ * Creates the renderings for a set of models and attaches them to the
+ * visualization.
+ *
+ * @param {!Array.<rhizo.model.SuperModel>} supermodels The models to render.
+ * @return {boolean} Whether the renderings were created successfully.
+ * @private
+ */
+rhizo.Project.prototype.buildRenderings_ = function(supermodels) {
   var renderingBootstrap = new rhizo.ui.RenderingBootstrap(this.renderer_,
                                                            this.gui_,
                                                            this,
                                                            this.options_);
-  if (!renderingBootstrap.buildRenderings(this.models_)) {
-    // Something went wrong while creating the renderings.
-    return;
-  }
+  return renderingBootstrap.buildRenderings(supermodels);
+};
 
+rhizo.Project.prototype.finalizeUI_ = function() {
   // We manually disable animations for the initial layout (the browser is
   // already busy creating the whole dom).
   this.gui_.disableFx(true);
@@ -143,23 +202,301 @@ rhizo.Project.prototype.finalizeUI_ = function() {
   this.alignFx();
 };
 
+/**
+ * Adds a set of models to the visualization after it has been deployed.
+ *
+ * Only the renderings for the new models are created and attached to the
+ * visualization. The filters currently applied to the project are evaluated
+ * against the new models only, after which the current layout engine is
+ * asked to reposition all the models to make room for the new ones.
+ *
+ * If the project has not been deployed yet (for example because its
+ * deployment failed), this is equivalent to a full deployment.
+ *
+ * @param {!Array.<*>} models The models to add.
+ * @return {boolean} Whether the models were successfully added.
+ */
+rhizo.Project.prototype.addModels = function(models) {
+  if (!this.state_) {
+    if (!this.buildModels_(models)) {
+      return false;
+    }
+    this.finalizeUI_();
+    return true;
+  }
+  if (models.length == 0) {
+    return true;
+  }
+
+  var supermodels = this.buildModels_(models);
+  if (!supermodels) {
+    return false;
+  }
+
+  this.filterManager_.applyFilters(supermodels);
+  this.alignFx();
+  // Not flagged as a filter-driven layout: new renderings have no position
+  // yet, so every layout engine must process them.
+  this.layoutManager_.forceLayout();
+  return true;
+};
+
+/**
+ * Removes a set of models from the visualization after it has been deployed.
+ *
+ * The renderings of the removed models are destroyed and detached from the
+ * visualization, and the models are dropped from the current selection. The
+ * current layout engine is then asked to reposition the remaining models.
+ *
+ * @param {!Array.<*>} modelIds The ids of the models to remove. Ids that do
+ *     not belong to any model in the project are ignored.
+ * @return {number} The number of models that were removed.
+ */
+rhizo.Project.prototype.removeModels = function(modelIds) {
+  var removedIds = [];
+  for (var i = modelIds.length-1; i >= 0; i--) {
+    var model = this.modelsMap_[modelIds[i]];
+    if (!model) {
+      continue;
+    }
+    if (model.hasRendering()) {
+      model.rendering().detach();
+    }
+    delete this.modelsMap_[model.id];
+    removedIds.push(model.id);
+  }
+  if (removedIds.length == 0) {
+    return 0;
+  }
+
+  // Compact the models list, preserving the ordering of surviving models.
+  var survivingModels = [];
+  for (i = 0; i < this.models_.length; i++) {
+    if (this.models_[i].id in this.modelsMap_) {
+      survivingModels.push(this.models_[i]);
+    }
+  }
+  this.models_ = survivingModels;
+
+  this.selectionManager_.removeModels(removedIds);
+  this.layoutManager_.removeModels(removedIds);
+
+  this.alignFx();
+  this.layoutManager_.forceLayout({filter: true});
+  return removedIds.length;
+};
+
+/**
+ * Notifies the project that some of its models have been modified in place.
+ *
+ * Renderings are refreshed only for the models that actually changed. Active
+ * filters are re-evaluated only on the changed models and only for the
+ * attributes that changed. The current layout is recomputed only if the
+ * current layout engine depends on one of the changed attributes, or the
+ * changes altered the filtering status of some models.
+ *
+ * @param {!Object.<*, !Array.<string>>} changes Maps the id of each changed
+ *     model to the list of attribute keys that changed on it.
+ */
+rhizo.Project.prototype.updateModels = function(changes) {
+  var changedKeys = {};
+  var filtersChanged = false;
+  for (var modelId in changes) {
+    var model = this.modelsMap_[modelId];
+    var modelChanges = changes[modelId];
+    if (!model || modelChanges.length == 0) {
+      continue;
+    }
+    model.modelChanged();
+    for (var i = modelChanges.length-1; i >= 0; i--) {
+      changedKeys[modelChanges[i]] = true;
+    }
+    filtersChanged =
+        this.filterManager_.refilter(model, modelChanges) || filtersChanged;
+  }
+
+  var mustLayout = this.layoutManager_.dependsOn(changedKeys);
+  if (filtersChanged) {
+    this.filterManager_.realign(mustLayout);
+  } else if (mustLayout) {
+    this.layoutManager_.forceLayout({filter: true});
+  }
+};
+
 /**
  * Destroys the Rhizosphere visualization managed by this project.
  *
  * This includes removal of all renderings, visualization Chrome and other
  * UI elements, and reverting the DOM element that contains the visualization
- * back to its original state.
+ * back to its original state. The project drops all the references it holds
+ * to its models.
+ *
+ * @return {number} The number of models that were part of the project.
  */
 rhizo.Project.prototype.destroy = function() {
   rhizo.state.getMasterOverlord().detachProject(this);
+  var numModels = this.models_.length;
   for (var i = this.models_.length-1; i >= 0; i--) {
-    var rendering = this.models_[i].rendering();
-    if (rendering) {
+    if (this.models_[i].hasRendering()) {
       // Give renderings a chance to cleanup.
-      rendering.beforeDestroy();
+      this.models_[i].rendering().beforeDestroy();
     }
   }
   this.gui_.destroy();
+  this.models_ = [];
+  this.modelsMap_ = {};
+  this.state_ = null;
+  this.hibernation_ = null;
+  return numModels;
+};
+
+/**
+ * Hibernates the project, typically because the visualization is no longer
+ * part of the document (for example because it sits in a hidden tab).
+ *
+ * The position, visibility and expansion status of every rendering is
+ * recorded, after which all renderings are destroyed and removed from the
+ * DOM, and animations are suspended. Models, filters, the selection and the
+ * current layout engine and state are preserved as they are.
+ *
+ * Renderings of models that are requested while the project is hibernated
+ * (for example by programmatic operations) are rebuilt on demand.
+ *
+ * @return {number} The number of renderings released.
+ */
+rhizo.Project.prototype.hibernate = function() {
+  if (!this.state_ || this.hibernation_) {
+    return 0;
+  }
+  var snapshot = {
+    renderings: {},
+    relayout: this.layoutManager_.suspend()
+  };
+  var renderingFactory = jQuery.proxy(this.renderOnDemand_, this);
+  var numReleased = 0;
+  for (var i = this.models_.length-1; i >= 0; i--) {
+    var model = this.models_[i];
+    if (!model.hasRendering()) {
+      continue;
+    }
+    var rendering = model.rendering();
+    snapshot.renderings[model.id] = {
+      position: rendering.position(),
+      visibility: rendering.visibility,
+      expanded: rendering.isExpanded()
+    };
+    rendering.detach();
+    model.setRendering(null);
+    model.setRenderingFactory(renderingFactory);
+    numReleased++;
+  }
+  this.gui_.disableFx(true);
+  this.hibernation_ = snapshot;
+  return numReleased;
+};
+
+/**
+ * Restores a project previously hibernated via hibernate().
+ *
+ * Only the renderings that were visible (or greyed out) at hibernation time
+ * are rebuilt, and they are put back at their recorded position without
+ * recomputing the layout (unless the layout restyled or resized them). The
+ * renderings of filtered models are rebuilt on demand, only if and when they
+ * become needed. Models are not re-processed.
+ *
+ * @return {number} The number of renderings rebuilt.
+ */
+rhizo.Project.prototype.restore = function() {
+  var snapshot = this.hibernation_;
+  if (!snapshot) {
+    return 0;
+  }
+  this.hibernation_ = null;
+
+  var visibleModels = [];
+  for (var i = 0; i < this.models_.length; i++) {
+    var model = this.models_[i];
+    var saved = snapshot.renderings[model.id];
+    if (!model.hasRendering() && saved &&
+        saved.visibility > rhizo.ui.Visibility.HIDDEN) {
+      visibleModels.push(model);
+    }
+  }
+  if (visibleModels.length > 0 && this.renderNow_(visibleModels)) {
+    var fadeIn = [];
+    var greyOut = [];
+    for (i = 0; i < visibleModels.length; i++) {
+      var rendering = visibleModels[i].rendering();
+      saved = snapshot.renderings[visibleModels[i].id];
+      if ('top' in saved.position) {
+        rendering.move(saved.position.top, saved.position.left, true);
+      }
+      if (saved.expanded) {
+        rendering.setExpanded(true);
+      }
+      rendering.setSelected(
+          this.selectionManager_.isSelected(visibleModels[i].id));
+      rendering.visibility = saved.visibility;
+      if (saved.visibility == rhizo.ui.Visibility.VISIBLE) {
+        fadeIn.push(visibleModels[i]);
+      } else {
+        greyOut.push(visibleModels[i]);
+      }
+    }
+    // Animations are still disabled, so renderings appear instantly.
+    rhizo.ui.fadeAllRenderingsTo(fadeIn, rhizo.ui.Visibility.VISIBLE);
+    rhizo.ui.fadeAllRenderingsTo(greyOut, rhizo.ui.Visibility.GREY);
+  }
+
+  this.alignFx();
+  if (snapshot.relayout) {
+    this.layoutManager_.forceLayout({filter: true});
+  }
+  return visibleModels.length;
+};
+
+/**
+ * Rendering factory for models whose rendering was released by hibernate().
+ * Rebuilds the rendering of the requested model, together with those of all
+ * the other unfiltered models still lacking one, so that on-demand renderings
+ * are created in batches rather than one by one.
+ *
+ * @param {!rhizo.model.SuperModel} model The model whose rendering was
+ *     requested.
+ * @private
+ */
+rhizo.Project.prototype.renderOnDemand_ = function(model) {
+  var models = [model];
+  for (var i = 0; i < this.models_.length; i++) {
+    if (this.models_[i] != model &&
+        !this.models_[i].hasRendering() &&
+        !this.models_[i].isFiltered()) {
+      models.push(this.models_[i]);
+    }
+  }
+  this.renderNow_(models);
+};
+
+/**
+ * Rebuilds the renderings of a set of models released by hibernate(),
+ * cancelling their on-demand creation.
+ *
+ * @param {!Array.<rhizo.model.SuperModel>} models The models to render.
+ * @return {boolean} Whether the renderings were created successfully.
+ * @private
+ */
+rhizo.Project.prototype.renderNow_ = function(models) {
+  for (var i = models.length-1; i >= 0; i--) {
+    models[i].setRenderingFactory(null);
+  }
+  return this.buildRenderings_(models);
+};
+
+/**
+ * @return {boolean} Whether the project is currently hibernated.
+ */
+rhizo.Project.prototype.isHibernated = function() {
+  return !!this.hibernation_;
 };
 
 /**
@@ -288,20 +625,24 @@ rhizo.Project.prototype.userAgent = function() {
 
 /**
  * Verify the models formal correctness, by checking that all the models have
- * an assigned id and no duplicate ids exist.
+ * an assigned id and no duplicate ids exist (neither among themselves, nor
+ * with the models already part of the project).
+ * @param {Array.<rhizo.model.SuperModel>} opt_models The models to check.
+ *     Defaults to all the project models.
  * @private
  */
-rhizo.Project.prototype.checkModels_ = function() {
+rhizo.Project.prototype.checkModels_ = function(opt_models) {
   this.logger_.info("Checking models...");
+  var models = opt_models || this.models_;
   var uniqueIds = {};
   var missingIds = false;
   var duplicateIds = [];
-  for (var i = this.models_.length-1; i >= 0; i--) {
-    var id = this.models_[i].id;
+  for (var i = models.length-1; i >= 0; i--) {
+    var id = models[i].id;
     if (!id) {
       missingIds = true;
     } else {
-      if (id in uniqueIds) {
+      if (id in uniqueIds || id in this.modelsMap_) {
         duplicateIds.push(id);
       } else {
         uniqueIds[id] = true;
@@ -349,14 +690,6 @@ rhizo.Project.prototype.checkMetaModel_ = function() {
   return true;
 };
 
-rhizo.Project.prototype.buildModelsMap_ = function() {
-  this.logger_.info("Building models map...");
-  for (var i = this.models_.length-1; i >= 0; i--) {
-    var model = this.models_[i];
-    this.modelsMap_[model.id] = model;
-  }
-};
-
 /**
  * Enables or disables project-wide animations.
  *
@@ -375,7 +708,8 @@ rhizo.Project.prototype.alignFx = function() {
     if (!this.models_[i].isFiltered()) {
       numUnfilteredModels++;
     }
-    if (this.models_[i].rendering().visibility >= rhizo.ui.Visibility.GREY) {
+    if (this.models_[i].hasRendering() &&
+        this.models_[i].rendering().visibility >= rhizo.ui.Visibility.GREY) {
       numVisibleModels++;
     }
   }
@@ -457,10 +791,11 @@ rhizo.UserAgent.prototype.addSelectionListener = function(
  * @param {Object=} opt_listener The object whose listeners have to be removed.
  * @param {function(Object)=} opt_listenerCallback The specific listener
  *    callback to remove.
+ * @return {number} The number of listeners removed.
  */
 rhizo.UserAgent.prototype.removeSelectionListener = function(
     opt_listener, opt_listenerCallback) {
-  this.unsubscribe_('selection', opt_listener, opt_listenerCallback);
+  return this.unsubscribe_('selection', opt_listener, opt_listenerCallback);
 };
 
 /**
@@ -489,10 +824,11 @@ rhizo.UserAgent.prototype.addFilterListener = function(
  * @param {Object=} opt_listener The object whose listeners have to be removed.
  * @param {function(Object)=} opt_listenerCallback The specific listener
  *    callback to remove.
+ * @return {number} The number of listeners removed.
  */
 rhizo.UserAgent.prototype.removeFilterListener = function(
     opt_listener, opt_listenerCallback) {
-  this.unsubscribe_('filter', opt_listener, opt_listenerCallback);
+  return this.unsubscribe_('filter', opt_listener, opt_listenerCallback);
 };
 
 /**
@@ -521,10 +857,11 @@ rhizo.UserAgent.prototype.addLayoutListener = function(
  * @param {Object=} opt_listener The object whose listeners have to be removed.
  * @param {function(Object)=} opt_listenerCallback The specific listener
  *    callback to remove.
+ * @return {number} The number of listeners removed.
  */
 rhizo.UserAgent.prototype.removeLayoutListener = function(
     opt_listener, opt_listenerCallback) {
-  this.unsubscribe_('layout', opt_listener, opt_listenerCallback);
+  return this.unsubscribe_('layout', opt_listener, opt_listenerCallback);
 };
 
 /**
@@ -560,6 +897,8 @@ rhizo.UserAgent.prototype.subscribe_ = function(
  * @param {Object=} opt_listener The object whose listeners have to be removed.
  * @param {function(Object)=} opt_listenerCallback The specific listener
  *    callback to remove.
+ * @return {number} The number of listeners removed.
+ * @private
  */
 rhizo.UserAgent.prototype.unsubscribe_ = function(
     channel, opt_listener, opt_listenerCallback) {
@@ -575,10 +914,12 @@ rhizo.UserAgent.prototype.unsubscribe_ = function(
       newListeners.push(listener);
     }
   }
+  var numRemoved = this.listeners_[channel].length - newListeners.length;
   this.listeners_[channel] = newListeners;
   if (newListeners.length == 0) {
     this.project_.eventBus().unsubscribe(channel, this);
   }
+  return numRemoved;
 };
 
 /**
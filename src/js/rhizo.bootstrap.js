@@ -48,6 +48,7 @@ rhizo.bootstrap.uuids_ = 0;
 rhizo.bootstrap.Bootstrap = function(container, opt_options, opt_callback) {
   this.container_ = container;
   this.deployed_ = false;
+  this.metaReady_ = false;
   var containerId = $(container).attr('id');
   if (!containerId || containerId.length == 0) {
     // Generates a unique element id for the visualization container if one
@@ -160,6 +161,34 @@ rhizo.bootstrap.Bootstrap.prototype.deployWithLoader = function(loader) {
 rhizo.bootstrap.Bootstrap.prototype.deployExplicit = function(models,
                                                               opt_metamodel,
                                                               opt_renderer) {
+  if (this.beginDeploy(opt_metamodel, opt_renderer)) {
+    this.project_.deploy(models);
+    this.template_.ready();
+  }
+  this.completeDeploy_();
+};
+
+/**
+ * Starts an incremental deployment of the Rhizosphere visualization managed by
+ * this bootstrapper. Models are then fed to the visualization in multiple
+ * batches via deployBatch(), and the deployment is finalized by
+ * completeDeploy().
+ *
+ * Incremental deployment lets the caller split the creation of renderings for
+ * large sets of models in multiple steps, yielding control back to the
+ * browser in between them. The boostrapper must have already been prepared
+ * before invoking this method.
+ *
+ * @param {*} opt_metamodel A descriptor for the attributes and properties that
+ *     each model in the visualization has. Can be omitted if the metamodel has
+ *     been specified via configuration options.
+ * @param {*} opt_renderer A component capable of creating HTML representation
+ *     of model instances. Can be omitted if the renderer has been specified via
+ *     configuration options.
+ * @return {boolean} Whether the visualization is ready to receive models.
+ */
+rhizo.bootstrap.Bootstrap.prototype.beginDeploy = function(opt_metamodel,
+                                                           opt_renderer) {
   var metamodel = this.options_.metamodel || opt_metamodel;
   if (this.options_.metamodelFragment) {
     $.extend(metamodel, this.options_.metamodelFragment);
@@ -175,9 +204,54 @@ rhizo.bootstrap.Bootstrap.prototype.deployExplicit = function(models,
 
   if (this.project_.metaReady()) {
     this.template_.metaReady();
-    this.project_.deploy(models);
+    this.metaReady_ = true;
+  }
+  return this.metaReady_;
+};
+
+/**
+ * Feeds a batch of models to an incremental deployment started via
+ * beginDeploy(). Renderings for the models are created immediately, but they
+ * remain hidden until completeDeploy() is invoked.
+ *
+ * @param {!Array.<*>} models The batch of models to add.
+ * @return {boolean} Whether the batch was successfully added.
+ */
+rhizo.bootstrap.Bootstrap.prototype.deployBatch = function(models) {
+  return this.metaReady_ && this.project_.stageModels(models);
+};
+
+/**
+ * Adds a batch of models to an already deployed visualization. Renderings are
+ * created only for the new models, and the current layout is refreshed to
+ * make room for them.
+ *
+ * @param {!Array.<*>} models The batch of models to add.
+ * @return {boolean} Whether the batch was successfully added.
+ */
+rhizo.bootstrap.Bootstrap.prototype.appendBatch = function(models) {
+  return this.deployed_ && this.project_.addModels(models);
+};
+
+/**
+ * Completes an incremental deployment started via beginDeploy(), laying out
+ * all the models received so far and making the visualization ready for user
+ * interaction.
+ */
+rhizo.bootstrap.Bootstrap.prototype.completeDeploy = function() {
+  if (this.metaReady_) {
+    this.project_.deploy();
     this.template_.ready();
   }
+  this.completeDeploy_();
+};
+
+/**
+ * Final deployment steps, notifying the ready callback (if any) that the
+ * visualization is ready for user interaction.
+ * @private
+ */
+rhizo.bootstrap.Bootstrap.prototype.completeDeploy_ = function() {
   this.gui_.done();
   if (this.ready_callback_) {
     this.ready_callback_(this.project_.userAgent());
@@ -185,6 +259,54 @@ rhizo.bootstrap.Bootstrap.prototype.deployExplicit = function(models,
   this.deployed_ = true;
 };
 
+/**
+ * Hibernates the deployed visualization, releasing all its renderings until
+ * restore() is invoked. See rhizo.Project.hibernate().
+ *
+ * @return {number} The number of renderings released.
+ */
+rhizo.bootstrap.Bootstrap.prototype.hibernate = function() {
+  return this.deployed_ ? this.project_.hibernate() : 0;
+};
+
+/**
+ * Restores a visualization previously hibernated via hibernate(). See
+ * rhizo.Project.restore().
+ *
+ * @return {number} The number of renderings rebuilt.
+ */
+rhizo.bootstrap.Bootstrap.prototype.restore = function() {
+  return this.deployed_ ? this.project_.restore() : 0;
+};
+
+/**
+ * @return {boolean} Whether the visualization is currently hibernated.
+ */
+rhizo.bootstrap.Bootstrap.prototype.isHibernated = function() {
+  return this.deployed_ && this.project_.isHibernated();
+};
+
+/**
+ * Destroys the visualization managed by this bootstrapper, removing all its
+ * renderings and UI elements from the container. The bootstrapper cannot be
+ * used anymore afterward.
+ *
+ * @return {number} The number of models the visualization contained.
+ */
+rhizo.bootstrap.Bootstrap.prototype.destroy = function() {
+  var numModels = 0;
+  if (this.project_) {
+    numModels = this.project_.destroy();
+  }
+  this.project_ = null;
+  this.gui_ = null;
+  this.template_ = null;
+  this.ready_callback_ = null;
+  this.deployed_ = false;
+  this.metaReady_ = false;
+  return numModels;
+};
+
 /**
  * Identify the platform and device we are running onto.
  * @private
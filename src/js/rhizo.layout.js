@@ -327,7 +327,8 @@ rhizo.layout.FlowLayout.prototype.layout = function(pipeline,
 
   // reorder supermodels
   this.project_.logger().info("Sorting by " + order);
-  supermodels.sort(rhizo.meta.sortBy(order, meta[order].kind, reverse));
+  supermodels.sort(rhizo.meta.sortBy(
+      order, meta[order].kind, reverse, meta[order].dictionary));
 
   // layout supermodels
   for (var i = 0, len = supermodels.length; i < len; i++) {
@@ -434,12 +435,23 @@ rhizo.layout.BucketLayout.prototype.layout = function(pipeline,
   var buckets = {};
   var bucketsLabels = {};
 
+  // For dictionary encoded attributes, cluster each distinct value only once.
+  var clustersByCode = meta[bucketBy].dictionary ? [] : null;
+
   // figure out the bucket for each model
   for (var i = 0, len = supermodels.length; i < len; i++) {
-    var bucketKey = supermodels[i].unwrap()[bucketBy];
+    var model = supermodels[i].unwrap();
+    var bucketKey = model[bucketBy];
     var bucketLabel = bucketKey;
     if (clusterFunction) {
-      var keyLabel = clusterFunction.call(clusterThis, bucketKey);
+      var code = clustersByCode ? rhizo.meta.codeOf(model, bucketBy) : -1;
+      var keyLabel = code >= 0 ? clustersByCode[code] : null;
+      if (!keyLabel) {
+        keyLabel = clusterFunction.call(clusterThis, bucketKey);
+        if (code >= 0) {
+          clustersByCode[code] = keyLabel;
+        }
+      }
       bucketKey = keyLabel['key'];
       bucketLabel = keyLabel['label'];
     }
@@ -204,6 +204,33 @@ rhizo.layout.LayoutManager.prototype.getEngineState = function(engineName) {
   return null;
 };
 
+/**
+ * Returns whether the current layout engine depends on any of the given
+ * metamodel keys, i.e. whether a change in the value of one of those
+ * attributes may alter the position of the models. Dependencies are inferred
+ * from the engine state, which references the metamodel keys the engine uses
+ * (such as the sorting or grouping criteria).
+ *
+ * @param {!Object.<string, boolean>} metaModelKeys The set of keys to check.
+ * @return {boolean} Whether the current layout engine depends on any of the
+ *     keys.
+ */
+rhizo.layout.LayoutManager.prototype.dependsOn = function(metaModelKeys) {
+  var state = this.getEngineState(this.curEngineName_);
+  if (!state) {
+    return false;
+  }
+  var metaModel = this.project_.metaModel();
+  for (var stateKey in state) {
+    var value = state[stateKey];
+    if (typeof(value) == 'string' && value in metaModel &&
+        value in metaModelKeys) {
+      return true;
+    }
+  }
+  return false;
+};
+
 /**
  * If the current layout engine  supports it, ask it to extend a model
  * selection. The engine may be aware of relationships between models (such as
@@ -395,6 +422,39 @@ rhizo.layout.LayoutManager.prototype.modelsMoved = function(positions) {
   }, null, this);
 };
 
+/**
+ * Notifies the manager that a set of models has been removed from the project,
+ * so that any rendering state the manager holds for them can be dropped.
+ *
+ * @param {!Array.<*>} modelIds The ids of the removed models.
+ */
+rhizo.layout.LayoutManager.prototype.removeModels = function(modelIds) {
+  var backupManager = this.renderingPipeline_.backupManager();
+  if (backupManager) {
+    for (var i = modelIds.length-1; i >= 0; i--) {
+      backupManager.removeBackup(modelIds[i]);
+    }
+  }
+};
+
+/**
+ * Notifies the manager that all the project renderings are about to be
+ * released (see rhizo.Project.hibernate()). Rendering backups are dropped
+ * without being restored, since the renderings they refer to are going away.
+ *
+ * @return {boolean} Whether the current layout altered the renderings beyond
+ *     their position (for example by resizing or restyling them), in which
+ *     case a full layout is required to reproduce it on new renderings.
+ */
+rhizo.layout.LayoutManager.prototype.suspend = function() {
+  var backupManager = this.renderingPipeline_.backupManager();
+  if (!backupManager || backupManager.numBackups() == 0) {
+    return false;
+  }
+  backupManager.clear();
+  return true;
+};
+
 /**
  * Forces an out-of-band layout operation for the current layout engine and
  * state, which won't be published on the channel. This is useful when a
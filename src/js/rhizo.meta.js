@@ -77,14 +77,22 @@ namespace("rhizo.meta");
  * Kind associated to the attribute, if present, and falls back to native
  * sorting otherwise.
  *
+ * If the attribute is dictionary encoded (see rhizo.meta.codeOf()), the
+ * dictionary values are sorted once and models are compared by the rank of
+ * their codes.
+ *
  * @param {string} key The metamodel key that identifies the attribute to
  *     sort against.
  * @param {*} kind The Rhizosphere metamodel Kind that describes the attribute.
  * @param {boolean=} opt_reverse Whether the sorting order should be reversed.
+ * @param {Array.<*>=} opt_dictionary The distinct values of the attribute,
+ *     indexed by code, if the attribute is dictionary encoded.
  * @return {function(rhizo.model.SuperModel, rhizo.model.SuperModel):number}
  *     The comparison function.
  */
-rhizo.meta.sortBy = function(key, kind, opt_reverse) {
+rhizo.meta.sortBy = function(key, kind, opt_reverse, opt_dictionary) {
+  var ranks = opt_dictionary ?
+      rhizo.meta.rankDictionary_(opt_dictionary, kind) : null;
   return function(firstSuperModel, secondSuperModel) {
     var firstModel = firstSuperModel.unwrap();
     var secondModel = secondSuperModel.unwrap();
@@ -92,6 +100,14 @@ rhizo.meta.sortBy = function(key, kind, opt_reverse) {
     // Sign multiplication to invert sorting order
     var reverse = opt_reverse ? -1 : 1;
 
+    if (ranks) {
+      var firstRank = ranks[rhizo.meta.codeOf(firstModel, key)];
+      var secondRank = ranks[rhizo.meta.codeOf(secondModel, key)];
+      if (firstRank !== undefined && secondRank !== undefined) {
+        return (firstRank - secondRank)*reverse;
+      }
+    }
+
     if (kind.compare) {
       return kind.compare(firstModel[key], secondModel[key])*reverse;
     } else {
@@ -103,6 +119,49 @@ rhizo.meta.sortBy = function(key, kind, opt_reverse) {
 };
 
 
+/**
+ * Returns the dictionary code of a model attribute, or -1 if the attribute is
+ * not dictionary encoded. Models whose attributes are dictionary encoded
+ * expose a __rhizosphere_code(key) method, and the metamodel entries of the
+ * encoded attributes carry the list of distinct values, indexed by code, in
+ * their 'dictionary' property.
+ *
+ * @param {*} model The model.
+ * @param {string} key The metamodel key of the attribute.
+ * @return {number} The code of the model value, or -1.
+ */
+rhizo.meta.codeOf = function(model, key) {
+  return model['__rhizosphere_code'] ? model['__rhizosphere_code'](key) : -1;
+};
+
+
+/**
+ * Sorts the values of a dictionary according to the given kind, and returns
+ * the rank of each code.
+ *
+ * @param {Array.<*>} dictionary The distinct values of an attribute, indexed
+ *     by code.
+ * @param {*} kind The Rhizosphere metamodel Kind that describes the attribute.
+ * @return {Array.<number>} The rank of each code.
+ * @private
+ */
+rhizo.meta.rankDictionary_ = function(dictionary, kind) {
+  var codes = [];
+  for (var i = 0; i < dictionary.length; i++) {
+    codes.push(i);
+  }
+  var compareValues = rhizo.meta.sortByKind(kind);
+  codes.sort(function(firstCode, secondCode) {
+    return compareValues(dictionary[firstCode], dictionary[secondCode]);
+  });
+  var ranks = [];
+  for (i = 0; i < codes.length; i++) {
+    ranks[codes[i]] = i;
+  }
+  return ranks;
+};
+
+
 /**
  * Returns a comparison function that sorts arbitrary values according to the
  * comparison logic defined by a given Rhizosphere metamodel Kind, if present,
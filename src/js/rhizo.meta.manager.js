@@ -128,7 +128,8 @@ rhizo.meta.FilterManager.prototype.enableFilterAutocommit = function(enable) {
     // commit the filter.
     var modelsMap = this.project_.modelsMap();
     for (var modelId in modelsMap) {
-      if (modelsMap[modelId].rendering().visibility ==
+      if (modelsMap[modelId].hasRendering() &&
+          modelsMap[modelId].rendering().visibility ==
           rhizo.ui.Visibility.GREY) {
         this.commitFilter();
         break;
@@ -190,6 +191,103 @@ rhizo.meta.FilterManager.prototype.removeFilterFromModels = function(
   return modelsAffected;
 };
 
+/**
+ * Applies the set of filters currently active on the project to the given
+ * models only. Used when new models are added to an already deployed project.
+ *
+ * @param {!Array.<rhizo.model.SuperModel>} models The models to filter.
+ * @return {boolean} Whether at least one of the models was filtered.
+ */
+rhizo.meta.FilterManager.prototype.applyFilters = function(models) {
+  var modelsAffected = false;
+  for (var metaModelKey in this.filters_) {
+    var survivesFilter = this.newFilterTest_(
+        metaModelKey, this.filters_[metaModelKey]);
+    for (var i = models.length-1; i >= 0; i--) {
+      if (!survivesFilter(models[i].unwrap())) {
+        modelsAffected = models[i].filter(metaModelKey) || modelsAffected;
+      }
+    }
+  }
+  return modelsAffected;
+};
+
+/**
+ * Returns a function that tells whether a model survives a filter on a given
+ * attribute. For dictionary encoded attributes (see rhizo.meta.codeOf()), the
+ * filter is evaluated only once per distinct value, and models are then
+ * matched by their integer code.
+ *
+ * @param {string} metaModelKey The metamodel key of the filtered attribute.
+ * @param {*} filterValue The filter value.
+ * @return {function(*):boolean} A function that receives a model (as it was
+ *     provided to the project, not wrapped in a SuperModel) and returns
+ *     whether it survives the filter.
+ * @private
+ */
+rhizo.meta.FilterManager.prototype.newFilterTest_ = function(metaModelKey,
+                                                              filterValue) {
+  var meta = this.project_.metaModel()[metaModelKey];
+  var kind = meta.kind;
+  var dictionary = meta.dictionary;
+  var survivorsByCode = [];
+  return function(model) {
+    var code = dictionary ? rhizo.meta.codeOf(model, metaModelKey) : -1;
+    if (code < 0) {
+      return kind.survivesFilter(filterValue, model[metaModelKey]);
+    }
+    if (survivorsByCode[code] === undefined) {
+      survivorsByCode[code] = kind.survivesFilter(filterValue, dictionary[code]);
+    }
+    return survivorsByCode[code];
+  };
+};
+
+/**
+ * Re-evaluates the active filters on a single model, after some of its
+ * attributes changed. Only the filters bound to the changed attributes are
+ * re-evaluated.
+ *
+ * @param {!rhizo.model.SuperModel} model The model that changed.
+ * @param {!Array.<string>} changedKeys The metamodel keys of the attributes
+ *     that changed.
+ * @return {boolean} Whether the filtering status of the model changed.
+ */
+rhizo.meta.FilterManager.prototype.refilter = function(model, changedKeys) {
+  var metaModel = this.project_.metaModel();
+  var modelChange = false;
+  for (var i = changedKeys.length-1; i >= 0; i--) {
+    var metaModelKey = changedKeys[i];
+    if (!(metaModelKey in this.filters_)) {
+      continue;
+    }
+    if (metaModel[metaModelKey].kind.survivesFilter(
+        this.filters_[metaModelKey], model.unwrap()[metaModelKey])) {
+      modelChange = model.resetFilter(metaModelKey) || modelChange;
+    } else {
+      modelChange = model.filter(metaModelKey) || modelChange;
+    }
+  }
+  return modelChange;
+};
+
+/**
+ * Realigns the visualization after the filtering status of some models
+ * changed, either by committing the filter or by greying out the filtered
+ * models, depending on the autocommit setting.
+ *
+ * @param {boolean=} opt_forceLayout Whether the models must be repositioned
+ *     regardless of the autocommit setting.
+ */
+rhizo.meta.FilterManager.prototype.realign = function(opt_forceLayout) {
+  this.project_.alignFx();
+  if (!!opt_forceLayout || this.mustLayoutAfterFilter_()) {
+    this.commitFilter();
+  } else {
+    this.alignVisibility(rhizo.ui.Visibility.GREY);
+  }
+};
+
 /**
  * Refreshes models' visibility based on their filtering status.
  *
@@ -208,6 +306,10 @@ rhizo.meta.FilterManager.prototype.alignVisibility = function(
   var modelsMap = this.project_.modelsMap();
   for (var modelId in modelsMap) {
     var model = modelsMap[modelId];
+    if (model.isFiltered() && !model.hasRendering()) {
+      // Renderings that have not been created yet are hidden already.
+      continue;
+    }
     var rendering = model.rendering();
     if (model.isFiltered()) {
       if (rendering.visibility > filtered_visibility) {
@@ -254,7 +356,6 @@ rhizo.meta.FilterManager.prototype.onBeforeFilter_ = function(
  * @private
  */
 rhizo.meta.FilterManager.prototype.onFilter_ = function(message) {
-  var metaModel = this.project_.metaModel();
   var modelsMap = this.project_.modelsMap();
 
   var modelsChange = false;
@@ -264,11 +365,10 @@ rhizo.meta.FilterManager.prototype.onFilter_ = function(message) {
       // valid filter
       this.filters_[metaModelKey] = filterValue;
 
-
+      var survivesFilter = this.newFilterTest_(metaModelKey, filterValue);
       for (var modelId in modelsMap) {
         var model = modelsMap[modelId];
-        if (metaModel[metaModelKey].kind.survivesFilter(
-            filterValue, model.unwrap()[metaModelKey])) {
+        if (survivesFilter(model.unwrap())) {
           // matches filter. Doesn't have to be hidden
           modelsChange = model.resetFilter(metaModelKey) || modelsChange;
         } else {
@@ -284,12 +384,7 @@ rhizo.meta.FilterManager.prototype.onFilter_ = function(message) {
   }
 
   if (modelsChange) {
-    this.project_.alignFx();
-    if (this.mustLayoutAfterFilter_()) {
-      this.commitFilter();
-    } else {
-      this.alignVisibility(rhizo.ui.Visibility.GREY);
-    }
+    this.realign();
   }
 };
 
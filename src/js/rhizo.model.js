@@ -30,6 +30,14 @@ rhizo.model.SuperModel = function(model) {
   this.id = model.id;
   this.filters_ = {}; // a map of filter status, one for each model key
   this.rendering_ = null;
+
+  /**
+   * Callback that builds the rendering on demand, when the model has no
+   * rendering yet.
+   * @type {?function(rhizo.model.SuperModel)}
+   * @private
+   */
+  this.renderingFactory_ = null;
   this.selected_ = false;
   this.pinned_ = false;
 };
@@ -41,13 +49,38 @@ rhizo.model.SuperModel.prototype.setRendering = function(rendering) {
   this.rendering_ = rendering;
 };
 
+/**
+ * Defers the creation of the rendering for this model. The factory is invoked
+ * (once) the first time the rendering is requested, and is expected to assign
+ * a rendering to the model via setRendering().
+ *
+ * @param {?function(rhizo.model.SuperModel)} factory The rendering factory,
+ *     or null to cancel a previously deferred creation.
+ */
+rhizo.model.SuperModel.prototype.setRenderingFactory = function(factory) {
+  this.renderingFactory_ = factory;
+};
+
 /**
  * @return {rhizo.ui.Rendering}
  */
 rhizo.model.SuperModel.prototype.rendering = function() {
+  if (!this.rendering_ && this.renderingFactory_) {
+    var factory = this.renderingFactory_;
+    this.renderingFactory_ = null;
+    factory(this);
+  }
   return this.rendering_;
 };
 
+/**
+ * @return {boolean} Whether the rendering for this model currently exists,
+ *     without triggering its deferred creation.
+ */
+rhizo.model.SuperModel.prototype.hasRendering = function() {
+  return !!this.rendering_;
+};
+
 /**
  * @return {*} the naked model wrapped by this SuperModel.
  */
@@ -69,7 +102,7 @@ rhizo.model.SuperModel.prototype.isAvailableForLayout = function() {
  */
 rhizo.model.SuperModel.prototype.setSelected = function(selected) {
   this.selected_ = !!selected;
-  this.rendering_.setSelected(this.selected_);
+  this.rendering().setSelected(this.selected_);
 };
 
 /**
@@ -155,5 +188,9 @@ rhizo.model.SuperModel.prototype.resetFilter = function(key) {
  * it to update the rendering.
  */
 rhizo.model.SuperModel.prototype.modelChanged = function() {
-  this.rendering_.modelChanged();
+  if (this.rendering_) {
+    // Renderings that have not been created yet will reflect the change
+    // once they are.
+    this.rendering_.modelChanged();
+  }
 };
\ No newline at end of file
@@ -132,6 +132,17 @@ rhizo.selection.SelectionManager.prototype.allSelected = function() {
   return this.selectionMap_;
 };
 
+/**
+ * Drops a set of models from the selection, without notifying anyone. Used
+ * when models are removed from the project they belong to.
+ * @param {!Array.<*>} modelIds The ids of the removed models.
+ */
+rhizo.selection.SelectionManager.prototype.removeModels = function(modelIds) {
+  for (var i = modelIds.length-1; i >= 0; i--) {
+    delete this.selectionMap_[modelIds[i]];
+  }
+};
+
 /**
  * Returns a map of all the de-selected models.
  * @return {!Object.<*, rhizo.model.SuperModel>} All the currently deselected
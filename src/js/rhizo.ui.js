@@ -444,6 +444,13 @@ rhizo.ui.RenderingBackupManager.prototype.clear = function() {
   this.numBackups_ = 0;
 };
 
+/**
+ * @return {number} The number of renderings currently backed up.
+ */
+rhizo.ui.RenderingBackupManager.prototype.numBackups = function() {
+  return this.numBackups_;
+};
+
 /**
  * Adds a new rendering to the backup, if it is not already in there.
  * @param {*} mid The unique id of the model bound to this rendering.
@@ -862,6 +869,15 @@ rhizo.ui.Rendering.prototype.beforeDestroy = function() {
   this.notifyAttach_(false);
 };
 
+/**
+ * Destroys the rendering and removes it from the DOM. Used when the model
+ * bound to this rendering is removed from a live visualization.
+ */
+rhizo.ui.Rendering.prototype.detach = function() {
+  this.beforeDestroy();
+  this.raw_node_.remove();
+};
+
 /**
  * Moves the rendering.
  * @param {number} top The target y coordinate of the top-left corner of the
@@ -1061,6 +1077,13 @@ rhizo.ui.Rendering.prototype.setExpanded = function(expanded) {
   return this;
 };
 
+/**
+ * @return {boolean} Whether this rendering is currently expanded.
+ */
+rhizo.ui.Rendering.prototype.isExpanded = function() {
+  return this.expanded_;
+};
+
 /**
  * Toggles the expansion status for this rendering.
  * @return {rhizo.ui.Rendering} this object, for chaining.
@@ -1414,21 +1437,22 @@ rhizo.ui.RenderingBootstrap.prototype.buildRenderings = function(models) {
     return false;
   }
 
-  var numModels = models.length;
+  // Renderings may be added to a visualization that already contains other
+  // ones. Only the renderings created here are going to be decorated, so they
+  // are collected as they are built rather than looked up in the universe.
   if (typeof rawRenderings[0] == 'string') {
     // The project renderer returns raw strings.
     //
     // We concatenate everything together and add it to the DOM in a single
     // pass. We then identify back all the single renderings and bind them
     // to the model they belong to.
-    this.buildFromStrings_(models, rawRenderings);
+    rawRenderings = this.buildFromStrings_(models, rawRenderings);
   } else {
     // The project renderer returns jQuery objects.
     //
     // We append them to the DOM one at a time and assign them to their model.
-    this.buildFromShells_(models, rawRenderings);
+    rawRenderings = this.buildFromShells_(models, rawRenderings);
   }
-  rawRenderings = this.gui_.universe.find('.rhizo-model');
 
   // Sanity checks
   if (!this.sanityCheck_(rawRenderings, models.length)) {
@@ -1486,14 +1510,20 @@ rhizo.ui.RenderingBootstrap.prototype.rawrender_ = function(
  * Converts HTML strings of raw renderings into rhizo.ui.Rendering objects.
  * Attaches the rendering to the visualization.
  *
+ * The HTML is parsed into a detached container first, whose children are
+ * exactly the renderings of this batch, and then moved into the universe.
+ *
  * @param {Array.<rhizo.model.SuperModel>} models
  * @param {Array.<string>} rawRenderings
+ * @return {jQuery} The raw renderings created, in model order.
  * @private
  */
 rhizo.ui.RenderingBootstrap.prototype.buildFromStrings_ = function(
     models, rawRenderings) {
-  this.gui_.universe.append(rawRenderings.join(''));
-  this.gui_.universe.find('.rhizo-model').each(jQuery.proxy(
+  var batch = $('<div />').append(rawRenderings.join(''));
+  var newRawRenderings = batch.children('.rhizo-model');
+  this.gui_.universe.append(newRawRenderings);
+  newRawRenderings.each(jQuery.proxy(
       function(renderingIdx, rawRendering) {
         var model = models[renderingIdx];
         var rendering = new rhizo.ui.Rendering(model,
@@ -1503,6 +1533,7 @@ rhizo.ui.RenderingBootstrap.prototype.buildFromStrings_ = function(
         model.setRendering(rendering);
         this.renderings_.push(rendering);
       }, this));
+  return newRawRenderings;
 };
 
 /**
@@ -1511,10 +1542,12 @@ rhizo.ui.RenderingBootstrap.prototype.buildFromStrings_ = function(
  *
  * @param {Array.<rhizo.model.SuperModel>} models
  * @param {Array.<*>} rawRenderings
+ * @return {jQuery} The raw renderings created, in model order.
  * @private
  */
 rhizo.ui.RenderingBootstrap.prototype.buildFromShells_ = function(
     models, rawRenderings) {
+  var newRawRenderings = [];
   for (var i = 0; i < models.length; i++) {
     this.gui_.universe.append(rawRenderings[i]);
     var rendering = new rhizo.ui.Rendering(models[i],
@@ -1523,7 +1556,9 @@ rhizo.ui.RenderingBootstrap.prototype.buildFromShells_ = function(
                                            this.gui_.allRenderingHints());
     models[i].setRendering(rendering);
     this.renderings_.push(rendering);
+    newRawRenderings.push(rawRenderings[i].get(0));
   }
+  return $(newRawRenderings);
 };
 
 /**
@@ -1641,7 +1676,7 @@ rhizo.ui.RenderingBootstrap.prototype.startExpandable_ = function(
     });
 
   // listen to click events on the expand icon
-  $('.rhizo-expand-model', this.gui_.container).click(
+  rawRenderings.children('.rhizo-expand-model').click(
       jQuery.proxy(function(ev) {
         var model = rhizo.ui.eventToModel(ev, this.project_);
         model.rendering().toggleExpanded();